@@ -15,9 +15,17 @@
  */
 package com.wavemaker.app.build.maven.plugin.handler;
 
+import com.wavemaker.app.build.maven.plugin.task.AppBuildTaskGraph;
+
 /**
  * Created by saddhamp on 21/4/16.
  */
 public interface AppBuildHandler {
     void handle();
+
+    /**
+     * Adds the work of this handler to the given task graph, so that it can run in parallel with other handlers.
+     * Handlers registered earlier may be depended upon by task name.
+     */
+    void registerTasks(AppBuildTaskGraph taskGraph);
 }
@@ -0,0 +1,275 @@
+/**
+ * Copyright © 2013 - 2017 WaveMaker, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wavemaker.app.build.maven.plugin.handler;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.wavemaker.app.build.constants.AppBuildConstants;
+import com.wavemaker.app.build.io.GeneratedFileWriter;
+import com.wavemaker.app.build.manifest.AssetManifest;
+import com.wavemaker.app.build.maven.plugin.task.AppBuildTaskGraph;
+import com.wavemaker.app.build.project.ProjectSnapshot;
+import com.wavemaker.commons.WMRuntimeException;
+import com.wavemaker.commons.io.File;
+import com.wavemaker.commons.io.Folder;
+import com.wavemaker.commons.io.local.LocalFile;
+import com.wavemaker.commons.io.local.LocalFolder;
+
+/**
+ * Writes the {@link AssetManifest} of the page min files and service definitions files of the app, once they are
+ * generated. Pages and service definitions bundles are named by their path in the web app,
+ * pages/&lt;page&gt;/page.min.html, and service definitions by their path in the class path. The service definitions
+ * files are copied to the class path with resource filtering, so when a classes folder is set their copies in it are
+ * hashed rather than the generated files, the hashes matching the content actually served. When a cache file is set,
+ * the files whose size and last modified time are the ones recorded by the previous build, and which this build did
+ * not write, keep the hash of the previous asset manifest.
+ */
+public class AssetManifestGenerationHandler implements AppBuildHandler {
+    public static final String ASSET_MANIFEST_TASK = "assetmanifest";
+    private static final String PAGES_PATH = "pages/";
+    private static final String APP_VARIABLES_NAME = "app";
+    private static final Logger logger = LoggerFactory.getLogger(AssetManifestGenerationHandler.class);
+
+    private final File assetManifestFile;
+    private Folder pagesFolder;
+    private Folder servicesFolder;
+    private Folder classesFolder;
+    private ProjectSnapshot projectSnapshot;
+    private GeneratedFileWriter generatedFileWriter = new GeneratedFileWriter();
+    private java.io.File cacheFile;
+
+    public AssetManifestGenerationHandler(File assetManifestFile) {
+        if (assetManifestFile == null) {
+            throw new WMRuntimeException("Asset manifest file is null");
+        }
+        this.assetManifestFile = assetManifestFile;
+    }
+
+    public AssetManifestGenerationHandler setPagesFolder(Folder pagesFolder) {
+        this.pagesFolder = pagesFolder;
+        return this;
+    }
+
+    public AssetManifestGenerationHandler setServicesFolder(Folder servicesFolder) {
+        this.servicesFolder = servicesFolder;
+        return this;
+    }
+
+    /**
+     * Sets the folder the resources are copied to, hashing the copies of the service definitions files in it. A
+     * service definitions file without a copy is hashed as it is.
+     */
+    public AssetManifestGenerationHandler setClassesFolder(Folder classesFolder) {
+        this.classesFolder = classesFolder;
+        return this;
+    }
+
+    /**
+     * Sets the snapshot of the project listing the page and service folders, instead of listing their folders.
+     */
+    public AssetManifestGenerationHandler setProjectSnapshot(ProjectSnapshot projectSnapshot) {
+        this.projectSnapshot = projectSnapshot;
+        return this;
+    }
+
+    public AssetManifestGenerationHandler setGeneratedFileWriter(GeneratedFileWriter generatedFileWriter) {
+        if (generatedFileWriter == null) {
+            throw new WMRuntimeException("Generated file writer is null");
+        }
+        this.generatedFileWriter = generatedFileWriter;
+        return this;
+    }
+
+    /**
+     * Sets the file recording the size and last modified time of the hashed files, so that the files unchanged since
+     * the previous build are not hashed again. Defaults to none, every file being hashed.
+     */
+    public AssetManifestGenerationHandler setCacheFile(java.io.File cacheFile) {
+        if (cacheFile == null) {
+            throw new WMRuntimeException("Asset manifest cache file is null");
+        }
+        this.cacheFile = cacheFile;
+        return this;
+    }
+
+    /**
+     * Records every existing page min file and service definitions file, whether they were generated by this build
+     * or a previous one, and writes the asset manifest. Only the files changed since the previous build are hashed
+     * when a cache file is set.
+     */
+    @Override
+    public void handle() {
+        AssetManifest assetManifest = new AssetManifest();
+        AssetRecorder assetRecorder = new AssetRecorder(assetManifest);
+        if (pagesFolder != null && pagesFolder.exists()) {
+            for (String pageName : getPageNames()) {
+                File pageMinFile = pagesFolder.getFolder(pageName).getFile(AppBuildConstants.PAGE_MIN_FILE);
+                if (pageMinFile.exists()) {
+                    assetRecorder.record(PAGES_PATH + pageName + "/" + AppBuildConstants.PAGE_MIN_FILE,
+                            ((LocalFile) pageMinFile).getLocalFile());
+                }
+                addServiceDefBundle(assetRecorder, PAGES_PATH + pageName + "/", pagesFolder.getFolder(pageName), pageName);
+            }
+            addServiceDefBundle(assetRecorder, "", pagesFolder.getParent(), APP_VARIABLES_NAME);
+        }
+        if (servicesFolder != null && servicesFolder.exists()) {
+            for (String serviceName : getServiceNames()) {
+                File serviceDefFile = VariableServiceDefGenerationHandler.getServiceDefFile(servicesFolder, serviceName);
+                if (serviceDefFile.exists()) {
+                    String serviceDefPath = VariableServiceDefGenerationHandler.getServiceDefResourcePath(serviceName);
+                    File serviceDefCopy = classesFolder == null ? null : classesFolder.getFile(serviceDefPath);
+                    if (serviceDefCopy != null && serviceDefCopy.exists()) {
+                        serviceDefFile = serviceDefCopy;
+                    }
+                    assetRecorder.record(serviceDefPath, ((LocalFile) serviceDefFile).getLocalFile());
+                }
+            }
+        }
+        assetManifest.write(assetManifestFile, generatedFileWriter);
+        if (cacheFile != null) {
+            assetRecorder.writeStamps();
+        }
+        logger.info("Recorded {} assets in {}, hashed {} changed assets", assetManifest.getAssets().size(),
+                assetManifestFile.getName(), assetRecorder.getHashedCount());
+    }
+
+    /**
+     * Adds a task writing the asset manifest after the page min files and service definitions are generated.
+     */
+    @Override
+    public void registerTasks(AppBuildTaskGraph taskGraph) {
+        List<String> dependencies = new ArrayList<>();
+        for (String task : new String[]{PageMinFileGenerationHandler.PAGES_TASK, VariableServiceDefGenerationHandler.SERVICE_DEFS_TASK}) {
+            if (taskGraph.hasTask(task)) {
+                dependencies.add(task);
+            }
+        }
+        taskGraph.addTask(ASSET_MANIFEST_TASK, new Runnable() {
+            @Override
+            public void run() {
+                handle();
+            }
+        }, dependencies);
+    }
+
+    /**
+     * Adds the service definitions bundle of the variables file of the given name, when bundles are generated.
+     */
+    private static void addServiceDefBundle(AssetRecorder assetRecorder, String path, Folder folder, String variablesName) {
+        String bundleName = variablesName + VariableServiceDefGenerationHandler.SERVICE_DEF_BUNDLE_EXTENSION;
+        File bundleFile = folder.getFile(bundleName);
+        if (bundleFile.exists()) {
+            assetRecorder.record(path + bundleName, ((LocalFile) bundleFile).getLocalFile());
+        }
+    }
+
+    private List<String> getPageNames() {
+        if (projectSnapshot != null) {
+            return projectSnapshot.getPageNames();
+        }
+        List<String> pageNames = new ArrayList<>();
+        for (Folder pageFolder : pagesFolder.list().folders().fetchAll()) {
+            pageNames.add(pageFolder.getName());
+        }
+        return pageNames;
+    }
+
+    /**
+     * Records the assets in the manifest, reusing the assets of the previous manifest whose file has the stamp, the
+     * path, size and last modified time, recorded by the previous build and was not written by this build.
+     */
+    private class AssetRecorder {
+        private final AssetManifest assetManifest;
+        private final AssetManifest previousAssetManifest;
+        private final Map<String, String> previousStamps;
+        private final Map<String, String> stamps = new TreeMap<>();
+        private int hashedCount;
+
+        private AssetRecorder(AssetManifest assetManifest) {
+            this.assetManifest = assetManifest;
+            this.previousAssetManifest = cacheFile == null ? new AssetManifest()
+                    : AssetManifest.read(((LocalFile) assetManifestFile).getLocalFile());
+            this.previousStamps = cacheFile == null ? Collections.<String, String>emptyMap() : readStamps();
+        }
+
+        private void record(String logicalName, java.io.File file) {
+            // the stamp is taken before hashing, a file changing meanwhile is hashed again by the next build
+            String stamp = file.length() + "," + file.lastModified() + "," + file.getAbsolutePath();
+            stamps.put(logicalName, stamp);
+            AssetManifest.Asset previousAsset = previousAssetManifest.getAsset(logicalName);
+            if (previousAsset != null && stamp.equals(previousStamps.get(logicalName))
+                    && !generatedFileWriter.isWritten(file)) {
+                assetManifest.putAsset(logicalName, previousAsset);
+            } else {
+                assetManifest.addAsset(logicalName, file);
+                hashedCount++;
+            }
+        }
+
+        private Map<String, String> readStamps() {
+            Map<String, String> stamps = new HashMap<>();
+            if (!cacheFile.exists()) {
+                return stamps;
+            }
+            try {
+                for (String line : Files.readAllLines(cacheFile.toPath(), GeneratedFileWriter.UTF_8)) {
+                    int separator = line.indexOf('=');
+                    if (separator > 0) {
+                        stamps.put(line.substring(0, separator), line.substring(separator + 1));
+                    }
+                }
+            } catch (IOException e) {
+                logger.warn("Failed to read asset manifest cache {}, all assets will be hashed", cacheFile, e);
+                stamps.clear();
+            }
+            return stamps;
+        }
+
+        private void writeStamps() {
+            StringBuilder content = new StringBuilder();
+            for (Map.Entry<String, String> stamp : stamps.entrySet()) {
+                content.append(stamp.getKey()).append('=').append(stamp.getValue()).append('\n');
+            }
+            generatedFileWriter.write(new LocalFolder(cacheFile.getParentFile()).getFile(cacheFile.getName()),
+                    content.toString());
+        }
+
+        private int getHashedCount() {
+            return hashedCount;
+        }
+    }
+
+    private List<String> getServiceNames() {
+        if (projectSnapshot != null) {
+            return projectSnapshot.getServiceNames();
+        }
+        List<String> serviceNames = new ArrayList<>();
+        for (Folder serviceFolder : servicesFolder.list().folders().fetchAll()) {
+            serviceNames.add(serviceFolder.getName());
+        }
+        return serviceNames;
+    }
+}
@@ -0,0 +1,156 @@
+/**
+ * Copyright © 2013 - 2017 WaveMaker, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wavemaker.app.build.maven.plugin.handler;
+
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.wavemaker.app.build.manifest.ContentDigest;
+import com.wavemaker.app.build.pages.Page;
+import com.wavemaker.commons.io.File;
+import com.wavemaker.commons.io.Folder;
+
+/**
+ * Computes the content hashes of the units processed by the app build handlers. Only the files a handler actually
+ * reads are digested, generated artifacts living next to them are left out.
+ */
+public class BuildInputs {
+
+    private static final String DESIGN_TIME_FOLDER = "designtime";
+    private static final String SRC_FOLDER = "src";
+    private static final String SERVICE_DEFS_FOLDER = "servicedefs/";
+    private static final String API_EXTENSION = "_API.json";
+
+    private BuildInputs() {
+    }
+
+    /**
+     * Hash of the css, js, variables and html files of the page.
+     */
+    public static String pageHash(Folder pageFolder) {
+        return pageHash(pageFolder, false);
+    }
+
+    /**
+     * Hash of the css, js, variables and html files of the page, and of whether they are minified.
+     */
+    public static String pageHash(Folder pageFolder, boolean minify) {
+        ContentDigest contentDigest = new ContentDigest().update(pageFolder.getName());
+        if (minify) {
+            contentDigest.update("minify");
+        }
+        for (Page page : Page.values()) {
+            File pageFile = page.getPageFile(pageFolder);
+            contentDigest.update(page.name());
+            if (pageFile.exists()) {
+                contentDigest.update(pageFile);
+            }
+        }
+        return contentDigest.getHash();
+    }
+
+    /**
+     * Hash of the service sources and design time files, excluding the generated swagger and service definitions.
+     */
+    public static String serviceHash(Folder serviceFolder) {
+        String serviceName = serviceFolder.getName();
+        ContentDigest contentDigest = new ContentDigest().update(serviceName);
+
+        Folder srcFolder = serviceFolder.getFolder(SRC_FOLDER);
+        if (srcFolder.exists()) {
+            List<File> srcFiles = new ArrayList<>();
+            for (File file : srcFolder.find().files()) {
+                if (!file.toStringRelativeTo(srcFolder).startsWith(SERVICE_DEFS_FOLDER)) {
+                    srcFiles.add(file);
+                }
+            }
+            // a folder holding only generated files is digested as a missing one, it may have been created by the build
+            if (!srcFiles.isEmpty()) {
+                contentDigest.update(SRC_FOLDER).update(srcFolder, srcFiles);
+            }
+        }
+
+        Folder designTimeFolder = serviceFolder.getFolder(DESIGN_TIME_FOLDER);
+        if (designTimeFolder.exists()) {
+            String generatedSwaggerFileName = serviceName + API_EXTENSION;
+            List<File> designTimeFiles = new ArrayList<>();
+            for (File file : designTimeFolder.find().files()) {
+                if (!file.toStringRelativeTo(designTimeFolder).equals(generatedSwaggerFileName)) {
+                    designTimeFiles.add(file);
+                }
+            }
+            if (!designTimeFiles.isEmpty()) {
+                contentDigest.update(DESIGN_TIME_FOLDER).update(designTimeFolder, designTimeFiles);
+            }
+        }
+        return contentDigest.getHash();
+    }
+
+    /**
+     * Hash of the class path the swagger docs are generated with. Jars are digested by name, size and last modified
+     * time, and class folders by the paths, sizes and last modified times of their files. The project class folder is
+     * left out, its classes are compiled from the service sources already digested by {@link #serviceHash(Folder)}.
+     */
+    public static String classPathHash(URL[] classPathURLs, java.io.File projectClassFolder) {
+        ContentDigest contentDigest = new ContentDigest();
+        for (URL classPathURL : classPathURLs) {
+            contentDigest.update(classPathURL.toString());
+            if (!"file".equals(classPathURL.getProtocol())) {
+                continue;
+            }
+            java.io.File classPathFile;
+            try {
+                classPathFile = new java.io.File(classPathURL.toURI());
+            } catch (URISyntaxException e) {
+                continue;
+            }
+            if (classPathFile.isFile()) {
+                contentDigest.update(classPathFile.length() + ":" + classPathFile.lastModified());
+            } else if (classPathFile.isDirectory() && !classPathFile.equals(projectClassFolder)) {
+                Map<String, java.io.File> classFiles = new TreeMap<>();
+                collectFiles(classPathFile.toPath(), classPathFile, classFiles);
+                for (Map.Entry<String, java.io.File> classFile : classFiles.entrySet()) {
+                    contentDigest.update(classFile.getKey()).update(classFile.getValue().length() + ":"
+                            + classFile.getValue().lastModified());
+                }
+            }
+        }
+        return contentDigest.getHash();
+    }
+
+    private static void collectFiles(Path basePath, java.io.File folder, Map<String, java.io.File> files) {
+        java.io.File[] children = folder.listFiles();
+        if (children == null) {
+            return;
+        }
+        for (java.io.File child : children) {
+            if (child.isDirectory()) {
+                collectFiles(basePath, child, files);
+            } else {
+                files.put(basePath.relativize(child.toPath()).toString(), child);
+            }
+        }
+    }
+
+    public static String fileHash(File file) {
+        return new ContentDigest().update(file).getHash();
+    }
+}
@@ -15,30 +15,175 @@
  */
 package com.wavemaker.app.build.maven.plugin.handler;
 
+import java.util.ArrayList;
 import java.util.List;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.wavemaker.app.build.constants.AppBuildConstants;
+import com.wavemaker.app.build.io.GeneratedFileCompressor;
+import com.wavemaker.app.build.io.GeneratedFileWriter;
+import com.wavemaker.app.build.manifest.BuildManifest;
+import com.wavemaker.app.build.maven.plugin.task.AppBuildTaskGraph;
 import com.wavemaker.app.build.pages.PageMinFileGenerator;
+import com.wavemaker.app.build.project.ProjectSnapshot;
 import com.wavemaker.commons.WMRuntimeException;
 import com.wavemaker.commons.io.Folder;
+import com.wavemaker.commons.io.local.LocalFile;
 
 /**
  * Created by saddhamp on 21/4/16.
  */
 public class PageMinFileGenerationHandler implements AppBuildHandler {
+    public static final String PAGES_TASK = "pages";
+    private static final Logger logger = LoggerFactory.getLogger(PageMinFileGenerationHandler.class);
+
     private Folder pagesFolder;
+    private BuildManifest buildManifest;
+    private ProjectSnapshot projectSnapshot;
+    private int parallelism = 1;
+    private boolean minify;
+    private GeneratedFileWriter generatedFileWriter = new GeneratedFileWriter();
+    private GeneratedFileCompressor generatedFileCompressor;
+    private java.io.File cacheFolder;
 
     public PageMinFileGenerationHandler(Folder pagesFolder){
+        this(pagesFolder, null);
+    }
+
+    /**
+     * @param buildManifest when not null, only pages whose inputs changed since the previous build are generated.
+     */
+    public PageMinFileGenerationHandler(Folder pagesFolder, BuildManifest buildManifest){
         if(pagesFolder == null || !pagesFolder.exists())
             throw new WMRuntimeException("Pages folder is null or does not exist");
         this.pagesFolder = pagesFolder;
+        this.buildManifest = buildManifest;
+    }
+
+    /**
+     * Sets the snapshot of the project listing the page folders, instead of listing the pages folder.
+     */
+    public PageMinFileGenerationHandler setProjectSnapshot(ProjectSnapshot projectSnapshot) {
+        this.projectSnapshot = projectSnapshot;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of pages generated at the same time. Defaults to 1.
+     */
+    public PageMinFileGenerationHandler setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new WMRuntimeException("Parallelism should be at least 1, found " + parallelism);
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Sets whether the content of the page files is minified in the page min files. Defaults to false.
+     */
+    public PageMinFileGenerationHandler setMinify(boolean minify) {
+        this.minify = minify;
+        return this;
+    }
+
+    /**
+     * Sets the writer of the page min files, skipping the pages whose page min file is unchanged.
+     */
+    public PageMinFileGenerationHandler setGeneratedFileWriter(GeneratedFileWriter generatedFileWriter) {
+        if (generatedFileWriter == null) {
+            throw new WMRuntimeException("Generated file writer is null");
+        }
+        this.generatedFileWriter = generatedFileWriter;
+        return this;
+    }
+
+    /**
+     * Sets the folder in which the page min files are assembled and indexed, see
+     * {@link PageMinFileGenerator#setCacheFolder(java.io.File)}.
+     */
+    public PageMinFileGenerationHandler setCacheFolder(java.io.File cacheFolder) {
+        if (cacheFolder == null) {
+            throw new WMRuntimeException("Cache folder is null");
+        }
+        this.cacheFolder = cacheFolder;
+        return this;
+    }
+
+    /**
+     * Sets the compressor writing a compressed copy of the page min files. Defaults to none.
+     */
+    public PageMinFileGenerationHandler setGeneratedFileCompressor(GeneratedFileCompressor generatedFileCompressor) {
+        if (generatedFileCompressor == null) {
+            throw new WMRuntimeException("Generated file compressor is null");
+        }
+        this.generatedFileCompressor = generatedFileCompressor;
+        return this;
     }
 
+    /**
+     * Generates the page min files of the modified pages, then compresses the page min files of all the pages when a
+     * compressor is set, the unmodified pages only lacking their compressed copy when compression was just enabled.
+     */
     @Override
     public void handle() {
-        List<Folder> pageFolders = pagesFolder.list().folders().fetchAll();
+        List<Folder> allPageFolders = getPageFolders();
+        List<Folder> pageFolders = getModifiedPageFolders(allPageFolders);
         if (pageFolders.size() > 0){
             PageMinFileGenerator pageMinFileGenerator = new PageMinFileGenerator(pageFolders);
-            pageMinFileGenerator.setForceOverwrite(true).generate();
+            pageMinFileGenerator.setForceOverwrite(true).setParallelism(parallelism).setMinify(minify)
+                    .setGeneratedFileWriter(generatedFileWriter);
+            if (cacheFolder != null) {
+                pageMinFileGenerator.setCacheFolder(cacheFolder);
+            }
+            pageMinFileGenerator.generate();
+        }
+        if (generatedFileCompressor != null) {
+            List<java.io.File> pageMinFiles = new ArrayList<>(allPageFolders.size());
+            for (Folder pageFolder : allPageFolders) {
+                pageMinFiles.add(((LocalFile) pageFolder.getFile(AppBuildConstants.PAGE_MIN_FILE)).getLocalFile());
+            }
+            generatedFileCompressor.compress(pageMinFiles, parallelism);
+        }
+    }
+
+    @Override
+    public void registerTasks(AppBuildTaskGraph taskGraph) {
+        taskGraph.addTask(PAGES_TASK, new Runnable() {
+            @Override
+            public void run() {
+                handle();
+            }
+        });
+    }
+
+    private List<Folder> getPageFolders() {
+        if (projectSnapshot == null) {
+            return pagesFolder.list().folders().fetchAll();
+        }
+        List<Folder> pageFolders = new ArrayList<>();
+        for (String pageName : projectSnapshot.getPageNames()) {
+            pageFolders.add(pagesFolder.getFolder(pageName));
+        }
+        return pageFolders;
+    }
+
+    private List<Folder> getModifiedPageFolders(List<Folder> pageFolders) {
+        if (buildManifest == null) {
+            return pageFolders;
+        }
+        List<Folder> modifiedPageFolders = new ArrayList<>();
+        for (Folder pageFolder : pageFolders) {
+            String pageHash = BuildInputs.pageHash(pageFolder, minify);
+            boolean modified = buildManifest.isModified(BuildManifest.PAGE_PREFIX + pageFolder.getName(), pageHash);
+            if (modified || !pageFolder.getFile(AppBuildConstants.PAGE_MIN_FILE).exists()) {
+                modifiedPageFolders.add(pageFolder);
+            }
         }
+        logger.info("Generating {} for {} modified pages, skipped {} unchanged pages", AppBuildConstants.PAGE_MIN_FILE,
+                modifiedPageFolders.size(), pageFolders.size() - modifiedPageFolders.size());
+        return modifiedPageFolders;
     }
 }
@@ -15,12 +15,17 @@
  */
 package com.wavemaker.app.build.maven.plugin.handler;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -35,7 +40,13 @@ import org.xml.sax.SAXException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.wavemaker.app.build.BasePackage;
+import com.wavemaker.app.build.io.GeneratedFileWriter;
+import com.wavemaker.app.build.manifest.BuildManifest;
+import com.wavemaker.app.build.maven.plugin.task.AppBuildTaskGraph;
+import com.wavemaker.app.build.project.ProjectSnapshot;
+import com.wavemaker.app.build.swaggerdoc.SwaggerFragmentCache;
 import com.wavemaker.app.build.swaggerdoc.SwaggerGenerator;
+import com.wavemaker.app.build.swaggerdoc.index.ControllerIndexer;
 import com.wavemaker.commons.WMRuntimeException;
 import com.wavemaker.commons.io.File;
 import com.wavemaker.commons.io.Folder;
@@ -46,7 +57,7 @@ import com.wavemaker.tools.apidocs.tools.core.model.Swagger;
 /**
  * Created by saddhamp on 20/4/16.
  */
-public class SwaggerDocGenerationHandler implements AppBuildHandler {
+public class SwaggerDocGenerationHandler implements AppBuildHandler, Closeable {
     public static final String SERVICE_DEF_XML = "servicedef.xml";
     public static final String SECURITY_SERVICE_TYPE = "SecurityServiceType";
     public static final String FEED_SERVICE_TYPE = "FeedService";
@@ -56,12 +67,30 @@ public class SwaggerDocGenerationHandler implements AppBuildHandler {
     private static final String DESIGN_TIME_FOLDER = "designtime";
     private static final String SRC_FOLDER = "src";
     private static final String API_EXTENSION = "_API.json";
+    private static final String SWAGGER_TASK_PREFIX = "swagger:";
+    private static final String CLASS_INDEX_FILE = "class-index.json";
     private ObjectMapper objectMapper;
     private Folder servicesFolder;
     private URLClassLoader urlClassLoader;
     private URL[] classPathURLs;
+    private BuildManifest buildManifest;
+    private Set<String> modifiedServiceNames;
+    private int parallelism = 1;
+    private java.io.File swaggerCacheFolder;
+    private SwaggerRegistry swaggerRegistry;
+    private ProjectSnapshot projectSnapshot;
+    private ClassLoader parentClassLoader;
+    private GeneratedFileWriter generatedFileWriter = new GeneratedFileWriter();
 
     public SwaggerDocGenerationHandler(Folder servicesFolder, URL[] classPathURLs) {
+        this(servicesFolder, classPathURLs, null);
+    }
+
+    /**
+     * @param buildManifest when not null, swagger docs are only generated for services whose inputs changed since the
+     *                      previous build.
+     */
+    public SwaggerDocGenerationHandler(Folder servicesFolder, URL[] classPathURLs, BuildManifest buildManifest) {
         if (servicesFolder == null || !servicesFolder.exists()) {
             throw new WMRuntimeException("Services folder is null or does not exist");
         }
@@ -73,28 +102,188 @@ public class SwaggerDocGenerationHandler implements AppBuildHandler {
         objectMapper.configure(SerializationFeature.INDENT_OUTPUT, true);
         this.servicesFolder = servicesFolder;
         this.classPathURLs = classPathURLs;
+        this.buildManifest = buildManifest;
     }
 
+    /**
+     * Generates the swagger docs of the services, using up to {@link #setParallelism(int)} threads. Failures are
+     * reported per service once all the services have been processed.
+     */
     @Override
     public void handle() {
+        AppBuildTaskGraph taskGraph = new AppBuildTaskGraph();
+        registerTasks(taskGraph);
         try {
-            urlClassLoader = new URLClassLoader(classPathURLs, Thread.currentThread().getContextClassLoader());
+            taskGraph.execute(parallelism);
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * Sets the maximum number of services whose swagger docs are generated at the same time by {@link #handle()},
+     * all of them sharing the same class loader. Defaults to 1.
+     */
+    public SwaggerDocGenerationHandler setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new WMRuntimeException("Parallelism should be at least 1, found " + parallelism);
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Sets the folder in which the swagger generated for each controller, and the index of the controllers read from
+     * the class files, are cached in a sub folder per service. When not set, the whole base package of every modified
+     * service is scanned.
+     */
+    public SwaggerDocGenerationHandler setSwaggerCacheFolder(java.io.File swaggerCacheFolder) {
+        this.swaggerCacheFolder = swaggerCacheFolder;
+        return this;
+    }
 
-            List<Folder> serviceFolders = servicesFolder.list().folders().fetchAll();
-            if (serviceFolders.size() > 0) {
-                for (Folder serviceFolder : serviceFolders) {
+    /**
+     * Sets the registry in which the generated swagger docs are published, in addition to being written to the
+     * design time folder of their service.
+     */
+    public SwaggerDocGenerationHandler setSwaggerRegistry(SwaggerRegistry swaggerRegistry) {
+        this.swaggerRegistry = swaggerRegistry;
+        return this;
+    }
+
+    /**
+     * Sets the writer of the swagger docs, skipping the services whose swagger doc is unchanged.
+     */
+    public SwaggerDocGenerationHandler setGeneratedFileWriter(GeneratedFileWriter generatedFileWriter) {
+        if (generatedFileWriter == null) {
+            throw new WMRuntimeException("Generated file writer is null");
+        }
+        this.generatedFileWriter = generatedFileWriter;
+        return this;
+    }
+
+    /**
+     * Sets the parent of the class loader created over the class path urls, defaults to the context class loader.
+     * Lets a long lived class loader over the dependencies be reused, with only the project classes loaded again.
+     */
+    public SwaggerDocGenerationHandler setParentClassLoader(ClassLoader parentClassLoader) {
+        this.parentClassLoader = parentClassLoader;
+        return this;
+    }
+
+    /**
+     * Sets the snapshot of the project listing the service folders and their java sources, instead of walking the
+     * services folder.
+     */
+    public SwaggerDocGenerationHandler setProjectSnapshot(ProjectSnapshot projectSnapshot) {
+        this.projectSnapshot = projectSnapshot;
+        return this;
+    }
+
+    /**
+     * Sets the services modified since the previous build, for callers tracking the file changes themselves. Only the
+     * swagger docs of these services are generated and the build manifest is not used.
+     */
+    public SwaggerDocGenerationHandler setModifiedServices(Collection<String> modifiedServiceNames) {
+        if (modifiedServiceNames == null) {
+            throw new WMRuntimeException("Modified services are null");
+        }
+        this.modifiedServiceNames = new HashSet<>(modifiedServiceNames);
+        return this;
+    }
+
+    /**
+     * Adds one task per service, named after {@link #getSwaggerTaskName(String)}. The class loader shared by these
+     * tasks stays open until {@link #close()} is called.
+     */
+    @Override
+    public void registerTasks(AppBuildTaskGraph taskGraph) {
+        for (final Folder serviceFolder : getModifiedServiceFolders(getServiceFolders())) {
+            taskGraph.addTask(getSwaggerTaskName(serviceFolder.getName()), new Runnable() {
+                @Override
+                public void run() {
                     generateSwaggerDoc(serviceFolder);
                 }
+            });
+        }
+    }
+
+    public static String getSwaggerTaskName(String serviceName) {
+        return SWAGGER_TASK_PREFIX + serviceName;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (urlClassLoader != null) {
+            try {
+                urlClassLoader.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close classloader");
             }
-        } finally {
-            if (urlClassLoader != null) {
+            urlClassLoader = null;
+        }
+    }
+
+    private synchronized URLClassLoader getClassLoader() {
+        if (urlClassLoader == null) {
+            urlClassLoader = new URLClassLoader(classPathURLs,
+                    parentClassLoader != null ? parentClassLoader : Thread.currentThread().getContextClassLoader());
+        }
+        return urlClassLoader;
+    }
+
+    private List<java.io.File> getClassFolders() {
+        List<java.io.File> classFolders = new ArrayList<>();
+        for (URL classPathURL : classPathURLs) {
+            if ("file".equals(classPathURL.getProtocol())) {
                 try {
-                    urlClassLoader.close();
-                } catch (IOException e) {
-                    logger.warn("Failed to close classloader");
+                    java.io.File classFolder = new java.io.File(classPathURL.toURI());
+                    if (classFolder.isDirectory()) {
+                        classFolders.add(classFolder);
+                    }
+                } catch (URISyntaxException e) {
+                    logger.warn("Ignoring invalid class path url {}", classPathURL, e);
                 }
             }
         }
+        return classFolders;
+    }
+
+    private List<Folder> getServiceFolders() {
+        if (projectSnapshot == null) {
+            return servicesFolder.list().folders().fetchAll();
+        }
+        List<Folder> serviceFolders = new ArrayList<>();
+        for (String serviceName : projectSnapshot.getServiceNames()) {
+            serviceFolders.add(servicesFolder.getFolder(serviceName));
+        }
+        return serviceFolders;
+    }
+
+    private List<Folder> getModifiedServiceFolders(List<Folder> serviceFolders) {
+        if (modifiedServiceNames != null) {
+            List<Folder> modifiedServiceFolders = new ArrayList<>();
+            for (Folder serviceFolder : serviceFolders) {
+                if (modifiedServiceNames.contains(serviceFolder.getName())) {
+                    modifiedServiceFolders.add(serviceFolder);
+                }
+            }
+            return modifiedServiceFolders;
+        }
+        if (buildManifest == null) {
+            return serviceFolders;
+        }
+        List<Folder> modifiedServiceFolders = new ArrayList<>();
+        for (Folder serviceFolder : serviceFolders) {
+            String serviceHash = BuildInputs.serviceHash(serviceFolder);
+            boolean modified = buildManifest.isModified(BuildManifest.SERVICE_PREFIX + serviceFolder.getName(), serviceHash);
+            if (modified || !getSwaggerFile(serviceFolder.getFolder(DESIGN_TIME_FOLDER)).exists()) {
+                modifiedServiceFolders.add(serviceFolder);
+            }
+        }
+        logger.info("Generating swagger docs for {} modified services, skipped {} unchanged services",
+                modifiedServiceFolders.size(), serviceFolders.size() - modifiedServiceFolders.size());
+        return modifiedServiceFolders;
     }
 
     protected void generateSwaggerDoc(Folder serviceFolder) {
@@ -105,9 +294,22 @@ public class SwaggerDocGenerationHandler implements AppBuildHandler {
             if (StringUtils.isNotBlank(basePackage)) {
                 SwaggerGenerator swaggerGenerator = new SwaggerGenerator(basePackage);
                 final Info swaggerInfo = buildSwaggerInfo(serviceFolder.getName());
-                Swagger swagger = swaggerGenerator.setClassLoader(urlClassLoader).setSwaggerInfo(swaggerInfo).generate();
+                if (swaggerCacheFolder != null) {
+                    java.io.File serviceCacheFolder = new java.io.File(swaggerCacheFolder, serviceFolder.getName());
+                    ControllerIndexer controllerIndexer = new ControllerIndexer(new java.io.File(serviceCacheFolder, CLASS_INDEX_FILE));
+                    swaggerGenerator.setClassIndex(controllerIndexer.index(getClassFolders(), basePackage));
+                    swaggerGenerator.setFragmentCache(new SwaggerFragmentCache(serviceCacheFolder, getClassLoader()));
+                }
+                try {
+                    Swagger swagger = swaggerGenerator.setClassLoader(getClassLoader()).setSwaggerInfo(swaggerInfo).generate();
 
-                marshallAndWriteToFile(swagger, serviceFolder.getFolder(DESIGN_TIME_FOLDER));
+                    marshallAndWriteToFile(swagger, serviceFolder.getFolder(DESIGN_TIME_FOLDER));
+                    if (swaggerRegistry != null) {
+                        swaggerRegistry.register(serviceFolder.getName(), swagger);
+                    }
+                } catch (RuntimeException e) {
+                    throw new WMRuntimeException("Failed to generate swagger doc for service " + serviceFolder.getName(), e);
+                }
             }
         }
     }
@@ -120,7 +322,8 @@ public class SwaggerDocGenerationHandler implements AppBuildHandler {
         } else if (serviceType != null && serviceType.equals(FEED_SERVICE_TYPE)) {
             return FEED_SERVICE_CONTROLLER_CLAZZ;
         }
-        final BasePackage basePackage = new BasePackage(serviceFolder.getFolder(SRC_FOLDER));
+        final BasePackage basePackage = projectSnapshot != null ? new BasePackage(projectSnapshot.getJavaSources(serviceFolder.getName()))
+                : new BasePackage(serviceFolder.getFolder(SRC_FOLDER));
         return basePackage.getBasePackageName();
     }
 
@@ -145,18 +348,18 @@ public class SwaggerDocGenerationHandler implements AppBuildHandler {
     }
 
     protected void marshallAndWriteToFile(Swagger swagger, Folder designTimeFolder) {
-        OutputStream outputStream = null;
         try {
-            File swaggerFile = designTimeFolder.getFile(designTimeFolder.getParent().getName() + API_EXTENSION);
-            outputStream = swaggerFile.getContent().asOutputStream();
-            objectMapper.writeValue(outputStream, swagger);
+            File swaggerFile = getSwaggerFile(designTimeFolder);
+            generatedFileWriter.write(swaggerFile, objectMapper.writeValueAsBytes(swagger));
         } catch (Exception e) {
             throw new WMRuntimeException("Failed to parse file ", e);
-        } finally {
-            IOUtils.closeSilently(outputStream);
         }
     }
 
+    private File getSwaggerFile(Folder designTimeFolder) {
+        return designTimeFolder.getFile(designTimeFolder.getParent().getName() + API_EXTENSION);
+    }
+
     protected Info buildSwaggerInfo(String serviceId) {
         Info info = new Info();
         info.setDescription("Swagger API documentation");
@@ -0,0 +1,45 @@
+/**
+ * Copyright © 2013 - 2017 WaveMaker, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wavemaker.app.build.maven.plugin.handler;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.wavemaker.commons.WMRuntimeException;
+import com.wavemaker.tools.apidocs.tools.core.model.Swagger;
+
+/**
+ * Swagger docs generated during the current build, keyed by service name. Lets the service definitions be built from
+ * the generated swagger without reading back the swagger files just written.
+ */
+public class SwaggerRegistry {
+
+    private final Map<String, Swagger> swaggers = new ConcurrentHashMap<>();
+
+    public void register(String serviceName, Swagger swagger) {
+        if (serviceName == null || swagger == null) {
+            throw new WMRuntimeException("Service name and swagger are required");
+        }
+        swaggers.put(serviceName, swagger);
+    }
+
+    /**
+     * @return the swagger generated for the service in this build, or null when it was not generated.
+     */
+    public Swagger getSwagger(String serviceName) {
+        return swaggers.get(serviceName);
+    }
+}
@@ -15,36 +15,40 @@
  */
 package com.wavemaker.app.build.maven.plugin.handler;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.Callable;
-import java.util.concurrent.CancellationException;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.lang3.StringUtils;
-import org.json.JSONException;
-import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.wavemaker.app.build.io.GeneratedFileCompressor;
+import com.wavemaker.app.build.io.GeneratedFileWriter;
+import com.wavemaker.app.build.manifest.BuildManifest;
+import com.wavemaker.app.build.maven.plugin.task.AppBuildTaskGraph;
+import com.wavemaker.app.build.project.ProjectSnapshot;
 import com.wavemaker.app.build.servicedef.ServiceDefGenerator;
+import com.wavemaker.app.build.servicedef.ServiceDefStoreWriter;
+import com.wavemaker.app.build.variables.VariableInfo;
+import com.wavemaker.app.build.variables.VariablesReader;
 import com.wavemaker.app.build.exception.ServiceDefGenerationException;
 import com.wavemaker.commons.WMRuntimeException;
 import com.wavemaker.commons.io.File;
 import com.wavemaker.commons.io.FilterOn;
 import com.wavemaker.commons.io.Folder;
-import com.wavemaker.commons.io.Resources;
+import com.wavemaker.commons.io.local.LocalFile;
 import com.wavemaker.commons.json.JSONUtils;
 import com.wavemaker.commons.servicedef.model.ServiceDefinition;
 import com.wavemaker.commons.util.IOUtils;
@@ -57,7 +61,13 @@ import com.wavemaker.tools.apidocs.tools.core.model.Swagger;
 public class VariableServiceDefGenerationHandler implements AppBuildHandler {
     private static final Logger logger = LoggerFactory.getLogger(VariableServiceDefGenerationHandler.class);
 
+    public static final String VARIABLES_TASK = "variables";
     private static final String SERVICE_DEFS = "servicedefs";
+    public static final String SERVICE_DEFS_TASK = "servicedefs";
+    private static final String SERVICE_DEFS_TASK_PREFIX = "servicedefs:";
+    private static final String VARIABLES_TASK_PREFIX = "variables:";
+    public static final String VARIABLES_EXTENSION = ".variables.json";
+    public static final String SERVICE_DEF_BUNDLE_EXTENSION = ".service-definitions.json";
     private static final String WM_SERVICE_VARIABLE = "wm.ServiceVariable";
     private static final String WEBSOCKET_VARIABLE = "wm.WebSocketVariable";
     private static final String DESIGN_TIME_FOLDER = "designtime";
@@ -72,52 +82,364 @@ public class VariableServiceDefGenerationHandler implements AppBuildHandler {
     private final String servicesDirectory = "services";
     private final Folder servicesFolder;
     private final Folder rootFolder;
+    private final BuildManifest buildManifest;
+    private SwaggerRegistry swaggerRegistry;
+    private ProjectSnapshot projectSnapshot;
+    private GeneratedFileWriter generatedFileWriter = new GeneratedFileWriter();
+    private GeneratedFileCompressor generatedFileCompressor;
+    private boolean serviceDefBundles;
+    private File serviceDefStoreFile;
 
-    private ExecutorService executorService = Executors.newFixedThreadPool(5);
-    private Map<String, Future<Map<String, ServiceDefinition>>> serviceVsServiceDefs = new HashMap<>();
+    private Set<String> serviceNames = new HashSet<>();
+    private List<Folder> serviceFoldersToBuild = new ArrayList<>();
+    private List<File> variableFiles = new ArrayList<>();
+    private List<File> variableFilesToRead = new ArrayList<>();
+    private Set<String> modifiedServiceNames;
+    private Set<String> modifiedVariablesTasks = new HashSet<>();
+
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private final VariablesReader variablesReader = new VariablesReader();
+    // each task only writes its own entry, the entries are merged in a sorted order by the tasks depending on them
+    private ConcurrentMap<String, Map<String, Set<String>>> variableFileOperations = new ConcurrentHashMap<>();
+    private Map<String, Set<String>> referencedOperations = new TreeMap<>();
     private Map<String, Map<String, ServiceDefinition>> filteredServiceDefinitions = new ConcurrentHashMap<>();
 
     public VariableServiceDefGenerationHandler(Folder rootFolder) {
+        this(rootFolder, null);
+    }
+
+    /**
+     * @param buildManifest when not null, service definitions are only rebuilt when a variables file or a service
+     *                      changed since the previous build.
+     */
+    public VariableServiceDefGenerationHandler(Folder rootFolder, BuildManifest buildManifest) {
         this.rootFolder = rootFolder;
         this.servicesFolder = rootFolder.getFolder(servicesDirectory);
+        this.buildManifest = buildManifest;
+    }
+
+    /**
+     * Sets the registry of the swagger docs generated in this build, which are used instead of reading the swagger
+     * files of their services.
+     */
+    public VariableServiceDefGenerationHandler setSwaggerRegistry(SwaggerRegistry swaggerRegistry) {
+        this.swaggerRegistry = swaggerRegistry;
+        return this;
+    }
+
+    /**
+     * Sets the snapshot of the project listing the variables files and service folders, instead of walking the whole
+     * project.
+     */
+    public VariableServiceDefGenerationHandler setProjectSnapshot(ProjectSnapshot projectSnapshot) {
+        this.projectSnapshot = projectSnapshot;
+        return this;
+    }
+
+    /**
+     * Sets the writer of the service definitions files, skipping the services whose definitions are unchanged.
+     */
+    public VariableServiceDefGenerationHandler setGeneratedFileWriter(GeneratedFileWriter generatedFileWriter) {
+        if (generatedFileWriter == null) {
+            throw new WMRuntimeException("Generated file writer is null");
+        }
+        this.generatedFileWriter = generatedFileWriter;
+        return this;
+    }
+
+    /**
+     * Sets the compressor writing a compressed copy of the service definitions bundles. Defaults to none. The service
+     * definitions files are served from their filtered copies in the build output, which the build compresses itself.
+     */
+    public VariableServiceDefGenerationHandler setGeneratedFileCompressor(GeneratedFileCompressor generatedFileCompressor) {
+        if (generatedFileCompressor == null) {
+            throw new WMRuntimeException("Generated file compressor is null");
+        }
+        this.generatedFileCompressor = generatedFileCompressor;
+        return this;
+    }
+
+    /**
+     * Sets whether a bundle of the service definitions referenced by each variables file is also written next to it,
+     * letting a page load only the definitions its variables need. Defaults to false.
+     */
+    public VariableServiceDefGenerationHandler setServiceDefBundles(boolean serviceDefBundles) {
+        this.serviceDefBundles = serviceDefBundles;
+        return this;
+    }
+
+    /**
+     * Sets the file of the {@link com.wavemaker.app.build.servicedef.ServiceDefStore} also written with the service
+     * definitions of all the services, letting the runtime look them up without parsing them all. Defaults to none.
+     */
+    public VariableServiceDefGenerationHandler setServiceDefStoreFile(File serviceDefStoreFile) {
+        if (serviceDefStoreFile == null) {
+            throw new WMRuntimeException("Service definitions store file is null");
+        }
+        this.serviceDefStoreFile = serviceDefStoreFile;
+        return this;
+    }
+
+    /**
+     * Sets the services modified since the previous build, for callers tracking the file changes themselves. Only the
+     * service definitions of these services are rebuilt, unless a variables file changed, and the build manifest is
+     * not used.
+     */
+    public VariableServiceDefGenerationHandler setModifiedServices(Collection<String> modifiedServiceNames) {
+        if (modifiedServiceNames == null) {
+            throw new WMRuntimeException("Modified services are null");
+        }
+        this.modifiedServiceNames = new HashSet<>(modifiedServiceNames);
+        return this;
+    }
+
+    /**
+     * Sets the variables files modified since the previous build, along with {@link #setModifiedServices(Collection)}.
+     * The other variables files are not read again when the operations they reference are found in the cache set by
+     * {@link #setVariableFileOperations(ConcurrentMap)}.
+     */
+    public VariableServiceDefGenerationHandler setModifiedVariableFiles(Collection<File> modifiedVariableFiles) {
+        if (modifiedVariableFiles == null) {
+            throw new WMRuntimeException("Modified variables files are null");
+        }
+        modifiedVariablesTasks = new HashSet<>();
+        for (File modifiedVariableFile : modifiedVariableFiles) {
+            modifiedVariablesTasks.add(getVariablesTask(modifiedVariableFile));
+        }
+        return this;
+    }
+
+    /**
+     * Sets the cache of the operations referenced by each variables file, kept by the caller between builds. The
+     * entries of the variables files which no longer exist are removed.
+     */
+    public VariableServiceDefGenerationHandler setVariableFileOperations(
+            ConcurrentMap<String, Map<String, Set<String>>> variableFileOperations) {
+        if (variableFileOperations == null) {
+            throw new WMRuntimeException("Variables file operations are null");
+        }
+        this.variableFileOperations = variableFileOperations;
+        return this;
     }
 
+    /**
+     * Sets the maximum number of threads used by {@link #handle()}, defaults to the number of available processors.
+     */
+    public VariableServiceDefGenerationHandler setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new WMRuntimeException("Parallelism should be at least 1, found " + parallelism);
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Generates the service definitions, stopping at the first failure.
+     */
     @Override
     public void handle() {
+        AppBuildTaskGraph taskGraph = new AppBuildTaskGraph().setFailFast(true);
+        registerTasks(taskGraph);
+        taskGraph.execute(parallelism);
+    }
+
+    /**
+     * Adds one task per variables file collecting the operations it references, joined by the {@link #VARIABLES_TASK}
+     * task. They are followed by one task per service building the service definitions of its referenced operations,
+     * which also waits for the swagger task of that service (if registered), and a last task persisting the
+     * definitions. The variables tasks are fail fast, as no service definitions can be built once a variables file
+     * failed, while the failure of a service only skips the tasks depending on it.
+     */
+    @Override
+    public void registerTasks(AppBuildTaskGraph taskGraph) {
         init();
-        generateServiceDefs();
-        persistServiceDefs();
+        if (serviceFoldersToBuild.isEmpty()) {
+            logger.info("Variables and services are unchanged, skipped service definitions generation");
+            if (generatedFileCompressor != null && serviceDefBundles) {
+                // the compressed copies may still be missing, when compression was not enabled in the previous build
+                taskGraph.addTask(SERVICE_DEFS_TASK, new Runnable() {
+                    @Override
+                    public void run() {
+                        compressServiceDefBundles();
+                    }
+                });
+            }
+            return;
+        }
+        List<String> variablesTasks = new ArrayList<>();
+        for (final File variableFile : variableFilesToRead) {
+            final String variablesTask = getVariablesTask(variableFile);
+            taskGraph.addTask(variablesTask, new Runnable() {
+                @Override
+                public void run() {
+                    variableFileOperations.put(variablesTask, collectReferencedOperations(variableFile));
+                }
+            });
+            taskGraph.setFailFast(variablesTask, true);
+            variablesTasks.add(variablesTask);
+        }
+        taskGraph.addTask(VARIABLES_TASK, new Runnable() {
+            @Override
+            public void run() {
+                mergeReferencedOperations();
+            }
+        }, variablesTasks);
+        taskGraph.setFailFast(VARIABLES_TASK, true);
+        List<String> serviceDefTasks = new ArrayList<>();
+        for (final Folder serviceFolder : serviceFoldersToBuild) {
+            String serviceDefTask = SERVICE_DEFS_TASK_PREFIX + serviceFolder.getName();
+            String swaggerTask = SwaggerDocGenerationHandler.getSwaggerTaskName(serviceFolder.getName());
+            taskGraph.addTask(serviceDefTask, new Runnable() {
+                @Override
+                public void run() {
+                    buildReferencedServiceDefs(serviceFolder);
+                }
+            }, taskGraph.hasTask(swaggerTask) ? new String[]{VARIABLES_TASK, swaggerTask} : new String[]{VARIABLES_TASK});
+            serviceDefTasks.add(serviceDefTask);
+        }
+        taskGraph.addTask(SERVICE_DEFS_TASK, new Runnable() {
+            @Override
+            public void run() {
+                persistServiceDefs();
+            }
+        }, serviceDefTasks);
     }
 
     private void init() {
-        buildServiceDefsForAllServices(servicesFolder);
+        List<Folder> serviceFolders;
+        if (projectSnapshot != null) {
+            variableFiles = new ArrayList<>();
+            for (String variableFile : projectSnapshot.getVariableFiles()) {
+                variableFiles.add(rootFolder.getFile(variableFile));
+            }
+            serviceFolders = new ArrayList<>();
+            for (String serviceName : projectSnapshot.getServiceNames()) {
+                serviceFolders.add(servicesFolder.getFolder(serviceName));
+            }
+        } else {
+            variableFiles = rootFolder.find().files().exclude(FilterOn.antPattern("/app/prefabs/**")).include(FilterOn.names().ending(VARIABLES_EXTENSION)).fetchAll();
+            serviceFolders = servicesFolder.exists() ? servicesFolder.list().folders().fetchAll() : new ArrayList<Folder>();
+        }
+        for (Folder serviceFolder : serviceFolders) {
+            serviceNames.add(serviceFolder.getName());
+        }
+        boolean variablesModified = selectVariableFilesToRead();
+        List<Folder> modifiedServiceFolders = new ArrayList<>();
+        if (modifiedServiceNames != null) {
+            for (Folder serviceFolder : serviceFolders) {
+                if (modifiedServiceNames.contains(serviceFolder.getName())) {
+                    modifiedServiceFolders.add(serviceFolder);
+                }
+            }
+        } else if (buildManifest == null) {
+            serviceFoldersToBuild = serviceFolders;
+            return;
+        } else {
+            for (Folder serviceFolder : serviceFolders) {
+                String serviceKey = BuildManifest.SERVICE_PREFIX + serviceFolder.getName();
+                String serviceHash = buildManifest.getCurrentHash(serviceKey);
+                if (serviceHash == null) {
+                    serviceHash = BuildInputs.serviceHash(serviceFolder);
+                }
+                if (buildManifest.isModified(serviceKey, serviceHash)) {
+                    modifiedServiceFolders.add(serviceFolder);
+                }
+            }
+            variablesModified = isAnyVariablesFileModified();
+        }
+        // bundles and the store hold the definitions of several services, they need the definitions of the unchanged
+        // services too
+        if (variablesModified
+                || (isSpanningServices() && (!modifiedServiceFolders.isEmpty() || isAnySpanningServicesFileMissing()))) {
+            serviceFoldersToBuild = serviceFolders;
+        } else {
+            // unchanged variables reference the same operations, only the modified services need their defs rebuilt
+            serviceFoldersToBuild = modifiedServiceFolders;
+            logger.info("Building service definitions for {} modified services, skipped {} unchanged services",
+                    serviceFoldersToBuild.size(), serviceFolders.size() - serviceFoldersToBuild.size());
+        }
     }
 
+    /**
+     * Drops the cached operations of the variables files which no longer exist. When the modified files are known,
+     * only the modified variables files and the ones missing from the cache are read, otherwise all of them are.
+     *
+     * @return true when a variables file is read, or was removed.
+     */
+    private boolean selectVariableFilesToRead() {
+        Set<String> variablesTasks = new HashSet<>();
+        variableFilesToRead = new ArrayList<>();
+        for (File variableFile : variableFiles) {
+            String variablesTask = getVariablesTask(variableFile);
+            variablesTasks.add(variablesTask);
+            if (modifiedServiceNames == null || modifiedVariablesTasks.contains(variablesTask)
+                    || !variableFileOperations.containsKey(variablesTask)) {
+                variableFilesToRead.add(variableFile);
+            }
+        }
+        boolean variableFilesRemoved = variableFileOperations.keySet().retainAll(variablesTasks);
+        return variableFilesRemoved || !variableFilesToRead.isEmpty();
+    }
 
-    private void buildServiceDefsForAllServices(final Folder servicesFolder) {
-        if (servicesFolder.exists()) {
-            List<Folder> serviceFolders = servicesFolder.list().folders().fetchAll();
-            if (serviceFolders.size() > 0) {
-                for (final Folder serviceFolder : serviceFolders) {
-                    serviceVsServiceDefs.put(serviceFolder.getName(), executorService.submit(new Callable<Map<String, ServiceDefinition>>() {
-                        @Override
-                        public Map<String, ServiceDefinition> call() throws Exception {
-                            return buildServiceDefs(serviceFolder);
-                        }
-                    }));
-                }
+    private boolean isAnyVariablesFileModified() {
+        boolean modified = false;
+        for (File variableFile : variableFiles) {
+            String variablesHash = BuildInputs.fileHash(variableFile);
+            // every file is checked so that the manifest records the hashes of all of them
+            if (buildManifest.isModified(BuildManifest.VARIABLES_PREFIX + variableFile.toStringRelativeTo(rootFolder), variablesHash)) {
+                modified = true;
             }
-            for (String service : serviceVsServiceDefs.keySet()) {
-                handleFutureIfException(serviceVsServiceDefs.get(service));
+        }
+        return modified || !buildManifest.getRemovedKeys(BuildManifest.VARIABLES_PREFIX).isEmpty();
+    }
+
+
+    private boolean isSpanningServices() {
+        return serviceDefBundles || serviceDefStoreFile != null;
+    }
+
+    private boolean isAnySpanningServicesFileMissing() {
+        if (serviceDefStoreFile != null && !serviceDefStoreFile.exists()) {
+            return true;
+        }
+        if (serviceDefBundles) {
+            for (File variableFile : variableFiles) {
+                if (!getServiceDefBundleFile(variableFile).exists()) {
+                    return true;
+                }
             }
         }
+        return false;
     }
 
-    private Map<String, ServiceDefinition> buildServiceDefs(final Folder serviceFolder) {
+    private void buildReferencedServiceDefs(final Folder serviceFolder) {
+        Set<String> operationIds = referencedOperations.get(serviceFolder.getName());
+        if (operationIds == null) {
+            logger.debug("No variable references service {}, skipped its service definitions", serviceFolder.getName());
+            return;
+        }
+        Map<String, ServiceDefinition> serviceDefinitions = buildServiceDefs(serviceFolder, operationIds);
+        if (!serviceDefinitions.isEmpty()) {
+            filteredServiceDefinitions.put(serviceFolder.getName(), serviceDefinitions);
+        }
+    }
+
+    /**
+     * @return service definitions of the given operations of the service, by operation id.
+     */
+    protected Map<String, ServiceDefinition> buildServiceDefs(final Folder serviceFolder, final Collection<String> operationIds) {
         Folder designFolder = serviceFolder.getFolder(DESIGN_TIME_FOLDER);
         Swagger swagger = null;
         boolean swaggerFileFound = false;
         for (String swaggerExtension : SWAGGER_EXTENSIONS) {
+            if (API_EXTENSION.equals(swaggerExtension) && swaggerRegistry != null) {
+                // swagger generated in this build, no need to read back the file just written
+                swagger = swaggerRegistry.getSwagger(serviceFolder.getName());
+                if (swagger != null) {
+                    swaggerFileFound = true;
+                    break;
+                }
+            }
             File swaggerFile = designFolder.getFile(designFolder.getParent().getName() + swaggerExtension);
             if (swaggerFile.exists()) {
                 swaggerFileFound = true;
@@ -129,133 +451,198 @@ public class VariableServiceDefGenerationHandler implements AppBuildHandler {
             logger.error("Swagger File does not exist for service {}", serviceFolder.getName());
         }
         try {
-            return swagger != null ? new ServiceDefGenerator(swagger).generate() : new HashMap<String, ServiceDefinition>();
+            return swagger != null ? new ServiceDefGenerator(swagger).generate(operationIds) : new HashMap<String, ServiceDefinition>();
         } catch (ServiceDefGenerationException e) {
             throw new WMRuntimeException("Failed to build service def for service " + swagger.getInfo().getServiceId(), e);
         }
     }
 
 
-    private void generateServiceDefs() {
-        Resources<File> files = rootFolder.find().files().exclude(FilterOn.antPattern("/app/prefabs/**")).include(FilterOn.names().ending(".variables.json"));
-        Collection<Callable> callables = new ArrayList<>();
-        Collection<Future> futures = new ArrayList<>();
+    private void mergeReferencedOperations() {
+        for (Map<String, Set<String>> fileOperations : new TreeMap<>(variableFileOperations).values()) {
+            for (Map.Entry<String, Set<String>> serviceOperations : fileOperations.entrySet()) {
+                Set<String> operationIds = referencedOperations.get(serviceOperations.getKey());
+                if (operationIds == null) {
+                    operationIds = new TreeSet<>();
+                    referencedOperations.put(serviceOperations.getKey(), operationIds);
+                }
+                operationIds.addAll(serviceOperations.getValue());
+            }
+        }
+        logger.debug("Variables reference operations of {} services", referencedOperations.size());
+    }
+
+    /**
+     * @return operation ids referenced by the variables of the file, by service name.
+     */
+    private Map<String, Set<String>> collectReferencedOperations(final File file) {
+        Map<String, Set<String>> fileOperations = new HashMap<>();
+        List<VariableInfo> variables;
+        InputStream inputStream = null;
         try {
-            for (final File file : files) {
-                callables.add(new Callable<Object>() {
-                    @Override
-                    public Object call() throws Exception {
-                        try {
-                            generateServiceDefs(file);
-                        } catch (JSONException e) {
-                            logger.error("Failed to build service definitions for variable json file " + file.getName());
-                        }
-                        return this;
-                    }
-                });
+            inputStream = file.getContent().asInputStream();
+            variables = variablesReader.read(inputStream);
+        } catch (IOException e) {
+            logger.error("Failed to build service definitions for variable json file " + file.getName(), e);
+            return fileOperations;
+        } finally {
+            IOUtils.closeSilently(inputStream);
+        }
+        for (VariableInfo variable : variables) {
+            String key = variable.getName();
+            String category = variable.getCategory();
+            if (!(WM_SERVICE_VARIABLE.equals(category) || WEBSOCKET_VARIABLE.equals(category))) {
+                continue;
             }
-            for (Callable callable : callables) {
-                futures.add(executorService.submit(callable));
+            if (variable.getOperationId() == null) {
+                logger.warn("Service variable " + key + " does not have operation id ");
+                continue;
             }
-            for (Future<Object> future : futures) {
-                handleFutureIfException(future);
+            if (variable.getService() == null) {
+                logger.warn("Service variable " + key + " does not have service name property ");
+                continue;
             }
-        } finally {
-            executorService.shutdown();
+            String operationId = variable.getOperationId();
+            String service = variable.getService();
+            if (!serviceNames.contains(service)) {
+                logger.warn("Service " + service + " does not exist for the service variable" + key);
+                continue;
+            }
+            Set<String> operationIds = fileOperations.get(service);
+            if (operationIds == null) {
+                operationIds = new HashSet<>();
+                fileOperations.put(service, operationIds);
+            }
+            operationIds.add(operationId);
         }
+        return fileOperations;
     }
 
-    private <V> V handleFutureIfException(Future<V> future) {
-        Throwable t = null;
-        V v = null;
-        try {
-            v = future.get();
-        } catch (CancellationException ce) {
-            t = ce;
-        } catch (ExecutionException ee) {
-            t = ee;
-        } catch (InterruptedException e) {
-            t = e;
+
+    /**
+     * Persists the service definitions of each service sorted by operation id, so that the files only depend on the
+     * variables and services and not on the order the tasks completed in.
+     */
+    protected void persistServiceDefs() {
+        for (Map.Entry<String, Map<String, ServiceDefinition>> entry : new TreeMap<>(filteredServiceDefinitions).entrySet()) {
+            if (entry.getValue().size() > 0) {
+                persistServiceDefs(entry.getKey(), new TreeMap<>(entry.getValue()));
+            }
+        }
+        if (serviceDefBundles) {
+            persistServiceDefBundles();
         }
-        if (t != null) {
-            throw new WMRuntimeException(t);
+        if (serviceDefStoreFile != null) {
+            persistServiceDefStore();
         }
-        return v;
+        compressServiceDefBundles();
     }
 
-    private void generateServiceDefs(final File file) throws JSONException, ExecutionException, InterruptedException {
-        String s = file.getContent().asString();
-        if (StringUtils.isBlank(s)) {
-            return;
-        }
-        JSONObject jsonObject = new JSONObject(s);
-        Iterator keys = jsonObject.keys();
-        while (keys.hasNext()) {
-            String key = (String) keys.next();
-            JSONObject o = (JSONObject) jsonObject.get(key);
-            if (o.has("category")) {
-                String category = o.getString("category");
-                if (!(WM_SERVICE_VARIABLE.equals(category) || WEBSOCKET_VARIABLE.equals(category))) {
-                    continue;
-                }
-                if (!o.has("operationId")) {
-                    logger.warn("Service variable " + key + " does not have operation id ");
-                    continue;
-                }
-                if (!o.has("service")) {
-                    logger.warn("Service variable " + key + " does not have service name property ");
-                    continue;
-                }
-                String operationId = o.getString("operationId");
-                String service = o.getString("service");
-                if (serviceVsServiceDefs.get(service) == null) {
-                    logger.warn("Service " + service + " does not exist for the service variable" + key);
-                    continue;
-                }
-                synchronized (filteredServiceDefinitions) {
-                    if (!filteredServiceDefinitions.containsKey(service)) {
-                        filteredServiceDefinitions.put(service, new ConcurrentHashMap<String, ServiceDefinition>());
+    /**
+     * Persists the bundle of each variables file, holding the service definitions of the operations its variables
+     * reference by service name and operation id. A bundle is written for every variables file, empty when its
+     * variables reference no operation, so that the runtime can always load it.
+     */
+    protected void persistServiceDefBundles() {
+        for (File variableFile : variableFiles) {
+            Map<String, Map<String, ServiceDefinition>> bundle = new TreeMap<>();
+            Map<String, Set<String>> fileOperations = variableFileOperations.get(getVariablesTask(variableFile));
+            if (fileOperations != null) {
+                for (Map.Entry<String, Set<String>> serviceOperations : fileOperations.entrySet()) {
+                    Map<String, ServiceDefinition> serviceDefinitions = filteredServiceDefinitions.get(serviceOperations.getKey());
+                    if (serviceDefinitions == null) {
+                        continue;
+                    }
+                    Map<String, ServiceDefinition> bundleServiceDefinitions = new TreeMap<>();
+                    for (String operationId : serviceOperations.getValue()) {
+                        ServiceDefinition serviceDefinition = serviceDefinitions.get(operationId);
+                        if (serviceDefinition != null) {
+                            bundleServiceDefinitions.put(operationId, serviceDefinition);
+                        }
+                    }
+                    if (!bundleServiceDefinitions.isEmpty()) {
+                        bundle.put(serviceOperations.getKey(), bundleServiceDefinitions);
                     }
-                }
-                final Map<String, ServiceDefinition> serviceDefinitions = serviceVsServiceDefs.get(service).get();
-                if (serviceDefinitions.containsKey(operationId)) {
-                    ServiceDefinition serviceDefinition = serviceDefinitions.get(operationId);
-                    Map<String, ServiceDefinition> serviceDefinitionMap = filteredServiceDefinitions.get(service);
-                    serviceDefinitionMap.put(operationId, serviceDefinition);
                 }
             }
+            File bundleFile = getServiceDefBundleFile(variableFile);
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            try {
+                JSONUtils.toJSON(outputStream, bundle, true);
+            } catch (IOException e) {
+                throw new WMRuntimeException("Failed to persist service definitions bundle " + bundleFile.getName(), e);
+            }
+            generatedFileWriter.write(bundleFile, outputStream.toByteArray());
         }
     }
 
+    /**
+     * Persists the service definitions of all the services in the store file, indexed by service and operation id.
+     */
+    protected void persistServiceDefStore() {
+        ServiceDefStoreWriter serviceDefStoreWriter = new ServiceDefStoreWriter();
+        for (Map.Entry<String, Map<String, ServiceDefinition>> entry : filteredServiceDefinitions.entrySet()) {
+            serviceDefStoreWriter.add(entry.getKey(), entry.getValue());
+        }
+        serviceDefStoreWriter.write(serviceDefStoreFile, generatedFileWriter);
+    }
 
-    protected void persistServiceDefs() {
-        for (final String service : filteredServiceDefinitions.keySet()) {
-            if (filteredServiceDefinitions.get(service).size() > 0) {
-                persistServiceDefs(service, filteredServiceDefinitions.get(service));
-            }
+    /**
+     * Compresses the service definitions bundles in parallel, when a compressor is set and bundles are written. The
+     * compressed copies of the unchanged bundles are skipped.
+     */
+    protected void compressServiceDefBundles() {
+        if (generatedFileCompressor == null || !serviceDefBundles) {
+            return;
         }
+        List<java.io.File> bundleFiles = new ArrayList<>();
+        for (File variableFile : variableFiles) {
+            bundleFiles.add(((LocalFile) getServiceDefBundleFile(variableFile)).getLocalFile());
+        }
+        generatedFileCompressor.compress(bundleFiles, parallelism);
     }
 
     protected void persistServiceDefs(final String serviceId, final Map<String, ServiceDefinition> serviceDefMap) {
         File serviceDefResource = getServiceDefResource(serviceId);
-        OutputStream outputStream = null;
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
         try {
-            outputStream = serviceDefResource.getContent().asOutputStream();
             JSONUtils.toJSON(outputStream, serviceDefMap, true);
         } catch (IOException e) {
             throw new WMRuntimeException("Failed to persist service definition in resource " + serviceDefResource.getName(), e);
-        } finally {
-            org.apache.commons.io.IOUtils.closeQuietly(outputStream);
         }
+        generatedFileWriter.write(serviceDefResource, outputStream.toByteArray());
     }
 
     protected File getServiceDefResource(final String serviceId) {
+        return getServiceDefFile(servicesFolder, serviceId);
+    }
+
+    /**
+     * @return the service definitions file of the service, under the services folder.
+     */
+    public static File getServiceDefFile(Folder servicesFolder, String serviceId) {
         final Folder serviceFolder = servicesFolder.getFolder(serviceId).getFolder(SERVICE_SRC_DIR);
-        File file = serviceFolder.getFolder(SERVICE_DEFS).getFile(SERVICE_DEF_RESOURCE_NAME.replace("{}", serviceId));
-        if (!file.exists()) {
-            file.createIfMissing();
-        }
-        return file;
+        return serviceFolder.getFolder(SERVICE_DEFS).getFile(SERVICE_DEF_RESOURCE_NAME.replace("{}", serviceId));
+    }
+
+    /**
+     * @return the service definitions bundle of the variables file, next to it, app.variables.json having its bundle in
+     * app.service-definitions.json.
+     */
+    public static File getServiceDefBundleFile(File variableFile) {
+        String bundleName = StringUtils.removeEnd(variableFile.getName(), VARIABLES_EXTENSION) + SERVICE_DEF_BUNDLE_EXTENSION;
+        return variableFile.getParent().getFile(bundleName);
+    }
+
+    private String getVariablesTask(File variableFile) {
+        return VARIABLES_TASK_PREFIX + variableFile.toStringRelativeTo(rootFolder);
+    }
+
+    /**
+     * @return the path of the service definitions file of the service in the class path.
+     */
+    public static String getServiceDefResourcePath(String serviceId) {
+        return SERVICE_DEFS + "/" + SERVICE_DEF_RESOURCE_NAME.replace("{}", serviceId);
     }
 
     protected Swagger unmarshallSwagger(File file) {
@@ -15,13 +15,17 @@
  */
 package com.wavemaker.app.build.maven.plugin.mojo;
 
+import java.io.Closeable;
 import java.io.File;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 
+import org.apache.commons.lang3.StringUtils;
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.model.Build;
 import org.apache.maven.model.Plugin;
@@ -39,13 +43,24 @@ import org.apache.maven.shared.filtering.MavenResourcesExecution;
 import org.apache.maven.shared.filtering.MavenResourcesFiltering;
 import org.codehaus.plexus.util.xml.Xpp3Dom;
 
+import com.wavemaker.app.build.constants.AppBuildConstants;
+import com.wavemaker.app.build.io.GeneratedFileCompressor;
+import com.wavemaker.app.build.io.GeneratedFileWriter;
+import com.wavemaker.app.build.manifest.BuildManifest;
 import com.wavemaker.app.build.maven.plugin.handler.AppBuildHandler;
+import com.wavemaker.app.build.maven.plugin.handler.AssetManifestGenerationHandler;
+import com.wavemaker.app.build.maven.plugin.handler.BuildInputs;
 import com.wavemaker.app.build.maven.plugin.handler.PageMinFileGenerationHandler;
 import com.wavemaker.app.build.maven.plugin.handler.SwaggerDocGenerationHandler;
+import com.wavemaker.app.build.maven.plugin.handler.SwaggerRegistry;
 import com.wavemaker.app.build.maven.plugin.handler.VariableServiceDefGenerationHandler;
+import com.wavemaker.app.build.maven.plugin.task.AppBuildTaskGraph;
+import com.wavemaker.app.build.project.ProjectScanner;
+import com.wavemaker.app.build.project.ProjectSnapshot;
 import com.wavemaker.commons.WMRuntimeException;
 import com.wavemaker.commons.io.Folder;
 import com.wavemaker.commons.io.local.LocalFolder;
+import com.wavemaker.commons.util.IOUtils;
 
 /**
  * Created by saddhamp on 12/4/16.
@@ -56,39 +71,147 @@ public class AppBuildMojo extends AbstractMojo {
     public static final String ENCODING = "UTF-8";
     public static final String MAVEN_RESOURCES_PLUGIN = "maven-resources-plugin";
     private static final String NON_FILTERED_FILE_EXTENSIONS = "nonFilteredFileExtensions";
+    private static final String BUILD_MANIFEST_FILE = "wm-build-manifest.properties";
+    private static final String SNAPSHOT_VERSION_SUFFIX = "-SNAPSHOT";
+    private static final String SWAGGER_CACHE_FOLDER = "wm-build-cache/swagger";
+    private static final String PAGES_CACHE_FOLDER = "wm-build-cache/pages";
+    private static final String ASSET_MANIFEST_CACHE_FILE = "wm-build-cache/asset-manifest.stamps";
 
     @Parameter(property = "project", required = true, readonly = true)
-    private MavenProject project;
+    protected MavenProject project;
 
     @Parameter(property = "basedir", required = true, readonly = true)
-    private String baseDirectory;
+    protected String baseDirectory;
     ;
 
     @Parameter(name = "pages-directory", defaultValue = "src/main/webapp/pages/")
-    private String pagesDirectory;
+    protected String pagesDirectory;
 
     @Parameter(name = "services-directory", defaultValue = "services")
-    private String servicesDirectory;
+    protected String servicesDirectory;
 
     @Parameter(name = "outputDirectory", defaultValue = "target/classes")
     private String outputDirectory;
 
+    /**
+     * Directory the web app is assembled in, where the compressed copies of the page min files and service
+     * definitions bundles are written.
+     */
+    @Parameter(name = "webAppOutputDirectory", defaultValue = "${project.build.directory}/${project.build.finalName}")
+    private String webAppOutputDirectory;
+
     @Parameter(defaultValue = "${session}")
     private MavenSession session;
 
+    /**
+     * Version of this plugin, recorded in the build manifest so that the units built by another version of the plugin
+     * are all built again.
+     */
+    @Parameter(defaultValue = "${plugin.version}", readonly = true)
+    private String pluginVersion;
+
+    /**
+     * When enabled, pages, swagger docs and service definitions are only regenerated for the pages, services and
+     * variables whose inputs changed since the previous build, as recorded in the build manifest under target.
+     */
+    @Parameter(name = "incrementalBuild", property = "incrementalBuild", defaultValue = "true")
+    protected boolean incrementalBuild;
+
+    /**
+     * Number of threads used to run the app build tasks, defaults to the number of available processors.
+     */
+    @Parameter(name = "buildThreads", property = "buildThreads", defaultValue = "0")
+    private int buildThreads;
+
+    /**
+     * Comma separated names of the folders skipped when walking the project for pages, services and variables.
+     */
+    @Parameter(name = "prunedDirectories", property = "prunedDirectories", defaultValue = "target,node_modules,.git,.svn")
+    private String prunedDirectories;
+
+    /**
+     * Minifies the css, js, variables and html of the pages in their page.min.html files.
+     */
+    @Parameter(name = "minifyPages", property = "minifyPages", defaultValue = "false")
+    protected boolean minifyPages;
+
+    /**
+     * Also writes a bundle of the service definitions referenced by each variables file next to it, such as
+     * pages/Main/Main.service-definitions.json, letting a page load only the service definitions it needs.
+     */
+    @Parameter(name = "serviceDefBundles", property = "serviceDefBundles", defaultValue = "false")
+    protected boolean serviceDefBundles;
+
+    /**
+     * Also writes the service definitions of all the services in a single indexed store in the output directory,
+     * letting the runtime memory map it and deserialize the service definitions on demand.
+     */
+    @Parameter(name = "serviceDefStore", property = "serviceDefStore", defaultValue = "false")
+    protected boolean serviceDefStore;
+
+    /**
+     * Writes a gzip compressed copy of the page.min.html and service definitions files into the build output, to be
+     * served as they are by static file handlers: the web app output directory for the page min files and service
+     * definitions bundles, the output directory for the service definitions files, compressed from their filtered
+     * copies. The source tree is left untouched.
+     */
+    @Parameter(name = "precompressGeneratedFiles", property = "precompressGeneratedFiles", defaultValue = "false")
+    protected boolean precompressGeneratedFiles;
+
     @Component
     private MavenResourcesFiltering mavenResourcesFiltering;
 
     private List<AppBuildHandler> appBuildHandlers;
 
+    private BuildManifest buildManifest;
+
+    private ProjectSnapshot projectSnapshot;
+
+    private final GeneratedFileWriter generatedFileWriter = new GeneratedFileWriter();
+
+    protected GeneratedFileCompressor generatedFileCompressor;
+
     @Override
     public void execute() throws MojoExecutionException, MojoFailureException {
+        if (precompressGeneratedFiles) {
+            generatedFileCompressor = new GeneratedFileCompressor(new BuildOutputCompressedFileLocator(
+                    resolve(pagesDirectory).getParentFile(), resolve(webAppOutputDirectory), resolve(outputDirectory)));
+        }
         initializeHandlers();
 
-        for (AppBuildHandler appBuildHandler : appBuildHandlers) {
-            appBuildHandler.handle();
+        AppBuildTaskGraph taskGraph = new AppBuildTaskGraph();
+        try {
+            for (AppBuildHandler appBuildHandler : appBuildHandlers) {
+                appBuildHandler.registerTasks(taskGraph);
+            }
+            taskGraph.execute(getBuildParallelism());
+        } finally {
+            for (AppBuildHandler appBuildHandler : appBuildHandlers) {
+                if (appBuildHandler instanceof Closeable) {
+                    IOUtils.closeSilently((Closeable) appBuildHandler);
+                }
+            }
+        }
+
+        if (buildManifest != null) {
+            buildManifest.save();
         }
 
+        copyResources();
+        createAssetManifestGenerationHandler().setProjectSnapshot(projectSnapshot).handle();
+        getLog().info("Wrote " + generatedFileWriter.getWrittenCount() + " generated files, skipped "
+                + generatedFileWriter.getSkippedCount() + " unchanged generated files");
+        if (precompressGeneratedFiles) {
+            getLog().info("Compressed " + generatedFileCompressor.getCompressedCount() + " generated files, skipped "
+                    + generatedFileCompressor.getSkippedCount() + " up to date compressed files");
+        }
+    }
+
+    /**
+     * Copies the resources to the output directory, filtering them as configured, including the generated service
+     * definitions files. The compressed copies of the service definitions are written from their filtered copies.
+     */
+    protected void copyResources() {
         final Build build = project.getBuild();
         final List<String> nonFilteredFileExtensions = getNonFilteredFileExtensions(build.getPlugins());
 
@@ -102,29 +225,163 @@ public class AppBuildMojo extends AbstractMojo {
         } catch (MavenFilteringException e) {
             throw new WMRuntimeException("Failed to execute resource filtering ", e);
         }
+        if (precompressGeneratedFiles) {
+            compressServiceDefCopies();
+        }
+    }
+
+    /**
+     * @return the handler writing the asset manifest once the resources are copied, hashing the filtered copies of
+     * the service definitions files.
+     */
+    protected AssetManifestGenerationHandler createAssetManifestGenerationHandler() {
+        Folder rootFolder = new LocalFolder(baseDirectory);
+        return new AssetManifestGenerationHandler(getAssetManifestFile()).setPagesFolder(rootFolder.getFolder(pagesDirectory))
+                .setServicesFolder(rootFolder.getFolder(servicesDirectory)).setClassesFolder(getOutputFolder())
+                .setGeneratedFileWriter(generatedFileWriter).setCacheFile(getAssetManifestCacheFile());
+    }
+
+    private void compressServiceDefCopies() {
+        Folder servicesFolder = new LocalFolder(baseDirectory).getFolder(servicesDirectory);
+        if (!servicesFolder.exists()) {
+            return;
+        }
+        File outputFolder = resolve(outputDirectory);
+        List<File> serviceDefCopies = new ArrayList<>();
+        for (Folder serviceFolder : servicesFolder.list().folders().fetchAll()) {
+            serviceDefCopies.add(new File(outputFolder,
+                    VariableServiceDefGenerationHandler.getServiceDefResourcePath(serviceFolder.getName())));
+        }
+        generatedFileCompressor.compress(serviceDefCopies, getBuildParallelism());
     }
 
     private void initializeHandlers() throws MojoFailureException {
         if (appBuildHandlers == null) {
             appBuildHandlers = new ArrayList<AppBuildHandler>();
             Folder rootFolder = new LocalFolder(baseDirectory);
+            if (incrementalBuild) {
+                buildManifest = new BuildManifest(getBuildManifestFile());
+                if (buildManifest.isGeneratorModified(getGeneratorVersion())) {
+                    getLog().info("Plugin version changed since the previous build, all pages and services are rebuilt");
+                }
+            }
+            projectSnapshot = scanProject();
 
             Folder pagesFolder = rootFolder.getFolder(pagesDirectory);
             if (pagesFolder.exists()) {
-                appBuildHandlers.add(new PageMinFileGenerationHandler(pagesFolder));
+                PageMinFileGenerationHandler pageMinFileGenerationHandler = new PageMinFileGenerationHandler(pagesFolder, buildManifest)
+                        .setProjectSnapshot(projectSnapshot).setParallelism(getBuildParallelism()).setMinify(minifyPages)
+                        .setGeneratedFileWriter(generatedFileWriter).setCacheFolder(getPagesCacheFolder());
+                if (precompressGeneratedFiles) {
+                    pageMinFileGenerationHandler.setGeneratedFileCompressor(generatedFileCompressor);
+                }
+                appBuildHandlers.add(pageMinFileGenerationHandler);
             }
 
 
             Folder servicesFolder = rootFolder.getFolder(servicesDirectory);
             if (servicesFolder.exists()) {
                 URL[] runtimeClasspathElements = getRuntimeClasspathElements();
-                appBuildHandlers.add(new SwaggerDocGenerationHandler(servicesFolder, runtimeClasspathElements));
-                appBuildHandlers.add(new VariableServiceDefGenerationHandler(rootFolder));
+                if (buildManifest != null) {
+                    // swagger docs also depend on the dependencies and the classes of other modules
+                    String classPathHash = BuildInputs.classPathHash(runtimeClasspathElements,
+                            new File(project.getBuild().getOutputDirectory()));
+                    if (buildManifest.isModified(BuildManifest.CLASS_PATH_KEY, classPathHash)) {
+                        getLog().info("Class path changed since the previous build, all services are rebuilt");
+                        buildManifest.invalidate(BuildManifest.SERVICE_PREFIX);
+                    }
+                }
+                SwaggerRegistry swaggerRegistry = new SwaggerRegistry();
+                SwaggerDocGenerationHandler swaggerDocGenerationHandler = new SwaggerDocGenerationHandler(servicesFolder, runtimeClasspathElements, buildManifest);
+                swaggerDocGenerationHandler.setSwaggerRegistry(swaggerRegistry).setProjectSnapshot(projectSnapshot)
+                        .setGeneratedFileWriter(generatedFileWriter);
+                if (incrementalBuild) {
+                    swaggerDocGenerationHandler.setSwaggerCacheFolder(getSwaggerCacheFolder());
+                }
+                appBuildHandlers.add(swaggerDocGenerationHandler);
+                VariableServiceDefGenerationHandler variableServiceDefGenerationHandler = new VariableServiceDefGenerationHandler(rootFolder, buildManifest)
+                        .setSwaggerRegistry(swaggerRegistry).setProjectSnapshot(projectSnapshot)
+                        .setGeneratedFileWriter(generatedFileWriter).setServiceDefBundles(serviceDefBundles);
+                if (serviceDefStore) {
+                    variableServiceDefGenerationHandler.setServiceDefStoreFile(getServiceDefStoreFile());
+                }
+                if (precompressGeneratedFiles) {
+                    variableServiceDefGenerationHandler.setGeneratedFileCompressor(generatedFileCompressor);
+                }
+                appBuildHandlers.add(variableServiceDefGenerationHandler);
             }
         }
     }
 
-    private URL[] getRuntimeClasspathElements() throws MojoFailureException {
+    protected int getBuildParallelism() {
+        return buildThreads > 0 ? buildThreads : Runtime.getRuntime().availableProcessors();
+    }
+
+    protected File getBuildManifestFile() {
+        return new File(project.getBuild().getDirectory(), BUILD_MANIFEST_FILE);
+    }
+
+    /**
+     * @return the output directory, resolved against the base directory when relative.
+     */
+    protected Folder getOutputFolder() {
+        return new LocalFolder(resolve(outputDirectory));
+    }
+
+    private File resolve(String directory) {
+        File folder = new File(directory);
+        return folder.isAbsolute() ? folder : new File(baseDirectory, directory);
+    }
+
+    protected com.wavemaker.commons.io.File getAssetManifestFile() {
+        return getOutputFolder().getFile(AppBuildConstants.ASSET_MANIFEST_FILE);
+    }
+
+    /**
+     * @return the file recording the size and last modified time of the assets hashed in the asset manifest.
+     */
+    protected File getAssetManifestCacheFile() {
+        return new File(project.getBuild().getDirectory(), ASSET_MANIFEST_CACHE_FILE);
+    }
+
+    protected com.wavemaker.commons.io.File getServiceDefStoreFile() {
+        return getOutputFolder().getFile(AppBuildConstants.SERVICE_DEF_STORE_FILE);
+    }
+
+    /**
+     * @return the version of the plugin, along with the last modified time of the plugin jar for snapshot versions,
+     * whose output can change without their version changing.
+     */
+    private String getGeneratorVersion() {
+        String generatorVersion = StringUtils.defaultString(pluginVersion);
+        if (generatorVersion.endsWith(SNAPSHOT_VERSION_SUFFIX)) {
+            try {
+                File pluginFile = new File(AppBuildMojo.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+                generatorVersion += ":" + pluginFile.lastModified();
+            } catch (URISyntaxException | RuntimeException e) {
+                getLog().debug("Failed to locate the plugin jar", e);
+            }
+        }
+        return generatorVersion;
+    }
+
+    protected File getSwaggerCacheFolder() {
+        return new File(project.getBuild().getDirectory(), SWAGGER_CACHE_FOLDER);
+    }
+
+    /**
+     * @return the folder in which the page min files are assembled and indexed, kept out of the source tree.
+     */
+    protected File getPagesCacheFolder() {
+        return new File(project.getBuild().getDirectory(), PAGES_CACHE_FOLDER);
+    }
+
+    protected ProjectSnapshot scanProject() {
+        return new ProjectScanner(new File(baseDirectory), pagesDirectory, servicesDirectory)
+                .setPrunedDirectories(Arrays.asList(StringUtils.split(StringUtils.defaultString(prunedDirectories), ", "))).scan();
+    }
+
+    protected URL[] getRuntimeClasspathElements() throws MojoFailureException {
         URL[] runtimeUrls = null;
         try {
             List<String> compileClasspathElements = project.getCompileClasspathElements();
@@ -0,0 +1,378 @@
+/**
+ * Copyright © 2013 - 2017 WaveMaker, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wavemaker.app.build.maven.plugin.mojo;
+
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+
+import com.wavemaker.app.build.constants.AppBuildConstants;
+import com.wavemaker.app.build.io.GeneratedFileWriter;
+import com.wavemaker.app.build.maven.plugin.handler.SwaggerDocGenerationHandler;
+import com.wavemaker.app.build.maven.plugin.handler.SwaggerRegistry;
+import com.wavemaker.app.build.maven.plugin.handler.VariableServiceDefGenerationHandler;
+import com.wavemaker.app.build.maven.plugin.task.AppBuildTaskGraph;
+import com.wavemaker.app.build.maven.plugin.watch.AppFileWatcher;
+import com.wavemaker.app.build.pages.Page;
+import com.wavemaker.app.build.pages.PageMinFileGenerator;
+import com.wavemaker.app.build.pages.PageMinFileUpdateQueue;
+import com.wavemaker.app.build.project.ProjectSnapshot;
+import com.wavemaker.commons.io.Folder;
+import com.wavemaker.commons.io.local.LocalFolder;
+import com.wavemaker.commons.util.IOUtils;
+
+/**
+ * Runs the app build once and then keeps watching the pages, the services and the compiled classes, regenerating only
+ * what the changed files affect: an edit of a single part of a page updates that part of its page.min.html, other
+ * page changes regenerate the page, and service or class changes regenerate the swagger docs and service definitions
+ * of the services they belong to. Variables changes rebuild the service definitions, reading only the changed variables
+ * files again. The updates of the pages are applied on their own thread, while the services are regenerated. The
+ * class loader of the dependencies, the swagger generated for the services and the swagger cache stay warm between
+ * changes. Java sources are not compiled, their changes are picked up once compiled classes change.
+ */
+@Mojo(name = "watch", requiresDependencyResolution = ResolutionScope.COMPILE_PLUS_RUNTIME)
+public class AppWatchMojo extends AppBuildMojo {
+
+    private static final String SERVICE_DEFS_FOLDER = "servicedefs";
+    private static final String SERVICE_SRC_FOLDER = "src";
+    private static final String DESIGN_TIME_FOLDER = "designtime";
+    private static final String API_EXTENSION = "_API.json";
+    private static final String JAVA_EXTENSION = ".java";
+    private static final String CLASS_EXTENSION = ".class";
+    private static final String VARIABLES_EXTENSION = ".variables.json";
+
+    /**
+     * Time in milliseconds without any file change after which the changes received so far are processed.
+     */
+    @Parameter(name = "debounceMillis", property = "debounceMillis", defaultValue = "100")
+    private long debounceMillis;
+
+    private Path rootPath;
+    private Path pagesPath;
+    private Path servicesPath;
+    private Path classesPath;
+    private Folder rootFolder;
+    private URLClassLoader dependenciesClassLoader;
+    private URL[] projectClassFolders;
+    private final SwaggerRegistry swaggerRegistry = new SwaggerRegistry();
+    private final ConcurrentMap<String, Map<String, Set<String>>> variableFileOperations = new ConcurrentHashMap<>();
+    private PageMinFileUpdateQueue pageMinFileUpdateQueue;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        super.execute();
+
+        rootPath = Paths.get(baseDirectory).toAbsolutePath().normalize();
+        pagesPath = rootPath.resolve(pagesDirectory).normalize();
+        servicesPath = rootPath.resolve(servicesDirectory).normalize();
+        classesPath = Paths.get(project.getBuild().getOutputDirectory()).toAbsolutePath().normalize();
+        rootFolder = new LocalFolder(baseDirectory);
+        initClassLoaders();
+        // the changes are already debounced by the watcher, the updates are applied as soon as they are submitted
+        pageMinFileUpdateQueue = new PageMinFileUpdateQueue(0).setMinify(minifyPages).setCacheFolder(getPagesCacheFolder());
+        if (precompressGeneratedFiles) {
+            pageMinFileUpdateQueue.setGeneratedFileCompressor(generatedFileCompressor);
+        }
+
+        AppFileWatcher appFileWatcher = new AppFileWatcher();
+        try {
+            appFileWatcher.watch(pagesPath);
+            appFileWatcher.watch(servicesPath);
+            appFileWatcher.watch(classesPath);
+            // app level variables
+            appFileWatcher.watch(pagesPath.getParent(), false);
+            getLog().info("Watching " + pagesPath + ", " + servicesPath + " and " + classesPath + " for changes");
+            while (true) {
+                Set<Path> changedPaths = appFileWatcher.awaitChanges(debounceMillis);
+                long startTime = System.currentTimeMillis();
+                GeneratedFileWriter generatedFileWriter = new GeneratedFileWriter();
+                try {
+                    processChanges(changedPaths, appFileWatcher.isOverflowed(), generatedFileWriter);
+                    getLog().info("Processed " + changedPaths.size() + " file changes in "
+                            + (System.currentTimeMillis() - startTime) + " ms, wrote "
+                            + generatedFileWriter.getWrittenCount() + " generated files, skipped "
+                            + generatedFileWriter.getSkippedCount() + " unchanged generated files");
+                } catch (RuntimeException e) {
+                    getLog().error("Failed to process file changes, waiting for the next ones", e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            getLog().info("Stopped watching for changes");
+        } finally {
+            IOUtils.closeSilently(appFileWatcher);
+            IOUtils.closeSilently(pageMinFileUpdateQueue);
+            IOUtils.closeSilently(dependenciesClassLoader);
+        }
+    }
+
+    private void processChanges(Set<Path> changedPaths, boolean overflowed, GeneratedFileWriter generatedFileWriter) {
+        Map<String, Set<Page>> changedPages = new TreeMap<>();
+        // null when any service may be affected
+        Set<String> changedServices = overflowed ? null : new TreeSet<String>();
+        Set<Path> changedVariableFiles = new LinkedHashSet<>();
+        if (overflowed) {
+            variableFileOperations.clear();
+        }
+        for (Path changedPath : changedPaths) {
+            String fileName = changedPath.getFileName().toString();
+            if (changedPath.startsWith(pagesPath) && !changedPath.equals(pagesPath)) {
+                Path pagePath = pagesPath.relativize(changedPath);
+                String pageName = pagePath.getName(0).toString();
+                // the generated page min file and service definitions bundle, and the files written along with them
+                if (fileName.startsWith(AppBuildConstants.PAGE_MIN_FILE)
+                        || fileName.startsWith(pageName + VariableServiceDefGenerationHandler.SERVICE_DEF_BUNDLE_EXTENSION)) {
+                    continue;
+                }
+                Set<Page> pages = changedPages.get(pageName);
+                if (pages == null) {
+                    pages = new LinkedHashSet<>();
+                    changedPages.put(pageName, pages);
+                }
+                Page page = pagePath.getNameCount() == 2 ? getPage(pageName, fileName) : null;
+                // a null page regenerates the whole page, when its folder or an unknown file changed
+                pages.add(page);
+                if (page == null) {
+                    // the variables file may have been added or removed along with the page folder
+                    changedVariableFiles.add(pagesPath.resolve(pageName).resolve(pageName + VARIABLES_EXTENSION));
+                } else if (page == Page.JSON) {
+                    changedVariableFiles.add(changedPath);
+                }
+            } else if (changedPath.startsWith(servicesPath)) {
+                if (isGeneratedServiceFile(changedPath) || fileName.endsWith(JAVA_EXTENSION) || changedServices == null) {
+                    continue;
+                }
+                if (changedPath.equals(servicesPath)) {
+                    changedServices = null;
+                    continue;
+                }
+                Path servicePath = servicesPath.relativize(changedPath);
+                changedServices.add(servicePath.getName(0).toString());
+                if (servicePath.getNameCount() == 1) {
+                    // a service was added or removed, variables referencing unknown services are not cached
+                    variableFileOperations.clear();
+                }
+            } else if (changedPath.startsWith(classesPath)) {
+                if (fileName.endsWith(CLASS_EXTENSION) && changedServices != null) {
+                    String serviceName = getClassService(changedPath);
+                    if (serviceName != null) {
+                        changedServices.add(serviceName);
+                    } else {
+                        changedServices = null;
+                    }
+                }
+            } else if (fileName.endsWith(VARIABLES_EXTENSION)) {
+                changedVariableFiles.add(changedPath);
+            }
+        }
+        boolean servicesChanged = changedServices == null || !changedServices.isEmpty();
+        boolean variablesChanged = !changedVariableFiles.isEmpty();
+
+        if (overflowed) {
+            for (Folder pageFolder : rootFolder.getFolder(pagesDirectory).list().folders().fetchAll()) {
+                changedPages.put(pageFolder.getName(), Collections.<Page>singleton(null));
+            }
+        }
+        pageMinFileUpdateQueue.setGeneratedFileWriter(generatedFileWriter);
+        for (Map.Entry<String, Set<Page>> changedPage : changedPages.entrySet()) {
+            updatePage(changedPage.getKey(), changedPage.getValue(), generatedFileWriter);
+        }
+        if (servicesChanged || variablesChanged) {
+            regenerateServices(changedServices, changedVariableFiles, generatedFileWriter);
+        }
+        // the asset manifest needs the updated page min files, failed updates are reported along with this change
+        pageMinFileUpdateQueue.flush();
+        if (servicesChanged || variablesChanged) {
+            // the regenerated service definitions reach the class path through resource filtering
+            copyResources();
+        }
+        if (!changedPages.isEmpty() || servicesChanged || variablesChanged) {
+            createAssetManifestGenerationHandler().setGeneratedFileWriter(generatedFileWriter).handle();
+        }
+    }
+
+    private void updatePage(String pageName, Set<Page> pages, GeneratedFileWriter generatedFileWriter) {
+        Folder pageFolder = rootFolder.getFolder(pagesDirectory).getFolder(pageName);
+        if (!pageFolder.exists()) {
+            return;
+        }
+        if (!pages.contains(null)) {
+            // regenerated by the queue when it can not be updated
+            pageMinFileUpdateQueue.submit(pageFolder, pages);
+            return;
+        }
+        PageMinFileGenerator pageMinFileGenerator = new PageMinFileGenerator(Collections.singletonList(pageFolder))
+                .setForceOverwrite(true).setMinify(minifyPages).setGeneratedFileWriter(generatedFileWriter)
+                .setCacheFolder(getPagesCacheFolder());
+        if (precompressGeneratedFiles) {
+            pageMinFileGenerator.setGeneratedFileCompressor(generatedFileCompressor);
+        }
+        pageMinFileGenerator.generate();
+    }
+
+    /**
+     * Regenerates the swagger docs of the changed services, and the service definitions. The build manifest is not
+     * used, an outdated manifest only makes the next build regenerate more.
+     *
+     * @param changedServices services whose swagger docs and service definitions are regenerated, all when null.
+     * @param changedVariableFiles variables files read again, the operations referenced by the other ones are cached.
+     */
+    private void regenerateServices(Set<String> changedServices, Set<Path> changedVariableFiles,
+                                    GeneratedFileWriter generatedFileWriter) {
+        Folder servicesFolder = rootFolder.getFolder(servicesDirectory);
+        if (!servicesFolder.exists()) {
+            return;
+        }
+        ProjectSnapshot projectSnapshot = scanProject();
+        AppBuildTaskGraph taskGraph = new AppBuildTaskGraph();
+        SwaggerDocGenerationHandler swaggerDocGenerationHandler = null;
+        try {
+            if (changedServices == null || !changedServices.isEmpty()) {
+                swaggerDocGenerationHandler = new SwaggerDocGenerationHandler(servicesFolder, projectClassFolders)
+                        .setParentClassLoader(dependenciesClassLoader)
+                        .setSwaggerRegistry(swaggerRegistry)
+                        .setProjectSnapshot(projectSnapshot)
+                        .setGeneratedFileWriter(generatedFileWriter);
+                if (changedServices != null) {
+                    swaggerDocGenerationHandler.setModifiedServices(changedServices);
+                }
+                if (incrementalBuild) {
+                    swaggerDocGenerationHandler.setSwaggerCacheFolder(getSwaggerCacheFolder());
+                }
+                swaggerDocGenerationHandler.registerTasks(taskGraph);
+            }
+            VariableServiceDefGenerationHandler variableServiceDefGenerationHandler = new VariableServiceDefGenerationHandler(rootFolder)
+                    .setSwaggerRegistry(swaggerRegistry).setProjectSnapshot(projectSnapshot)
+                    .setGeneratedFileWriter(generatedFileWriter).setServiceDefBundles(serviceDefBundles)
+                    .setVariableFileOperations(variableFileOperations);
+            if (changedServices != null) {
+                List<com.wavemaker.commons.io.File> modifiedVariableFiles = new ArrayList<>();
+                for (Path changedVariableFile : changedVariableFiles) {
+                    modifiedVariableFiles.add(rootFolder.getFile(
+                            rootPath.relativize(changedVariableFile).toString().replace(File.separatorChar, '/')));
+                }
+                variableServiceDefGenerationHandler.setModifiedServices(changedServices)
+                        .setModifiedVariableFiles(modifiedVariableFiles);
+            }
+            if (serviceDefStore) {
+                variableServiceDefGenerationHandler.setServiceDefStoreFile(getServiceDefStoreFile());
+            }
+            if (precompressGeneratedFiles) {
+                variableServiceDefGenerationHandler.setGeneratedFileCompressor(generatedFileCompressor);
+            }
+            variableServiceDefGenerationHandler.registerTasks(taskGraph);
+            taskGraph.execute(getBuildParallelism());
+        } finally {
+            IOUtils.closeSilently(swaggerDocGenerationHandler);
+        }
+    }
+
+    /**
+     * Splits the class path in the project class folders, loaded again for every change, and the dependencies, loaded
+     * once by a class loader kept for the whole session.
+     */
+    private void initClassLoaders() throws MojoFailureException {
+        List<URL> classFolderUrls = new ArrayList<>();
+        List<URL> dependencyUrls = new ArrayList<>();
+        for (URL classPathUrl : getRuntimeClasspathElements()) {
+            if (isFolder(classPathUrl)) {
+                classFolderUrls.add(classPathUrl);
+            } else {
+                dependencyUrls.add(classPathUrl);
+            }
+        }
+        dependenciesClassLoader = new URLClassLoader(dependencyUrls.toArray(new URL[dependencyUrls.size()]),
+                Thread.currentThread().getContextClassLoader());
+        projectClassFolders = classFolderUrls.toArray(new URL[classFolderUrls.size()]);
+        if (projectClassFolders.length == 0) {
+            try {
+                projectClassFolders = new URL[]{classesPath.toUri().toURL()};
+            } catch (MalformedURLException e) {
+                throw new MojoFailureException("Invalid classes folder " + classesPath, e);
+            }
+        }
+    }
+
+    private boolean isFolder(URL classPathUrl) {
+        return "file".equals(classPathUrl.getProtocol()) && classPathUrl.getPath().endsWith("/");
+    }
+
+    private Page getPage(String pageName, String fileName) {
+        Folder pageFolder = rootFolder.getFolder(pagesDirectory).getFolder(pageName);
+        for (Page page : Page.values()) {
+            if (page.getPageFile(pageFolder).getName().equals(fileName)) {
+                return page;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the service holding the source of the given class file, or null when no service does, as for the classes
+     * shared by the services, or when the source was removed.
+     */
+    private String getClassService(Path classFile) {
+        Path classPath = classesPath.relativize(classFile);
+        String classFileName = classPath.getFileName().toString();
+        int classNameEnd = classFileName.indexOf('$');
+        if (classNameEnd == -1) {
+            classNameEnd = classFileName.length() - CLASS_EXTENSION.length();
+        }
+        Path sourcePath = classPath.resolveSibling(classFileName.substring(0, classNameEnd) + JAVA_EXTENSION);
+        File[] serviceFolders = servicesPath.toFile().listFiles();
+        if (serviceFolders != null) {
+            for (File serviceFolder : serviceFolders) {
+                if (serviceFolder.toPath().resolve(SERVICE_SRC_FOLDER).resolve(sourcePath).toFile().isFile()) {
+                    return serviceFolder.getName();
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return true for the files written by the app build itself in the services folder.
+     */
+    private boolean isGeneratedServiceFile(Path path) {
+        Path servicePath = servicesPath.relativize(path);
+        if (servicePath.getNameCount() < 3) {
+            return false;
+        }
+        String serviceName = servicePath.getName(0).toString();
+        String folderName = servicePath.getName(1).toString();
+        return (SERVICE_SRC_FOLDER.equals(folderName) && SERVICE_DEFS_FOLDER.equals(servicePath.getName(2).toString()))
+                || (DESIGN_TIME_FOLDER.equals(folderName) && (serviceName + API_EXTENSION).equals(servicePath.getFileName().toString()));
+    }
+}
@@ -0,0 +1,58 @@
+/**
+ * Copyright © 2013 - 2017 WaveMaker, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wavemaker.app.build.maven.plugin.mojo;
+
+import java.io.File;
+import java.nio.file.Path;
+
+import com.wavemaker.app.build.io.CompressedFileLocator;
+import com.wavemaker.app.build.io.GeneratedFileCompressor;
+
+/**
+ * Locates the compressed copies of the generated files in the build output: the files of the web app, like the page
+ * min files and service definitions bundles, under the web app output directory, and the files already in the class
+ * output directory, like the filtered copies of the service definitions files, next to them. Other files, like the
+ * service definitions files of the services folder, are not compressed.
+ */
+class BuildOutputCompressedFileLocator implements CompressedFileLocator {
+
+    private final Path webAppPath;
+    private final Path webAppOutputPath;
+    private final Path classesOutputPath;
+
+    BuildOutputCompressedFileLocator(File webAppFolder, File webAppOutputFolder, File classesOutputFolder) {
+        this.webAppPath = normalize(webAppFolder);
+        this.webAppOutputPath = normalize(webAppOutputFolder);
+        this.classesOutputPath = normalize(classesOutputFolder);
+    }
+
+    @Override
+    public File getCompressedFile(File file) {
+        Path path = normalize(file);
+        Path outputPath = null;
+        if (path.startsWith(webAppPath)) {
+            outputPath = webAppOutputPath.resolve(webAppPath.relativize(path));
+        } else if (path.startsWith(classesOutputPath)) {
+            outputPath = path;
+        }
+        return outputPath == null ? null
+                : new File(outputPath.getParent().toFile(), outputPath.getFileName() + GeneratedFileCompressor.GZIP_EXTENSION);
+    }
+
+    private static Path normalize(File file) {
+        return file.toPath().toAbsolutePath().normalize();
+    }
+}
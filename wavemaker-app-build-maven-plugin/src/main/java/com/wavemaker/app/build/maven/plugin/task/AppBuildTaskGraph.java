@@ -0,0 +1,253 @@
+/**
+ * Copyright © 2013 - 2017 WaveMaker, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wavemaker.app.build.maven.plugin.task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.wavemaker.commons.WMRuntimeException;
+
+/**
+ * Small dependency graph of app build tasks. A task is submitted to the executor as soon as all the tasks it depends
+ * on have completed, so independent chains of work run in parallel. When a task fails, the tasks depending on it are
+ * skipped, the remaining ones are run to completion and the failure is reported once the graph has finished. In fail
+ * fast mode, or when a task marked as fail fast fails, the failure instead cancels all the outstanding tasks and is
+ * reported right away.
+ */
+public class AppBuildTaskGraph {
+
+    private static final Logger logger = LoggerFactory.getLogger(AppBuildTaskGraph.class);
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 60;
+
+    private final Map<String, TaskNode> taskNodes = new LinkedHashMap<>();
+    private boolean failFast;
+
+    /**
+     * Adds a task which runs after all of its dependencies have completed. Dependencies must have been added before.
+     */
+    public AppBuildTaskGraph addTask(String name, Runnable task, String... dependencies) {
+        return addTask(name, task, Arrays.asList(dependencies));
+    }
+
+    public AppBuildTaskGraph addTask(String name, Runnable task, Iterable<String> dependencies) {
+        if (taskNodes.containsKey(name)) {
+            throw new WMRuntimeException("Task " + name + " is already added to the build");
+        }
+        TaskNode taskNode = new TaskNode(name, task);
+        for (String dependency : dependencies) {
+            TaskNode dependencyNode = taskNodes.get(dependency);
+            if (dependencyNode == null) {
+                throw new WMRuntimeException("Task " + name + " depends on unknown task " + dependency);
+            }
+            if (taskNode.dependencies.add(dependencyNode)) {
+                dependencyNode.dependents.add(taskNode);
+            }
+        }
+        taskNodes.put(name, taskNode);
+        return this;
+    }
+
+    /**
+     * When enabled, the first failing task cancels the tasks not started yet and interrupts the running ones. Defaults
+     * to false.
+     */
+    public AppBuildTaskGraph setFailFast(boolean failFast) {
+        this.failFast = failFast;
+        return this;
+    }
+
+    /**
+     * Marks an added task as fail fast: its failure cancels the whole graph, whatever the fail fast mode of the graph.
+     */
+    public AppBuildTaskGraph setFailFast(String name, boolean failFast) {
+        TaskNode taskNode = taskNodes.get(name);
+        if (taskNode == null) {
+            throw new WMRuntimeException("Unknown task " + name);
+        }
+        taskNode.failFast = failFast;
+        return this;
+    }
+
+    public boolean hasTask(String name) {
+        return taskNodes.containsKey(name);
+    }
+
+    /**
+     * Runs all the tasks of the graph using at most the given number of threads and waits for them to complete.
+     */
+    public void execute(int parallelism) {
+        if (taskNodes.isEmpty()) {
+            return;
+        }
+        if (parallelism < 1) {
+            throw new WMRuntimeException("Parallelism should be at least 1, found " + parallelism);
+        }
+        new Execution(parallelism).run();
+    }
+
+    private static class TaskNode {
+        private final String name;
+        private final Runnable task;
+        private final Set<TaskNode> dependencies = new LinkedHashSet<>();
+        private final List<TaskNode> dependents = new ArrayList<>();
+        private final AtomicInteger pendingDependencies = new AtomicInteger();
+        private boolean failFast;
+
+        private TaskNode(String name, Runnable task) {
+            this.name = name;
+            this.task = task;
+        }
+    }
+
+    private class Execution {
+        private final ExecutorService executorService;
+        private final CountDownLatch remainingTasks = new CountDownLatch(taskNodes.size());
+        private final Set<TaskNode> finishedTasks = Collections.newSetFromMap(new ConcurrentHashMap<TaskNode, Boolean>());
+        private final ConcurrentLinkedQueue<String> failedTasks = new ConcurrentLinkedQueue<>();
+        private final ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        private volatile boolean cancelled;
+
+        private Execution(int parallelism) {
+            this.executorService = Executors.newFixedThreadPool(Math.min(parallelism, taskNodes.size()));
+        }
+
+        private void run() {
+            try {
+                List<TaskNode> readyTasks = new ArrayList<>();
+                for (TaskNode taskNode : taskNodes.values()) {
+                    taskNode.pendingDependencies.set(taskNode.dependencies.size());
+                    if (taskNode.dependencies.isEmpty()) {
+                        readyTasks.add(taskNode);
+                    }
+                }
+                for (TaskNode taskNode : readyTasks) {
+                    submit(taskNode);
+                }
+                remainingTasks.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new WMRuntimeException("Interrupted while waiting for app build tasks", e);
+            } finally {
+                shutdown();
+            }
+            if (!failures.isEmpty()) {
+                Throwable failure = failures.peek();
+                WMRuntimeException exception = new WMRuntimeException("App build tasks " + failedTasks + " failed", failure);
+                for (Throwable otherFailure : failures) {
+                    if (otherFailure != failure) {
+                        exception.addSuppressed(otherFailure);
+                    }
+                }
+                throw exception;
+            }
+        }
+
+        private void submit(final TaskNode taskNode) {
+            executorService.execute(new Runnable() {
+                @Override
+                public void run() {
+                    if (cancelled) {
+                        return;
+                    }
+                    try {
+                        logger.debug("Running app build task {}", taskNode.name);
+                        taskNode.task.run();
+                    } catch (Throwable t) {
+                        if (cancelled) {
+                            // most likely interrupted by the cancellation, the first failure is already reported
+                            return;
+                        }
+                        logger.error("App build task {} failed", taskNode.name, t);
+                        failedTasks.add(taskNode.name);
+                        failures.add(t);
+                        if (failFast || taskNode.failFast) {
+                            cancel();
+                            return;
+                        }
+                        skipDependents(taskNode);
+                        finish(taskNode);
+                        return;
+                    }
+                    finish(taskNode);
+                    for (TaskNode dependent : taskNode.dependents) {
+                        if (dependent.pendingDependencies.decrementAndGet() == 0 && !finishedTasks.contains(dependent)) {
+                            submit(dependent);
+                        }
+                    }
+                }
+            });
+        }
+
+        /**
+         * Stops starting new tasks and releases the thread waiting for the graph, running tasks are interrupted when
+         * the executor is shut down.
+         */
+        private synchronized void cancel() {
+            if (!cancelled) {
+                cancelled = true;
+                logger.warn("Cancelling the remaining app build tasks as task {} failed", failedTasks.peek());
+                while (remainingTasks.getCount() > 0) {
+                    remainingTasks.countDown();
+                }
+            }
+        }
+
+        private void shutdown() {
+            executorService.shutdownNow();
+            if (cancelled) {
+                try {
+                    // let interrupted tasks stop before reporting, so that nothing is written after the build failed
+                    executorService.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        private void skipDependents(TaskNode taskNode) {
+            for (TaskNode dependent : taskNode.dependents) {
+                if (finishedTasks.add(dependent)) {
+                    logger.warn("Skipping app build task {} as task {} failed", dependent.name, taskNode.name);
+                    remainingTasks.countDown();
+                    skipDependents(dependent);
+                }
+            }
+        }
+
+        private void finish(TaskNode taskNode) {
+            if (finishedTasks.add(taskNode)) {
+                remainingTasks.countDown();
+            }
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/**
+ * Copyright © 2013 - 2017 WaveMaker, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wavemaker.app.build.maven.plugin.watch;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.wavemaker.commons.WMRuntimeException;
+
+/**
+ * Watches folder trees for changes and hands them out in batches: a batch starts with the first change and ends once
+ * no change happened for the debounce delay, so that a burst of events from a single save is handled at once. Folders
+ * created inside a watched tree are watched as well.
+ */
+public class AppFileWatcher implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(AppFileWatcher.class);
+
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> watchedFolders = new HashMap<>();
+    private final Set<Path> recursiveFolders = new HashSet<>();
+    private boolean overflowed;
+
+    public AppFileWatcher() {
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+        } catch (IOException e) {
+            throw new WMRuntimeException("Failed to create file watch service", e);
+        }
+    }
+
+    /**
+     * Watches the given folder and all its sub folders, does nothing when the folder does not exist.
+     */
+    public void watch(Path folder) {
+        watch(folder, true);
+    }
+
+    /**
+     * Watches the given folder, and all its sub folders when recursive. Does nothing when the folder does not exist.
+     */
+    public void watch(Path folder, boolean recursive) {
+        if (!Files.isDirectory(folder)) {
+            return;
+        }
+        if (!recursive) {
+            register(folder, false);
+            return;
+        }
+        try {
+            Files.walkFileTree(folder, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    register(dir, true);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            throw new WMRuntimeException("Failed to watch folder " + folder, e);
+        }
+    }
+
+    private void register(Path folder, boolean recursive) {
+        try {
+            WatchKey watchKey = folder.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            watchedFolders.put(watchKey, folder);
+            if (recursive) {
+                recursiveFolders.add(folder);
+            }
+        } catch (IOException e) {
+            throw new WMRuntimeException("Failed to watch folder " + folder, e);
+        }
+    }
+
+    /**
+     * Waits for the next batch of changes.
+     *
+     * @return the changed paths, in the order they were first reported.
+     * @throws InterruptedException when interrupted while waiting for the first change.
+     */
+    public Set<Path> awaitChanges(long debounceMillis) throws InterruptedException {
+        Set<Path> changedPaths = new LinkedHashSet<>();
+        overflowed = false;
+        WatchKey watchKey = watchService.take();
+        while (watchKey != null) {
+            collectChanges(watchKey, changedPaths);
+            watchKey = watchService.poll(debounceMillis, TimeUnit.MILLISECONDS);
+        }
+        return changedPaths;
+    }
+
+    /**
+     * @return true when events were lost during the last batch, in which case the changed paths are incomplete.
+     */
+    public boolean isOverflowed() {
+        return overflowed;
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+
+    private void collectChanges(WatchKey watchKey, Set<Path> changedPaths) {
+        Path folder = watchedFolders.get(watchKey);
+        for (WatchEvent<?> event : watchKey.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                overflowed = true;
+                continue;
+            }
+            if (folder == null) {
+                continue;
+            }
+            Path changedPath = folder.resolve((Path) event.context());
+            changedPaths.add(changedPath);
+            if (recursiveFolders.contains(folder) && event.kind() == StandardWatchEventKinds.ENTRY_CREATE
+                    && Files.isDirectory(changedPath)) {
+                try {
+                    watch(changedPath);
+                } catch (WMRuntimeException | ClosedWatchServiceException e) {
+                    logger.warn("Failed to watch new folder {}", changedPath, e);
+                }
+            }
+        }
+        if (!watchKey.reset()) {
+            recursiveFolders.remove(watchedFolders.remove(watchKey));
+        }
+    }
+}
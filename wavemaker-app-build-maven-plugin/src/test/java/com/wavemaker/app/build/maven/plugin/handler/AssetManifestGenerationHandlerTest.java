@@ -0,0 +1,147 @@
+/**
+ * Copyright © 2013 - 2017 WaveMaker, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wavemaker.app.build.maven.plugin.handler;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.wavemaker.app.build.io.GeneratedFileWriter;
+import com.wavemaker.app.build.manifest.ContentDigest;
+import com.wavemaker.app.build.project.ProjectScanner;
+import com.wavemaker.commons.io.Folder;
+import com.wavemaker.commons.io.local.LocalFolder;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AssetManifestGenerationHandlerTest {
+
+    private static final String SERVICE_DEF_PATH = "servicedefs/hrdb-service-definitions.json";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void hashesFilteredCopiesOfServiceDefinitions() throws IOException {
+        File rootFolder = createProject("{\"url\": \"${host}\"}");
+        write(new File(rootFolder, "target/classes/" + SERVICE_DEF_PATH), "{\"url\": \"localhost\"}");
+
+        String manifest = writeManifest(rootFolder, new LocalFolder(new File(rootFolder, "target/classes")));
+
+        assertTrue(manifest, manifest.contains(hash("{\"url\": \"localhost\"}")));
+        assertFalse(manifest, manifest.contains(hash("{\"url\": \"${host}\"}")));
+    }
+
+    @Test
+    public void hashesServiceDefinitionsWithoutCopy() throws IOException {
+        File rootFolder = createProject("{\"url\": \"${host}\"}");
+
+        String manifest = writeManifest(rootFolder, new LocalFolder(new File(rootFolder, "target/classes")));
+
+        assertTrue(manifest, manifest.contains(hash("{\"url\": \"${host}\"}")));
+    }
+
+    @Test
+    public void keepsHashOfUnchangedFiles() throws IOException {
+        File rootFolder = createProject("{\"url\": \"${host}\"}");
+        File manifestFile = new File(rootFolder, "target/classes/asset-manifest.json");
+        createHandler(rootFolder).handle();
+        String manifest = read(manifestFile);
+        // a hash only the previous manifest can provide
+        write(manifestFile, manifest.replace(hash("{\"url\": \"${host}\"}"), "previous"));
+
+        createHandler(rootFolder).handle();
+
+        assertTrue(read(manifestFile).contains("previous"));
+    }
+
+    @Test
+    public void hashesFilesChangedSincePreviousBuild() throws IOException {
+        File rootFolder = createProject("{\"url\": \"${host}\"}");
+        createHandler(rootFolder).handle();
+        File serviceDefFile = new File(rootFolder, "services/hrdb/src/" + SERVICE_DEF_PATH);
+        long lastModified = serviceDefFile.lastModified();
+
+        write(serviceDefFile, "{\"url\": \"${port}\"}");
+        serviceDefFile.setLastModified(lastModified - 10000);
+        createHandler(rootFolder).handle();
+
+        assertTrue(read(new File(rootFolder, "target/classes/asset-manifest.json")).contains(hash("{\"url\": \"${port}\"}")));
+    }
+
+    @Test
+    public void hashesFilesWrittenByTheBuild() throws IOException {
+        File rootFolder = createProject("{\"url\": \"${host}\"}");
+        createHandler(rootFolder).handle();
+        File serviceDefFile = new File(rootFolder, "services/hrdb/src/" + SERVICE_DEF_PATH);
+        long lastModified = serviceDefFile.lastModified();
+
+        // same size and last modified time, only the writer knows the file changed
+        GeneratedFileWriter generatedFileWriter = new GeneratedFileWriter();
+        generatedFileWriter.write(new LocalFolder(serviceDefFile.getParentFile()).getFile(serviceDefFile.getName()),
+                "{\"url\": \"${port}\"}");
+        serviceDefFile.setLastModified(lastModified);
+        createHandler(rootFolder).setGeneratedFileWriter(generatedFileWriter).handle();
+
+        assertTrue(read(new File(rootFolder, "target/classes/asset-manifest.json")).contains(hash("{\"url\": \"${port}\"}")));
+    }
+
+    private File createProject(String serviceDefContent) throws IOException {
+        File rootFolder = temporaryFolder.newFolder();
+        assertTrue(new File(rootFolder, "src/main/webapp/pages").mkdirs());
+        write(new File(rootFolder, "services/hrdb/src/" + SERVICE_DEF_PATH), serviceDefContent);
+        return rootFolder;
+    }
+
+    private static String writeManifest(File rootFolder, Folder classesFolder) throws IOException {
+        Folder root = new LocalFolder(rootFolder);
+        File manifestFile = new File(rootFolder, "target/classes/asset-manifest.json");
+        new AssetManifestGenerationHandler(new LocalFolder(manifestFile.getParentFile()).getFile(manifestFile.getName()))
+                .setPagesFolder(root.getFolder("src/main/webapp/pages")).setServicesFolder(root.getFolder("services"))
+                .setClassesFolder(classesFolder)
+                .setProjectSnapshot(new ProjectScanner(rootFolder, "src/main/webapp/pages", "services").scan())
+                .handle();
+        return new String(Files.readAllBytes(manifestFile.toPath()), StandardCharsets.UTF_8);
+    }
+
+    private static AssetManifestGenerationHandler createHandler(File rootFolder) {
+        Folder root = new LocalFolder(rootFolder);
+        File manifestFile = new File(rootFolder, "target/classes/asset-manifest.json");
+        return new AssetManifestGenerationHandler(new LocalFolder(manifestFile.getParentFile()).getFile(manifestFile.getName()))
+                .setPagesFolder(root.getFolder("src/main/webapp/pages")).setServicesFolder(root.getFolder("services"))
+                .setProjectSnapshot(new ProjectScanner(rootFolder, "src/main/webapp/pages", "services").scan())
+                .setCacheFile(new File(rootFolder, "target/wm-build-cache/asset-manifest.stamps"));
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+    private static void write(File file, String content) throws IOException {
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String hash(String content) {
+        return new ContentDigest().update(content.getBytes(StandardCharsets.UTF_8)).getHash();
+    }
+}
@@ -0,0 +1,103 @@
+/**
+ * Copyright © 2013 - 2017 WaveMaker, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wavemaker.app.build.maven.plugin.handler;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.wavemaker.commons.io.local.LocalFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class BuildInputsTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void pageHashDependsOnContentAndMinification() throws IOException {
+        File pageFolder = temporaryFolder.newFolder("Main");
+        write(new File(pageFolder, "Main.js"), "var a;");
+        String pageHash = BuildInputs.pageHash(new LocalFolder(pageFolder));
+
+        assertEquals(pageHash, BuildInputs.pageHash(new LocalFolder(pageFolder), false));
+        assertNotEquals(pageHash, BuildInputs.pageHash(new LocalFolder(pageFolder), true));
+        write(new File(pageFolder, "page.min.html"), "generated");
+        assertEquals(pageHash, BuildInputs.pageHash(new LocalFolder(pageFolder)));
+        write(new File(pageFolder, "Main.js"), "var b;");
+        assertNotEquals(pageHash, BuildInputs.pageHash(new LocalFolder(pageFolder)));
+    }
+
+    @Test
+    public void serviceHashExcludesGeneratedFiles() throws IOException {
+        File serviceFolder = temporaryFolder.newFolder("hrdb");
+        write(new File(serviceFolder, "src/com/hrdb/Controller.java"), "class Controller {}");
+        write(new File(serviceFolder, "designtime/hrdb_dataModel.xml"), "<model/>");
+        String serviceHash = BuildInputs.serviceHash(new LocalFolder(serviceFolder));
+
+        write(new File(serviceFolder, "src/servicedefs/hrdb-service-definitions.json"), "{}");
+        write(new File(serviceFolder, "designtime/hrdb_API.json"), "{}");
+        assertEquals(serviceHash, BuildInputs.serviceHash(new LocalFolder(serviceFolder)));
+
+        write(new File(serviceFolder, "designtime/hrdb_dataModel.xml"), "<model></model>");
+        assertNotEquals(serviceHash, BuildInputs.serviceHash(new LocalFolder(serviceFolder)));
+    }
+
+    @Test
+    public void serviceHashIgnoresFoldersCreatedForGeneratedFiles() throws IOException {
+        File serviceFolder = temporaryFolder.newFolder("weather");
+        write(new File(serviceFolder, "designtime/weather_API_REST_SERVICE.json"), "{}");
+        String serviceHash = BuildInputs.serviceHash(new LocalFolder(serviceFolder));
+
+        write(new File(serviceFolder, "src/servicedefs/weather-service-definitions.json"), "{}");
+        assertEquals(serviceHash, BuildInputs.serviceHash(new LocalFolder(serviceFolder)));
+    }
+
+    @Test
+    public void classPathHashExcludesProjectClassFolder() throws IOException {
+        File projectClassFolder = temporaryFolder.newFolder("classes");
+        File moduleClassFolder = temporaryFolder.newFolder("module-classes");
+        File jarFile = temporaryFolder.newFile("dependency.jar");
+        write(new File(projectClassFolder, "com/hrdb/Controller.class"), "a");
+        write(new File(moduleClassFolder, "com/module/Model.class"), "b");
+        URL[] classPathURLs = {projectClassFolder.toURI().toURL(), moduleClassFolder.toURI().toURL(),
+                jarFile.toURI().toURL()};
+        String classPathHash = BuildInputs.classPathHash(classPathURLs, projectClassFolder);
+
+        write(new File(projectClassFolder, "com/hrdb/Controller.class"), "changed");
+        assertEquals(classPathHash, BuildInputs.classPathHash(classPathURLs, projectClassFolder));
+
+        write(new File(moduleClassFolder, "com/module/Model.class"), "changed");
+        String moduleChangedHash = BuildInputs.classPathHash(classPathURLs, projectClassFolder);
+        assertNotEquals(classPathHash, moduleChangedHash);
+
+        write(jarFile, "jar");
+        assertNotEquals(moduleChangedHash, BuildInputs.classPathHash(classPathURLs, projectClassFolder));
+    }
+
+    private static void write(File file, String content) throws IOException {
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
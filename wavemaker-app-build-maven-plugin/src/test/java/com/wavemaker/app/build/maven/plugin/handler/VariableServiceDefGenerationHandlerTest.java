@@ -0,0 +1,177 @@
+/**
+ * Copyright © 2013 - 2017 WaveMaker, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wavemaker.app.build.maven.plugin.handler;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.wavemaker.app.build.manifest.BuildManifest;
+import com.wavemaker.app.build.project.ProjectScanner;
+import com.wavemaker.commons.io.Folder;
+import com.wavemaker.commons.io.local.LocalFolder;
+import com.wavemaker.commons.json.JSONUtils;
+import com.wavemaker.commons.servicedef.model.ServiceDefinition;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class VariableServiceDefGenerationHandlerTest {
+
+    private static final String PAGES_PATH = "src/main/webapp/pages";
+    private static final String MAIN_VARIABLES_PATH = PAGES_PATH + "/Main/Main.variables.json";
+    private static final String LOGIN_VARIABLES_PATH = PAGES_PATH + "/Login/Login.variables.json";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void writesBundleOfReferencedServiceDefinitions() throws IOException {
+        File rootFolder = createProject();
+
+        createHandler(rootFolder, null).handle();
+
+        Map<String, Map<String, Map<String, Object>>> bundle = readBundle(rootFolder, MAIN_VARIABLES_PATH);
+        assertEquals(Arrays.asList("hrdb", "weather"), Arrays.asList(bundle.keySet().toArray()));
+        assertEquals(Collections.singleton("EmployeeController_getEmployees"), bundle.get("hrdb").keySet());
+        assertEquals("hrdb_EmployeeController_getEmployees", bundle.get("hrdb").get("EmployeeController_getEmployees").get("id"));
+        assertEquals(Collections.singleton("WeatherController_forecast"), bundle.get("weather").keySet());
+
+        bundle = readBundle(rootFolder, "app.variables.json");
+        assertEquals(Collections.singleton("hrdb"), bundle.keySet());
+        assertEquals(new HashSet<>(Arrays.asList("EmployeeController_getEmployees", "EmployeeController_createEmployee")),
+                bundle.get("hrdb").keySet());
+    }
+
+    @Test
+    public void writesEmptyBundleForVariablesReferencingNoOperation() throws IOException {
+        File rootFolder = createProject();
+
+        createHandler(rootFolder, null).handle();
+
+        assertTrue(readBundle(rootFolder, LOGIN_VARIABLES_PATH).isEmpty());
+    }
+
+    @Test
+    public void rebuildsServiceDefinitionsWhenBundleIsMissing() throws IOException {
+        File rootFolder = createProject();
+        File manifestFile = new File(rootFolder, "target/wm-build-cache/build-manifest.json");
+        build(rootFolder, manifestFile);
+        File bundleFile = getBundleFile(rootFolder, MAIN_VARIABLES_PATH);
+        String bundle = read(bundleFile);
+
+        assertTrue(build(rootFolder, manifestFile).builtServices.isEmpty());
+
+        assertTrue(bundleFile.delete());
+        TestVariableServiceDefGenerationHandler handler = build(rootFolder, manifestFile);
+
+        assertEquals(new HashSet<>(Arrays.asList("hrdb", "weather")), handler.builtServices);
+        assertEquals(bundle, read(bundleFile));
+    }
+
+    private TestVariableServiceDefGenerationHandler build(File rootFolder, File manifestFile) {
+        BuildManifest buildManifest = new BuildManifest(manifestFile);
+        TestVariableServiceDefGenerationHandler handler = createHandler(rootFolder, buildManifest);
+        handler.handle();
+        buildManifest.save();
+        return handler;
+    }
+
+    private File createProject() throws IOException {
+        File rootFolder = temporaryFolder.newFolder();
+        write(new File(rootFolder, MAIN_VARIABLES_PATH), "{"
+                + "\"getEmployees\": {\"category\": \"wm.ServiceVariable\", \"service\": \"hrdb\","
+                + " \"operationId\": \"EmployeeController_getEmployees\"},"
+                + "\"forecast\": {\"category\": \"wm.ServiceVariable\", \"service\": \"weather\","
+                + " \"operationId\": \"WeatherController_forecast\"}}");
+        write(new File(rootFolder, LOGIN_VARIABLES_PATH), "{\"loggedInUser\": {\"category\": \"wm.Variable\"}}");
+        write(new File(rootFolder, "app.variables.json"), "{"
+                + "\"getEmployees\": {\"category\": \"wm.ServiceVariable\", \"service\": \"hrdb\","
+                + " \"operationId\": \"EmployeeController_getEmployees\"},"
+                + "\"createEmployee\": {\"category\": \"wm.ServiceVariable\", \"service\": \"hrdb\","
+                + " \"operationId\": \"EmployeeController_createEmployee\"}}");
+        write(new File(rootFolder, "services/hrdb/designtime/hrdb_API.json"), "{}");
+        write(new File(rootFolder, "services/weather/designtime/weather_API_REST_SERVICE.json"), "{}");
+        return rootFolder;
+    }
+
+    private static TestVariableServiceDefGenerationHandler createHandler(File rootFolder, BuildManifest buildManifest) {
+        TestVariableServiceDefGenerationHandler handler = new TestVariableServiceDefGenerationHandler(
+                new LocalFolder(rootFolder), buildManifest);
+        handler.setProjectSnapshot(new ProjectScanner(rootFolder, PAGES_PATH, "services").scan())
+                .setServiceDefBundles(true).setParallelism(1);
+        return handler;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Map<String, Map<String, Object>>> readBundle(File rootFolder, String variablesPath)
+            throws IOException {
+        return new TreeMap<String, Map<String, Map<String, Object>>>(
+                JSONUtils.toObject(getBundleFile(rootFolder, variablesPath), Map.class));
+    }
+
+    private static File getBundleFile(File rootFolder, String variablesPath) {
+        File variablesFile = new File(rootFolder, variablesPath);
+        return new File(variablesFile.getParentFile(), variablesFile.getName()
+                .replace(VariableServiceDefGenerationHandler.VARIABLES_EXTENSION,
+                        VariableServiceDefGenerationHandler.SERVICE_DEF_BUNDLE_EXTENSION));
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+    private static void write(File file, String content) throws IOException {
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Builds a service definition per operation without reading the swagger of the service, and records the services
+     * built.
+     */
+    private static class TestVariableServiceDefGenerationHandler extends VariableServiceDefGenerationHandler {
+
+        private final Set<String> builtServices = Collections.synchronizedSet(new HashSet<String>());
+
+        private TestVariableServiceDefGenerationHandler(Folder rootFolder, BuildManifest buildManifest) {
+            super(rootFolder, buildManifest);
+        }
+
+        @Override
+        protected Map<String, ServiceDefinition> buildServiceDefs(Folder serviceFolder, Collection<String> operationIds) {
+            builtServices.add(serviceFolder.getName());
+            Map<String, ServiceDefinition> serviceDefinitions = new TreeMap<>();
+            for (String operationId : operationIds) {
+                serviceDefinitions.put(operationId, new ServiceDefinition().getNewInstance()
+                        .addId(serviceFolder.getName() + "_" + operationId).addService(serviceFolder.getName()));
+            }
+            return serviceDefinitions;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/**
+ * Copyright © 2013 - 2017 WaveMaker, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wavemaker.app.build.maven.plugin.mojo;
+
+import java.io.File;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class BuildOutputCompressedFileLocatorTest {
+
+    private final File baseFolder = new File("app").getAbsoluteFile();
+    private final BuildOutputCompressedFileLocator locator = new BuildOutputCompressedFileLocator(
+            new File(baseFolder, "src/main/webapp"), new File(baseFolder, "target/app"), new File(baseFolder, "target/classes"));
+
+    @Test
+    public void locatesWebAppFilesInWebAppOutput() {
+        assertEquals(new File(baseFolder, "target/app/pages/Main/page.min.html.gz"),
+                locator.getCompressedFile(new File(baseFolder, "src/main/webapp/pages/Main/page.min.html")));
+        assertEquals(new File(baseFolder, "target/app/app.service-definitions.json.gz"),
+                locator.getCompressedFile(new File(baseFolder, "src/main/webapp/app.service-definitions.json")));
+    }
+
+    @Test
+    public void locatesClassOutputFilesNextToThem() {
+        assertEquals(new File(baseFolder, "target/classes/servicedefs/hrdb-service-definitions.json.gz"),
+                locator.getCompressedFile(new File(baseFolder, "target/classes/servicedefs/hrdb-service-definitions.json")));
+    }
+
+    @Test
+    public void doesNotLocateOtherFiles() {
+        assertNull(locator.getCompressedFile(new File(baseFolder, "services/hrdb/src/servicedefs/hrdb-service-definitions.json")));
+        assertNull(locator.getCompressedFile(new File(baseFolder, "pom.xml")));
+    }
+}
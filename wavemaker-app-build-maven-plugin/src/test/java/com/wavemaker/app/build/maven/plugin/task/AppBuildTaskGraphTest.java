@@ -0,0 +1,155 @@
+/**
+ * Copyright © 2013 - 2017 WaveMaker, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wavemaker.app.build.maven.plugin.task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.wavemaker.commons.WMRuntimeException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AppBuildTaskGraphTest {
+
+    @Test
+    public void runsTasksAfterTheirDependencies() {
+        List<String> completedTasks = Collections.synchronizedList(new ArrayList<String>());
+        new AppBuildTaskGraph()
+                .addTask("a", record(completedTasks, "a"))
+                .addTask("b", record(completedTasks, "b"))
+                .addTask("c", record(completedTasks, "c"), "a", "b")
+                .addTask("d", record(completedTasks, "d"), "c")
+                .execute(4);
+
+        assertEquals(4, completedTasks.size());
+        assertTrue(completedTasks.indexOf("c") > completedTasks.indexOf("a"));
+        assertTrue(completedTasks.indexOf("c") > completedTasks.indexOf("b"));
+        assertEquals("d", completedTasks.get(3));
+    }
+
+    @Test
+    public void skipsDependentsOfFailedTasksAndReportsAllFailures() {
+        List<String> completedTasks = Collections.synchronizedList(new ArrayList<String>());
+        AppBuildTaskGraph taskGraph = new AppBuildTaskGraph()
+                .addTask("a", failing("a"))
+                .addTask("b", failing("b"))
+                .addTask("c", record(completedTasks, "c"))
+                .addTask("d", record(completedTasks, "d"), "a")
+                .addTask("e", record(completedTasks, "e"), "d")
+                .addTask("f", record(completedTasks, "f"), "c");
+        try {
+            taskGraph.execute(1);
+            fail("Failed tasks should fail the graph");
+        } catch (WMRuntimeException e) {
+            assertEquals(1, e.getSuppressed().length);
+        }
+
+        assertEquals(Arrays.asList("c", "f"), completedTasks);
+    }
+
+    @Test
+    public void cancelsOutstandingTasksOnFailFastTaskFailure() {
+        List<String> completedTasks = Collections.synchronizedList(new ArrayList<String>());
+        AppBuildTaskGraph taskGraph = new AppBuildTaskGraph()
+                .addTask("a", failing("a"))
+                .addTask("b", record(completedTasks, "b"), "a")
+                .addTask("c", record(completedTasks, "c"))
+                .setFailFast("a", true);
+        try {
+            taskGraph.execute(1);
+            fail("Failed tasks should fail the graph");
+        } catch (WMRuntimeException e) {
+            assertEquals("a", e.getCause().getMessage());
+        }
+
+        assertTrue(completedTasks.isEmpty());
+    }
+
+    @Test
+    public void interruptsRunningTasksInFailFastMode() throws InterruptedException {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        AppBuildTaskGraph taskGraph = new AppBuildTaskGraph().setFailFast(true)
+                .addTask("slow", new Runnable() {
+                    @Override
+                    public void run() {
+                        started.countDown();
+                        try {
+                            Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+                        } catch (InterruptedException e) {
+                            interrupted.countDown();
+                        }
+                    }
+                })
+                .addTask("failing", new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            started.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        throw new IllegalStateException("failing");
+                    }
+                });
+        try {
+            taskGraph.execute(2);
+            fail("Failed tasks should fail the graph");
+        } catch (WMRuntimeException e) {
+            assertEquals("failing", e.getCause().getMessage());
+        }
+
+        assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void rejectsUnknownDependencies() {
+        AppBuildTaskGraph taskGraph = new AppBuildTaskGraph();
+        try {
+            taskGraph.addTask("a", record(new ArrayList<String>(), "a"), "b");
+            fail("Unknown dependencies should be rejected");
+        } catch (WMRuntimeException e) {
+            assertFalse(taskGraph.hasTask("a"));
+        }
+    }
+
+    private static Runnable record(final List<String> completedTasks, final String name) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                completedTasks.add(name);
+            }
+        };
+    }
+
+    private static Runnable failing(final String name) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                throw new IllegalStateException(name);
+            }
+        };
+    }
+}
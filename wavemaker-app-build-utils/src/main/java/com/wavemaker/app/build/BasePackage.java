@@ -15,6 +15,8 @@
  */
 package com.wavemaker.app.build;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import org.apache.commons.lang3.StringUtils;
@@ -37,7 +39,29 @@ public class BasePackage {
             throw new WMRuntimeException("Source folder is null or does not exist");
 
         this.sourceFolder = sourceFolder;
-        computeBasePackage();
+        List<File> javaFiles = sourceFolder.find().files().include(FilterOn.names().ending(".java")).fetchAll();
+        List<String> javaFolderPaths = new ArrayList<>(javaFiles.size());
+        for (File javaFile : javaFiles) {
+            javaFolderPaths.add(javaFile.getParent().toStringRelativeTo(sourceFolder));
+        }
+        computeBasePackage(javaFolderPaths);
+    }
+
+    /**
+     * Computes the base package from already listed java files, saving a walk of the source folder.
+     *
+     * @param javaSourcePaths paths of the java files relative to the source folder, using '/' as separator.
+     */
+    public BasePackage(Collection<String> javaSourcePaths) {
+        if (javaSourcePaths == null)
+            throw new WMRuntimeException("Java source paths are null");
+
+        List<String> javaFolderPaths = new ArrayList<>(javaSourcePaths.size());
+        for (String javaSourcePath : javaSourcePaths) {
+            // folder paths keep their trailing delimiter, as the relative paths of folders do
+            javaFolderPaths.add(javaSourcePath.substring(0, javaSourcePath.lastIndexOf('/') + 1));
+        }
+        computeBasePackage(javaFolderPaths);
     }
 
     public String getBasePackageName() {
@@ -52,7 +76,7 @@ public class BasePackage {
      *  i.e path from source folder to its parent folder) from source folder > 0
      *
      * -Algorithm working:
-     *  1. Find all java files
+     *  1. Take the folder paths of all java files
      *  2. If empty path does not exist
      *      1. Initialize longest common path & length of longest common path
      *      2. Iterates over the rest of the paths, update length of longest common path
@@ -69,17 +93,16 @@ public class BasePackage {
      *  6. Paths: org/wavemaker, com/wavemaker >> Output: null
      *
      */
-    private void computeBasePackage() {
-        List<File> javaFiles = sourceFolder.find().files().include(FilterOn.names().ending(".java")).fetchAll();
-        if (javaFiles.size() > 0){
-            boolean emptyPathExists = checkIfEmptyPathExists(javaFiles);
+    private void computeBasePackage(List<String> javaFolderPaths) {
+        if (javaFolderPaths.size() > 0){
+            boolean emptyPathExists = checkIfEmptyPathExists(javaFolderPaths);
 
             if(!emptyPathExists) {
-                String longestCommonPath = javaFiles.get(0).getParent().toStringRelativeTo(sourceFolder);
+                String longestCommonPath = javaFolderPaths.get(0);
                 int longestCommonPathLength = longestCommonPath.length();
 
-                for (int i = 1; i < javaFiles.size(); i++) {
-                    String currentPath = javaFiles.get(i).getParent().toStringRelativeTo(sourceFolder);
+                for (int i = 1; i < javaFolderPaths.size(); i++) {
+                    String currentPath = javaFolderPaths.get(i);
                     //Update longestCommonPathLength if common path between currentPath and longestCommonPathLength is less than longestCommonPathLength
                     longestCommonPathLength = getNewCommonPathLength(longestCommonPath, longestCommonPathLength, currentPath);
                 }
@@ -94,13 +117,13 @@ public class BasePackage {
         }
     }
 
-    private boolean checkIfEmptyPathExists(List<File> files){
+    private boolean checkIfEmptyPathExists(List<String> folderPaths){
         boolean emptyPathExists = false;
 
-        if (files.size() > 0){
-            for (int i=0; i<files.size(); i++){
+        if (folderPaths.size() > 0){
+            for (int i=0; i<folderPaths.size(); i++){
                 //Check if current folder of file is same as source folder
-                if(StringUtils.isBlank(files.get(i).getParent().toStringRelativeTo(sourceFolder))){
+                if(StringUtils.isBlank(folderPaths.get(i))){
                     emptyPathExists = true;
                     break;
                 }
@@ -131,7 +154,7 @@ public class BasePackage {
         }
 
         //Ignore last delimiter after folder name
-        if(longestCommonPath.charAt(newLongstComnPathLen-1)=='/'){
+        if(newLongstComnPathLen > 0 && longestCommonPath.charAt(newLongstComnPathLen-1)=='/'){
             newLongstComnPathLen = newLongstComnPathLen-1;
         }
 
@@ -20,4 +20,7 @@ package com.wavemaker.app.build.constants;
  */
 public class AppBuildConstants {
     public static final String PAGE_MIN_FILE = "page.min.html";
+    public static final String PAGE_MIN_INDEX_FILE = "page.min.html.idx";
+    public static final String ASSET_MANIFEST_FILE = "asset-manifest.json";
+    public static final String SERVICE_DEF_STORE_FILE = "app-service-definitions.bin";
 }
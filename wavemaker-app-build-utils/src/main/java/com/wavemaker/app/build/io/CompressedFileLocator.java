@@ -0,0 +1,28 @@
+/**
+ * Copyright © 2013 - 2017 WaveMaker, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wavemaker.app.build.io;
+
+/**
+ * Locates the compressed copy of a generated file, letting the copies be written into the build output rather than
+ * next to the generated files in the source tree.
+ */
+public interface CompressedFileLocator {
+
+    /**
+     * @return the compressed copy of the generated file, or null when the file is not to be compressed.
+     */
+    java.io.File getCompressedFile(java.io.File file);
+}
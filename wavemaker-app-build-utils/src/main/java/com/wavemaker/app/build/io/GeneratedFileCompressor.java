@@ -0,0 +1,243 @@
+/**
+ * Copyright © 2013 - 2017 WaveMaker, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wavemaker.app.build.io;
+
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+import com.wavemaker.commons.WMRuntimeException;
+import com.wavemaker.commons.util.IOUtils;
+
+/**
+ * Writes a gzip compressed copy of generated files, with the {@link #GZIP_EXTENSION} extension, so that static file
+ * handlers can serve them without compressing them on every request. The copies are written where the
+ * {@link CompressedFileLocator} locates them, next to the generated files by default. A compressed copy holding the
+ * current content of its file is left as it is, even when the file was rewritten, like the resource copies filtered on
+ * every build.
+ */
+public class GeneratedFileCompressor {
+
+    public static final String GZIP_EXTENSION = ".gz";
+    private static final String COMPRESSION_EXTENSION = ".tmp";
+    private static final int BUFFER_SIZE = 8192;
+    private static final int GZIP_TRAILER_SIZE = 8;
+
+    private final CompressedFileLocator compressedFileLocator;
+    private final AtomicInteger compressedCount = new AtomicInteger();
+    private final AtomicInteger skippedCount = new AtomicInteger();
+
+    /**
+     * Writes the compressed copies next to the generated files.
+     */
+    public GeneratedFileCompressor() {
+        this(new CompressedFileLocator() {
+            @Override
+            public java.io.File getCompressedFile(java.io.File file) {
+                return new java.io.File(file.getParentFile(), file.getName() + GZIP_EXTENSION);
+            }
+        });
+    }
+
+    public GeneratedFileCompressor(CompressedFileLocator compressedFileLocator) {
+        if (compressedFileLocator == null) {
+            throw new WMRuntimeException("Compressed file locator is null");
+        }
+        this.compressedFileLocator = compressedFileLocator;
+    }
+
+    /**
+     * Compresses the file at the maximum compression level, unless its compressed copy is up to date or it is not
+     * located. The compressed copy of a file which does not exist anymore is deleted.
+     *
+     * @return true when the compressed copy was written.
+     */
+    public boolean compress(java.io.File file) {
+        if (file == null) {
+            throw new WMRuntimeException("Generated file to compress is null");
+        }
+        java.io.File compressedFile = compressedFileLocator.getCompressedFile(file);
+        if (compressedFile == null) {
+            return false;
+        }
+        java.io.File compressionFile = new java.io.File(compressedFile.getParentFile(),
+                compressedFile.getName() + COMPRESSION_EXTENSION);
+        try {
+            if (!file.exists()) {
+                Files.deleteIfExists(compressedFile.toPath());
+                return false;
+            }
+            if (compressedFile.exists() && isCompressedCopy(compressedFile, file)) {
+                skippedCount.incrementAndGet();
+                return false;
+            }
+            Files.createDirectories(compressedFile.getParentFile().toPath());
+            gzip(file, compressionFile);
+            try {
+                Files.move(compressionFile.toPath(), compressedFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(compressionFile.toPath(), compressedFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            compressedCount.incrementAndGet();
+            return true;
+        } catch (IOException e) {
+            throw new WMRuntimeException("Failed to compress generated file " + file.getName(), e);
+        } finally {
+            compressionFile.delete();
+        }
+    }
+
+    /**
+     * Compresses the files using up to the given number of threads. A file failing does not stop the compression of
+     * the other files, the first failure is thrown once every file is done, with the other failures suppressed.
+     */
+    public void compress(Collection<java.io.File> files, int parallelism) {
+        if (parallelism < 1) {
+            throw new WMRuntimeException("Parallelism should be at least 1, found " + parallelism);
+        }
+        List<Throwable> failures = new ArrayList<>();
+        if (parallelism == 1 || files.size() < 2) {
+            for (java.io.File file : files) {
+                try {
+                    compress(file);
+                } catch (RuntimeException e) {
+                    failures.add(e);
+                }
+            }
+        } else {
+            ExecutorService executorService = Executors.newFixedThreadPool(Math.min(parallelism, files.size()));
+            try {
+                List<Future<?>> futures = new ArrayList<>(files.size());
+                for (final java.io.File file : files) {
+                    futures.add(executorService.submit(new Runnable() {
+                        @Override
+                        public void run() {
+                            compress(file);
+                        }
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    try {
+                        future.get();
+                    } catch (ExecutionException e) {
+                        failures.add(e.getCause());
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new WMRuntimeException("Interrupted while compressing generated files", e);
+            } finally {
+                executorService.shutdownNow();
+            }
+        }
+        if (!failures.isEmpty()) {
+            WMRuntimeException exception = new WMRuntimeException("Failed to compress " + failures.size() + " of "
+                    + files.size() + " generated files", failures.get(0));
+            for (Throwable failure : failures.subList(1, failures.size())) {
+                exception.addSuppressed(failure);
+            }
+            throw exception;
+        }
+    }
+
+    /**
+     * @return true when the compressed file holds the content of the file. The uncompressed size recorded at the end
+     * of the gzip file is compared first, so that most changed files are found without decompressing their copy.
+     */
+    private static boolean isCompressedCopy(java.io.File compressedFile, java.io.File file) throws IOException {
+        if (compressedFile.length() < GZIP_TRAILER_SIZE || readUncompressedSize(compressedFile) != (int) file.length()) {
+            return false;
+        }
+        InputStream inputStream = null;
+        InputStream compressedInputStream = null;
+        try {
+            inputStream = new FileInputStream(file);
+            compressedInputStream = new GZIPInputStream(new FileInputStream(compressedFile), BUFFER_SIZE);
+            return GeneratedFileWriter.contentEquals(inputStream, compressedInputStream);
+        } catch (ZipException | EOFException e) {
+            // a corrupt compressed copy is written again
+            return false;
+        } finally {
+            IOUtils.closeSilently(inputStream);
+            IOUtils.closeSilently(compressedInputStream);
+        }
+    }
+
+    /**
+     * @return the size of the uncompressed content modulo 2^32, stored in little endian order in the last 4 bytes.
+     */
+    private static int readUncompressedSize(java.io.File compressedFile) throws IOException {
+        RandomAccessFile randomAccessFile = null;
+        try {
+            randomAccessFile = new RandomAccessFile(compressedFile, "r");
+            randomAccessFile.seek(randomAccessFile.length() - 4);
+            return Integer.reverseBytes(randomAccessFile.readInt());
+        } finally {
+            IOUtils.closeSilently(randomAccessFile);
+        }
+    }
+
+    private static void gzip(java.io.File file, java.io.File compressedFile) throws IOException {
+        InputStream inputStream = null;
+        OutputStream outputStream = null;
+        try {
+            inputStream = new FileInputStream(file);
+            outputStream = new GZIPOutputStream(new FileOutputStream(compressedFile), BUFFER_SIZE) {
+                {
+                    def.setLevel(Deflater.BEST_COMPRESSION);
+                }
+            };
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = inputStream.read(buffer)) >= 0) {
+                outputStream.write(buffer, 0, read);
+            }
+            outputStream.close();
+            outputStream = null;
+        } finally {
+            IOUtils.closeSilently(inputStream);
+            IOUtils.closeSilently(outputStream);
+        }
+    }
+
+    public int getCompressedCount() {
+        return compressedCount.get();
+    }
+
+    public int getSkippedCount() {
+        return skippedCount.get();
+    }
+}
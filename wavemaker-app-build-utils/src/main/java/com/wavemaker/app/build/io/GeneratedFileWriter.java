@@ -0,0 +1,280 @@
+/**
+ * Copyright © 2013 - 2017 WaveMaker, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wavemaker.app.build.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.wavemaker.commons.WMRuntimeException;
+import com.wavemaker.commons.io.File;
+import com.wavemaker.commons.io.local.LocalFile;
+import com.wavemaker.commons.util.IOUtils;
+
+/**
+ * Writes generated files only when their content changed, so that unchanged files keep their last modified time and
+ * the tools watching them do not redo their work. Counts the files written and skipped, and can be shared by the
+ * generators of a build, from several threads.
+ */
+public class GeneratedFileWriter {
+
+    public static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int BUFFER_SIZE = 8192;
+    private static final String ASSEMBLY_EXTENSION = ".tmp";
+
+    private final AtomicInteger writtenCount = new AtomicInteger();
+    private final AtomicInteger skippedCount = new AtomicInteger();
+    private final Set<String> writtenPaths = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    /**
+     * Writes the content encoded in UTF-8 to the file, unless the file already has that content.
+     *
+     * @return true when the file was written.
+     */
+    public boolean write(File file, String content) {
+        if (content == null) {
+            throw new WMRuntimeException("Content to write to the generated file is null");
+        }
+        return write(file, content.getBytes(UTF_8));
+    }
+
+    /**
+     * Writes the content to the file, unless the file already has that content. The existing content is only read
+     * when the file has the same size.
+     *
+     * @return true when the file was written.
+     */
+    public boolean write(File file, byte[] content) {
+        if (file == null) {
+            throw new WMRuntimeException("Generated file is null");
+        }
+        if (content == null) {
+            throw new WMRuntimeException("Content to write to the generated file " + file.getName() + " is null");
+        }
+        if (file.exists() && file.getSize() == content.length && Arrays.equals(file.getContent().asBytes(), content)) {
+            skippedCount.incrementAndGet();
+            return false;
+        }
+        file.createIfMissing();
+        file.getContent().write(new ByteArrayInputStream(content));
+        if (file instanceof LocalFile) {
+            writtenPaths.add(getPath(((LocalFile) file).getLocalFile()));
+        }
+        writtenCount.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Replaces the file by the file holding its new content, written on the same file system for the move to be
+     * atomic, unless the file already has that content in which case the new content file is deleted. The files are
+     * compared a block at a time, so that large generated files are never held in memory.
+     *
+     * @return true when the file was replaced.
+     */
+    public boolean replace(java.io.File file, java.io.File newContentFile) {
+        try {
+            if (file.exists() && file.length() == newContentFile.length() && contentEquals(file, newContentFile)) {
+                Files.delete(newContentFile.toPath());
+                skippedCount.incrementAndGet();
+                return false;
+            }
+            move(newContentFile, file);
+            writtenPaths.add(getPath(file));
+            writtenCount.incrementAndGet();
+            return true;
+        } catch (IOException e) {
+            throw new WMRuntimeException("Failed to replace generated file " + file.getName(), e);
+        }
+    }
+
+    /**
+     * Replaces the bytes of the file between start, included, and end, excluded, by the content, unless they already
+     * are that content. Content of the same length as the range is written in place. Otherwise the file is assembled
+     * next to it from the bytes around the range and the content, and then replaces it, so that the file is never
+     * seen half written.
+     *
+     * @return true when the file was written.
+     */
+    public boolean splice(java.io.File file, long start, long end, byte[] content) {
+        FileChannel channel = null;
+        java.io.File assembledFile = null;
+        try {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long size = channel.size();
+            if (start < 0 || end < start || end > size) {
+                throw new WMRuntimeException("Invalid range [" + start + ", " + end + "] of generated file " + file.getName()
+                        + " of " + size + " bytes");
+            }
+            if (end - start == content.length) {
+                ByteBuffer existingContent = read(channel, start, content.length);
+                if (existingContent.equals(ByteBuffer.wrap(content))) {
+                    skippedCount.incrementAndGet();
+                    return false;
+                }
+                write(channel, start, ByteBuffer.wrap(content));
+            } else {
+                assembledFile = new java.io.File(file.getParentFile(), file.getName() + ASSEMBLY_EXTENSION);
+                assemble(channel, start, end, content, assembledFile);
+                channel.close();
+                move(assembledFile, file);
+            }
+            writtenPaths.add(getPath(file));
+            writtenCount.incrementAndGet();
+            return true;
+        } catch (IOException e) {
+            throw new WMRuntimeException("Failed to write generated file " + file.getName(), e);
+        } finally {
+            IOUtils.closeSilently(channel);
+            if (assembledFile != null) {
+                assembledFile.delete();
+            }
+        }
+    }
+
+    private static void assemble(FileChannel channel, long start, long end, byte[] content, java.io.File assembledFile)
+            throws IOException {
+        FileChannel assembledChannel = null;
+        try {
+            assembledChannel = FileChannel.open(assembledFile.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            transfer(channel, 0, start, assembledChannel);
+            write(assembledChannel, start, ByteBuffer.wrap(content));
+            assembledChannel.position(start + content.length);
+            transfer(channel, end, channel.size() - end, assembledChannel);
+        } finally {
+            IOUtils.closeSilently(assembledChannel);
+        }
+    }
+
+    private static void transfer(FileChannel channel, long position, long length, FileChannel targetChannel)
+            throws IOException {
+        long transferred = 0;
+        while (transferred < length) {
+            long count = channel.transferTo(position + transferred, length - transferred, targetChannel);
+            if (count <= 0) {
+                throw new IOException("Unexpected end of file while reading at " + (position + transferred));
+            }
+            transferred += count;
+        }
+    }
+
+    private static void move(java.io.File newContentFile, java.io.File file) throws IOException {
+        try {
+            Files.move(newContentFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(newContentFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of file while reading at " + position);
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static void write(FileChannel channel, long position, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    private static boolean contentEquals(java.io.File file, java.io.File otherFile) throws IOException {
+        InputStream inputStream = null;
+        InputStream otherInputStream = null;
+        try {
+            inputStream = new FileInputStream(file);
+            otherInputStream = new FileInputStream(otherFile);
+            return contentEquals(inputStream, otherInputStream);
+        } finally {
+            IOUtils.closeSilently(inputStream);
+            IOUtils.closeSilently(otherInputStream);
+        }
+    }
+
+    /**
+     * Compares the streams a block at a time, without closing them.
+     */
+    static boolean contentEquals(InputStream inputStream, InputStream otherInputStream) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        byte[] otherBuffer = new byte[BUFFER_SIZE];
+        while (true) {
+            int read = readFully(inputStream, buffer);
+            int otherRead = readFully(otherInputStream, otherBuffer);
+            if (read != otherRead) {
+                return false;
+            }
+            if (read == 0) {
+                return true;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer[i] != otherBuffer[i]) {
+                    return false;
+                }
+            }
+        }
+    }
+
+    private static int readFully(InputStream inputStream, byte[] buffer) throws IOException {
+        int length = 0;
+        while (length < buffer.length) {
+            int read = inputStream.read(buffer, length, buffer.length - length);
+            if (read < 0) {
+                break;
+            }
+            length += read;
+        }
+        return length;
+    }
+
+    /**
+     * @return true when the file was written by this writer, which tells it changed even when its size and last
+     * modified time did not.
+     */
+    public boolean isWritten(java.io.File file) {
+        return writtenPaths.contains(getPath(file));
+    }
+
+    private static String getPath(java.io.File file) {
+        return file.toPath().toAbsolutePath().normalize().toString();
+    }
+
+    public int getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    public int getSkippedCount() {
+        return skippedCount.get();
+    }
+}
@@ -0,0 +1,171 @@
+/**
+ * Copyright © 2013 - 2017 WaveMaker, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wavemaker.app.build.manifest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.wavemaker.app.build.io.GeneratedFileWriter;
+import com.wavemaker.commons.WMRuntimeException;
+import com.wavemaker.commons.io.File;
+import com.wavemaker.commons.json.JSONUtils;
+import com.wavemaker.commons.util.IOUtils;
+
+/**
+ * Content hashes of the generated assets of an app, by their logical name. Each asset records the hash and size of
+ * its content and a fingerprinted file name holding part of the hash, so that the runtime can serve the assets with
+ * strong ETags and cache them indefinitely under their fingerprinted name, without hashing them on every request.
+ * Assets can be added from several threads.
+ */
+public class AssetManifest {
+
+    private static final int FINGERPRINT_LENGTH = 16;
+    private static final String HASH = "hash";
+    private static final String SIZE = "size";
+    private static final String FINGERPRINTED_NAME = "fingerprintedName";
+    private static final Logger logger = LoggerFactory.getLogger(AssetManifest.class);
+
+    private final Map<String, Asset> assets = new ConcurrentHashMap<>();
+
+    /**
+     * Hashes the content of the file and records it under the logical name, replacing any asset of that name.
+     */
+    public Asset addAsset(String logicalName, java.io.File file) {
+        if (logicalName == null) {
+            throw new WMRuntimeException("Logical name of the asset is null");
+        }
+        InputStream inputStream = null;
+        try {
+            inputStream = new FileInputStream(file);
+            String hash = new ContentDigest().update(inputStream).getHash();
+            Asset asset = new Asset(hash, file.length(), getFingerprintedName(file.getName(), hash));
+            assets.put(logicalName, asset);
+            return asset;
+        } catch (IOException e) {
+            throw new WMRuntimeException("Failed to compute hash of asset " + logicalName, e);
+        } finally {
+            IOUtils.closeSilently(inputStream);
+        }
+    }
+
+    /**
+     * Records the asset under the logical name, replacing any asset of that name, like an asset of the previous
+     * manifest whose file is unchanged.
+     */
+    public void putAsset(String logicalName, Asset asset) {
+        if (logicalName == null) {
+            throw new WMRuntimeException("Logical name of the asset is null");
+        }
+        if (asset == null) {
+            throw new WMRuntimeException("Asset " + logicalName + " is null");
+        }
+        assets.put(logicalName, asset);
+    }
+
+    public Asset getAsset(String logicalName) {
+        return assets.get(logicalName);
+    }
+
+    /**
+     * @return the assets sorted by logical name.
+     */
+    public Map<String, Asset> getAssets() {
+        return new TreeMap<>(assets);
+    }
+
+    /**
+     * Writes the assets sorted by logical name to the manifest file in JSON, unless it is unchanged.
+     */
+    public void write(File manifestFile, GeneratedFileWriter generatedFileWriter) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try {
+            JSONUtils.toJSON(outputStream, getAssets(), true);
+        } catch (IOException e) {
+            throw new WMRuntimeException("Failed to write asset manifest " + manifestFile.getName(), e);
+        }
+        generatedFileWriter.write(manifestFile, outputStream.toByteArray());
+    }
+
+    /**
+     * @return the assets of the manifest file, an empty manifest when it does not exist or can not be read.
+     */
+    public static AssetManifest read(java.io.File manifestFile) {
+        AssetManifest assetManifest = new AssetManifest();
+        if (!manifestFile.exists()) {
+            return assetManifest;
+        }
+        try {
+            Map<?, ?> assets = JSONUtils.toObject(manifestFile, Map.class);
+            for (Map.Entry<?, ?> entry : assets.entrySet()) {
+                Map<?, ?> asset = (Map<?, ?>) entry.getValue();
+                if (asset.get(HASH) == null || asset.get(FINGERPRINTED_NAME) == null) {
+                    throw new WMRuntimeException("Incomplete asset " + entry.getKey());
+                }
+                assetManifest.putAsset((String) entry.getKey(), new Asset((String) asset.get(HASH),
+                        ((Number) asset.get(SIZE)).longValue(), (String) asset.get(FINGERPRINTED_NAME)));
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to read asset manifest {}, all assets will be hashed", manifestFile, e);
+            return new AssetManifest();
+        }
+        return assetManifest;
+    }
+
+    /**
+     * Inserts the start of the hash before the last extension of the file name, page.min.html becoming
+     * page.min.&lt;hash&gt;.html.
+     */
+    public static String getFingerprintedName(String fileName, String hash) {
+        String fingerprint = hash.substring(0, Math.min(FINGERPRINT_LENGTH, hash.length()));
+        int extensionIndex = fileName.lastIndexOf('.');
+        if (extensionIndex <= 0) {
+            return fileName + "." + fingerprint;
+        }
+        return fileName.substring(0, extensionIndex) + "." + fingerprint + fileName.substring(extensionIndex);
+    }
+
+    public static class Asset {
+        private final String hash;
+        private final long size;
+        private final String fingerprintedName;
+
+        public Asset(String hash, long size, String fingerprintedName) {
+            this.hash = hash;
+            this.size = size;
+            this.fingerprintedName = fingerprintedName;
+        }
+
+        public String getHash() {
+            return hash;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public String getFingerprintedName() {
+            return fingerprintedName;
+        }
+    }
+}
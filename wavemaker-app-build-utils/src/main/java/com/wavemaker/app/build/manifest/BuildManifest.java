@@ -0,0 +1,162 @@
+/**
+ * Copyright © 2013 - 2017 WaveMaker, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wavemaker.app.build.manifest;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.wavemaker.commons.WMRuntimeException;
+import com.wavemaker.commons.util.IOUtils;
+
+/**
+ * Persistent record of the content hashes of the inputs processed by the previous successful build.
+ *
+ * Hashes read from the manifest file are kept separate from the hashes recorded during the current build, so any
+ * number of handlers can ask whether the same unit was modified. The recorded hashes only replace the persisted ones
+ * when {@link #save()} is called, which should happen once the whole build has succeeded.
+ *
+ * The generated files depend on the generator as much as on the inputs, so the hashes recorded by another version of
+ * the generator are all discarded, see {@link #isGeneratorModified(String)}.
+ */
+public class BuildManifest {
+
+    public static final String PAGE_PREFIX = "page:";
+    public static final String SERVICE_PREFIX = "service:";
+    public static final String VARIABLES_PREFIX = "variables:";
+    public static final String CLASS_PATH_KEY = "classpath";
+    public static final String GENERATOR_KEY = "generator";
+
+    private static final Logger logger = LoggerFactory.getLogger(BuildManifest.class);
+
+    private final java.io.File manifestFile;
+    private final Map<String, String> previousHashes = new ConcurrentHashMap<>();
+    private final Map<String, String> currentHashes = new ConcurrentHashMap<>();
+
+    public BuildManifest(java.io.File manifestFile) {
+        if (manifestFile == null) {
+            throw new WMRuntimeException("Build manifest file is null");
+        }
+        this.manifestFile = manifestFile;
+        load();
+    }
+
+    /**
+     * Records the hash of the given unit for the current build and tells whether it differs from the hash recorded by
+     * the previous build. Units unknown to the previous build are always reported as modified.
+     */
+    public boolean isModified(String key, String hash) {
+        currentHashes.put(key, hash);
+        return !hash.equals(previousHashes.get(key));
+    }
+
+    /**
+     * Records the version of the generator of the current build and, when the previous build was made by another
+     * version, forgets all the hashes it recorded so that every unit is reported as modified.
+     *
+     * @return true when the hashes of a previous build were discarded.
+     */
+    public boolean isGeneratorModified(String generatorVersion) {
+        if (generatorVersion == null) {
+            throw new WMRuntimeException("Generator version is null");
+        }
+        boolean modified = isModified(GENERATOR_KEY, generatorVersion) && !previousHashes.isEmpty();
+        if (modified) {
+            previousHashes.clear();
+        }
+        return modified;
+    }
+
+    public String getCurrentHash(String key) {
+        return currentHashes.get(key);
+    }
+
+    /**
+     * Returns the keys with the given prefix that were recorded by the previous build but not by the current one,
+     * i.e. the units that were removed since the previous build.
+     */
+    public Set<String> getRemovedKeys(String prefix) {
+        Set<String> removedKeys = new TreeSet<>();
+        for (String key : previousHashes.keySet()) {
+            if (key.startsWith(prefix) && !currentHashes.containsKey(key)) {
+                removedKeys.add(key);
+            }
+        }
+        return removedKeys;
+    }
+
+    /**
+     * Forgets the hashes recorded by the previous build for the keys with the given prefix, so that their units are
+     * reported as modified in the current build.
+     */
+    public void invalidate(String prefix) {
+        for (String key : previousHashes.keySet()) {
+            if (key.startsWith(prefix)) {
+                previousHashes.remove(key);
+            }
+        }
+    }
+
+    public void save() {
+        Properties properties = new Properties();
+        properties.putAll(currentHashes);
+        OutputStream outputStream = null;
+        try {
+            java.io.File parentFile = manifestFile.getParentFile();
+            if (parentFile != null && !parentFile.exists() && !parentFile.mkdirs()) {
+                throw new IOException("Failed to create folder " + parentFile);
+            }
+            outputStream = new FileOutputStream(manifestFile);
+            properties.store(outputStream, "WaveMaker app build manifest");
+        } catch (IOException e) {
+            throw new WMRuntimeException("Failed to save build manifest " + manifestFile, e);
+        } finally {
+            IOUtils.closeSilently(outputStream);
+        }
+        previousHashes.clear();
+        previousHashes.putAll(currentHashes);
+    }
+
+    private void load() {
+        if (!manifestFile.exists()) {
+            return;
+        }
+        Properties properties = new Properties();
+        InputStream inputStream = null;
+        try {
+            inputStream = new FileInputStream(manifestFile);
+            properties.load(inputStream);
+            for (String key : properties.stringPropertyNames()) {
+                previousHashes.put(key, properties.getProperty(key));
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to read build manifest {}, all inputs will be processed", manifestFile, e);
+            previousHashes.clear();
+        } finally {
+            IOUtils.closeSilently(inputStream);
+        }
+    }
+}
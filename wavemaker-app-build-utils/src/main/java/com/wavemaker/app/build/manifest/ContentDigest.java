@@ -0,0 +1,115 @@
+/**
+ * Copyright © 2013 - 2017 WaveMaker, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wavemaker.app.build.manifest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.wavemaker.commons.WMRuntimeException;
+import com.wavemaker.commons.io.File;
+import com.wavemaker.commons.io.Folder;
+import com.wavemaker.commons.util.IOUtils;
+
+/**
+ * Computes a SHA-1 digest over a set of build inputs. Files are digested along with their path relative to a base
+ * folder, in path order, so that the resulting hash is independent of the order in which the files were listed.
+ */
+public class ContentDigest {
+
+    private static final String ALGORITHM = "SHA-1";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private static final int BUFFER_SIZE = 8192;
+
+    private final MessageDigest messageDigest;
+
+    public ContentDigest() {
+        try {
+            messageDigest = MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new WMRuntimeException(ALGORITHM + " digest is not supported", e);
+        }
+    }
+
+    public ContentDigest update(String value) {
+        messageDigest.update(value.getBytes(UTF_8));
+        messageDigest.update((byte) 0);
+        return this;
+    }
+
+    public ContentDigest update(byte[] bytes) {
+        messageDigest.update(bytes);
+        return this;
+    }
+
+    /**
+     * Digests the remaining bytes of the stream, the stream is not closed.
+     */
+    public ContentDigest update(InputStream inputStream) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+            messageDigest.update(buffer, 0, read);
+        }
+        return this;
+    }
+
+    public ContentDigest update(File file) {
+        InputStream inputStream = null;
+        try {
+            inputStream = file.getContent().asInputStream();
+            update(inputStream);
+        } catch (IOException e) {
+            throw new WMRuntimeException("Failed to compute digest of file " + file.getName(), e);
+        } finally {
+            IOUtils.closeSilently(inputStream);
+        }
+        return this;
+    }
+
+    /**
+     * Digests the given files along with their paths relative to the base folder.
+     */
+    public ContentDigest update(Folder baseFolder, Iterable<File> files) {
+        Map<String, File> sortedFiles = new TreeMap<>();
+        for (File file : files) {
+            sortedFiles.put(file.toStringRelativeTo(baseFolder), file);
+        }
+        for (Map.Entry<String, File> entry : sortedFiles.entrySet()) {
+            update(entry.getKey());
+            update(entry.getValue());
+        }
+        return this;
+    }
+
+    public String getHash() {
+        return toHex(messageDigest.digest());
+    }
+
+    public static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,111 @@
+/**
+ * Copyright © 2013 - 2017 WaveMaker, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wavemaker.app.build.pages;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+
+/**
+ * Removes the comments of a style sheet, except the ones starting with {@code /*!}, and its whitespace where it does not
+ * separate tokens. Whitespace between selectors and values is collapsed to a single space, strings are kept as they
+ * are.
+ */
+public class CssMinifier implements PageMinifier {
+
+    // characters after which whitespace is dropped, whitespace before ':' separates descendant pseudo class selectors
+    private static final String NO_SPACE_AFTER = "{};,>(:";
+    private static final String NO_SPACE_BEFORE = "{};,>)!";
+
+    @Override
+    public void minify(Reader reader, Writer writer) throws IOException {
+        MinifierInput input = new MinifierInput(reader);
+        int last = -1;
+        boolean pendingSpace = false;
+        int c;
+        while ((c = input.read()) >= 0) {
+            if (c == '/' && input.peek() == '*') {
+                input.read();
+                if (input.peek() == '!') {
+                    writeSpace(writer, last, '/', pendingSpace);
+                    writer.write("/*");
+                    copyComment(input, writer);
+                    last = '/';
+                    pendingSpace = false;
+                } else {
+                    skipComment(input);
+                    pendingSpace = true;
+                }
+            } else if (Character.isWhitespace(c)) {
+                pendingSpace = true;
+            } else if (c == '"' || c == '\'') {
+                writeSpace(writer, last, c, pendingSpace);
+                copyString(input, writer, c);
+                last = c;
+                pendingSpace = false;
+            } else {
+                writeSpace(writer, last, c, pendingSpace);
+                writer.write(c);
+                last = c;
+                pendingSpace = false;
+            }
+        }
+    }
+
+    private static void writeSpace(Writer writer, int last, int next, boolean pendingSpace) throws IOException {
+        if (pendingSpace && last >= 0 && NO_SPACE_AFTER.indexOf(last) < 0 && NO_SPACE_BEFORE.indexOf(next) < 0) {
+            writer.write(' ');
+        }
+    }
+
+    private static void skipComment(MinifierInput input) throws IOException {
+        int c;
+        while ((c = input.read()) >= 0) {
+            if (c == '*' && input.peek() == '/') {
+                input.read();
+                return;
+            }
+        }
+    }
+
+    private static void copyComment(MinifierInput input, Writer writer) throws IOException {
+        int c;
+        while ((c = input.read()) >= 0) {
+            writer.write(c);
+            if (c == '*' && input.peek() == '/') {
+                writer.write(input.read());
+                return;
+            }
+        }
+    }
+
+    private static void copyString(MinifierInput input, Writer writer, int quote) throws IOException {
+        writer.write(quote);
+        int c;
+        while ((c = input.read()) >= 0) {
+            writer.write(c);
+            if (c == '\\') {
+                int escaped = input.read();
+                if (escaped < 0) {
+                    return;
+                }
+                writer.write(escaped);
+            } else if (c == quote) {
+                return;
+            }
+        }
+    }
+}
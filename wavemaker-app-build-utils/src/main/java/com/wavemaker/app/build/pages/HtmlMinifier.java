@@ -0,0 +1,223 @@
+/**
+ * Copyright © 2013 - 2017 WaveMaker, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wavemaker.app.build.pages;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Collapses the whitespace of a template to a single space, in the text as well as between the attributes of the
+ * tags, which browsers render the same. Attribute values, comments, AngularJS interpolations like {@code {{'a  b'}}},
+ * whose string literals would change value, and the content of the elements whose whitespace is significant, like
+ * {@code pre} and {@code textarea}, are kept as they are.
+ */
+public class HtmlMinifier implements PageMinifier {
+
+    private static final Set<String> RAW_ELEMENTS = new HashSet<>(Arrays.asList("pre", "textarea", "script", "style"));
+
+    @Override
+    public void minify(Reader reader, Writer writer) throws IOException {
+        new Minification(new MinifierInput(reader), writer).run();
+    }
+
+    private static boolean isTagNamePart(int c) {
+        return c >= 0 && (Character.isLetterOrDigit(c) || c == '-' || c == ':' || c == '_');
+    }
+
+    private static class Minification {
+        private final MinifierInput input;
+        private final Writer writer;
+        private boolean started;
+        private boolean pendingSpace;
+
+        private Minification(MinifierInput input, Writer writer) {
+            this.input = input;
+            this.writer = writer;
+        }
+
+        private void run() throws IOException {
+            int c;
+            while ((c = input.read()) >= 0) {
+                if (Character.isWhitespace(c)) {
+                    pendingSpace = true;
+                    continue;
+                }
+                writePendingSpace();
+                if (c == '<' && input.peek() == '!') {
+                    copyMarkup();
+                } else if (c == '<' && (input.peek() == '/' || Character.isLetter(input.peek()))) {
+                    String tagName = copyTag();
+                    if (tagName != null) {
+                        copyRawContent(tagName);
+                    }
+                } else if (c == '{' && input.peek() == '{') {
+                    copyInterpolation();
+                } else {
+                    writer.write(c);
+                }
+            }
+        }
+
+        private void writePendingSpace() throws IOException {
+            if (pendingSpace && started) {
+                writer.write(' ');
+            }
+            pendingSpace = false;
+            started = true;
+        }
+
+        /**
+         * Copies a comment, or a declaration like the doctype, as it is.
+         */
+        private void copyMarkup() throws IOException {
+            writer.write('<');
+            writer.write(input.read());
+            boolean comment = false;
+            if (input.peek() == '-') {
+                writer.write(input.read());
+                comment = input.peek() == '-';
+            }
+            int dashes = 0;
+            int c;
+            while ((c = input.read()) >= 0) {
+                writer.write(c);
+                if (c == '>' && (!comment || dashes >= 2)) {
+                    return;
+                }
+                dashes = c == '-' ? dashes + 1 : 0;
+            }
+        }
+
+        /**
+         * Copies an interpolation as it is, up to its closing braces.
+         */
+        private void copyInterpolation() throws IOException {
+            writer.write('{');
+            writer.write(input.read());
+            int c;
+            while ((c = input.read()) >= 0) {
+                writer.write(c);
+                if (c == '}' && input.peek() == '}') {
+                    writer.write(input.read());
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Copies a start or end tag, collapsing the whitespace between its attributes.
+         *
+         * @return the name of the element when this is the start tag of an element whose content is kept as it is.
+         */
+        private String copyTag() throws IOException {
+            writer.write('<');
+            boolean endTag = input.peek() == '/';
+            if (endTag) {
+                writer.write(input.read());
+            }
+            StringBuilder tagName = new StringBuilder();
+            while (isTagNamePart(input.peek())) {
+                int c = input.read();
+                tagName.append((char) c);
+                writer.write(c);
+            }
+            boolean space = false;
+            boolean selfClosing = false;
+            boolean valueExpected = false;
+            // a '/' ending an unquoted attribute value is part of the value, it does not close the tag
+            boolean unquotedValue = false;
+            int c;
+            while ((c = input.read()) >= 0) {
+                if (Character.isWhitespace(c)) {
+                    space = true;
+                    unquotedValue = false;
+                    continue;
+                }
+                if (space && c != '>') {
+                    writer.write(' ');
+                }
+                space = false;
+                writer.write(c);
+                if (c == '>') {
+                    break;
+                }
+                if (valueExpected && c != '"' && c != '\'') {
+                    unquotedValue = true;
+                }
+                valueExpected = !unquotedValue && c == '=';
+                if (!unquotedValue && (c == '"' || c == '\'')) {
+                    copyAttributeValue(c);
+                }
+                selfClosing = c == '/' && !unquotedValue;
+            }
+            String name = tagName.toString().toLowerCase(Locale.ROOT);
+            return !endTag && !selfClosing && RAW_ELEMENTS.contains(name) ? name : null;
+        }
+
+        private void copyAttributeValue(int quote) throws IOException {
+            int c;
+            while ((c = input.read()) >= 0) {
+                writer.write(c);
+                if (c == quote) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Copies the content of the element as it is, up to its end tag which is copied like any other tag.
+         */
+        private void copyRawContent(String tagName) throws IOException {
+            int c;
+            while ((c = input.read()) >= 0) {
+                if (c == '<' && input.peek() == '/') {
+                    input.read();
+                    StringBuilder endTagName = new StringBuilder();
+                    while (isTagNamePart(input.peek()) && endTagName.length() <= tagName.length()) {
+                        endTagName.append((char) input.read());
+                    }
+                    if (tagName.equalsIgnoreCase(endTagName.toString())) {
+                        writer.write("</");
+                        writer.write(endTagName.toString());
+                        copyTagRemainder();
+                        return;
+                    }
+                    writer.write("</");
+                    writer.write(endTagName.toString());
+                } else {
+                    writer.write(c);
+                }
+            }
+        }
+
+        private void copyTagRemainder() throws IOException {
+            int c;
+            while ((c = input.read()) >= 0) {
+                if (!Character.isWhitespace(c)) {
+                    writer.write(c);
+                }
+                if (c == '>') {
+                    return;
+                }
+            }
+        }
+    }
+}
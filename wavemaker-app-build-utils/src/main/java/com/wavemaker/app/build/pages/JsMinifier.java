@@ -0,0 +1,290 @@
+/**
+ * Copyright © 2013 - 2017 WaveMaker, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wavemaker.app.build.pages;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Removes the comments of a script, except the ones starting with {@code /*!}, and its whitespace where it does not
+ * separate tokens. Names are never changed, keeping the parameter names AngularJS injects dependencies by, and strings,
+ * template literals and regular expressions are kept as they are. A line break is kept wherever the script had one,
+ * unless it follows a character after which no semicolon can be inserted, so that automatic semicolon insertion is
+ * not affected.
+ */
+public class JsMinifier implements PageMinifier {
+
+    // characters after which a line break never ends a statement
+    private static final String NO_LINE_BREAK_AFTER = "{;,([=:?";
+    // characters after which a '/' starts a regular expression rather than a division, '+' and '-' unless doubled
+    private static final String REGEX_AFTER = "(,=:[!&|?{;+-*%<>~^";
+    private static final Set<String> REGEX_AFTER_KEYWORDS = new HashSet<>(Arrays.asList("return", "typeof",
+            "instanceof", "in", "of", "new", "delete", "void", "throw", "case", "do", "else", "yield", "await"));
+    // keywords whose parenthesized condition may be followed by a statement starting with a regular expression
+    private static final Set<String> CONDITION_KEYWORDS = new HashSet<>(Arrays.asList("if", "while", "for", "with"));
+
+    @Override
+    public void minify(Reader reader, Writer writer) throws IOException {
+        new Minification(new MinifierInput(reader), writer).run();
+    }
+
+    private static boolean isIdentifierPart(int c) {
+        return c >= 0 && (Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '\\' || c > 0x7f);
+    }
+
+    private static boolean isLineBreak(int c) {
+        return c == '\n' || c == '\r' || c == '\u2028' || c == '\u2029';
+    }
+
+    private static class Minification {
+        private final MinifierInput input;
+        private final Writer writer;
+        private final StringBuilder lastWord = new StringBuilder();
+        // for each open parenthesis, whether it holds the condition of a statement
+        private final Deque<Boolean> openParentheses = new ArrayDeque<>();
+        private int last = -1;
+        // the character written right before the last one, -1 when they were separated by whitespace
+        private int beforeLast = -1;
+        private boolean conditionClosed;
+        private boolean pendingSpace;
+        private boolean pendingLineBreak;
+
+        private Minification(MinifierInput input, Writer writer) {
+            this.input = input;
+            this.writer = writer;
+        }
+
+        private void run() throws IOException {
+            int c;
+            while ((c = input.read()) >= 0) {
+                if (c == '/' && input.peek() == '/') {
+                    skipLineComment();
+                } else if (c == '/' && input.peek() == '*') {
+                    input.read();
+                    if (input.peek() == '!') {
+                        writeSeparator('/');
+                        writer.write("/*");
+                        copyComment();
+                        setLast('/');
+                    } else {
+                        skipComment();
+                    }
+                } else if (isLineBreak(c)) {
+                    pendingLineBreak = true;
+                } else if (Character.isWhitespace(c)) {
+                    pendingSpace = true;
+                } else if (c == '"' || c == '\'') {
+                    writeSeparator(c);
+                    copyString(c);
+                    setLast(c);
+                } else if (c == '`') {
+                    writeSeparator(c);
+                    copyTemplate();
+                    setLast(c);
+                } else if (c == '/' && isRegexAllowed()) {
+                    writeSeparator(c);
+                    copyRegex();
+                    setLast(c);
+                } else {
+                    writeSeparator(c);
+                    writer.write(c);
+                    trackParentheses(c);
+                    setLast(c);
+                }
+            }
+        }
+
+        private void trackParentheses(int c) {
+            if (c == '(') {
+                openParentheses.push(isIdentifierPart(last) && CONDITION_KEYWORDS.contains(lastWord.toString()));
+            } else if (c == ')') {
+                conditionClosed = !openParentheses.isEmpty() && openParentheses.pop();
+                return;
+            }
+            conditionClosed = false;
+        }
+
+        private void setLast(int c) {
+            if (!isIdentifierPart(c)) {
+                lastWord.setLength(0);
+            } else if (!isIdentifierPart(last)) {
+                lastWord.setLength(0);
+                lastWord.append((char) c);
+            } else {
+                lastWord.append((char) c);
+            }
+            beforeLast = pendingSpace || pendingLineBreak ? -1 : last;
+            last = c;
+            pendingSpace = false;
+            pendingLineBreak = false;
+        }
+
+        /**
+         * @return true when a '/' starts a regular expression. It is a division after an operand, including a postfix
+         * increment or decrement, a closing brace and a parenthesis not closing the condition of a statement.
+         */
+        private boolean isRegexAllowed() {
+            if (last == ')') {
+                return conditionClosed;
+            }
+            if ((last == '+' || last == '-') && beforeLast == last) {
+                return false;
+            }
+            return last < 0 || REGEX_AFTER.indexOf(last) >= 0
+                    || (isIdentifierPart(last) && REGEX_AFTER_KEYWORDS.contains(lastWord.toString()));
+        }
+
+        private void writeSeparator(int next) throws IOException {
+            if (last < 0) {
+                return;
+            }
+            if (pendingLineBreak && NO_LINE_BREAK_AFTER.indexOf(last) < 0) {
+                writer.write('\n');
+            } else if ((pendingSpace || pendingLineBreak) && needsSpace(next)) {
+                writer.write(' ');
+            }
+        }
+
+        /**
+         * @return true when the last and next characters would otherwise be read as a different token.
+         */
+        private boolean needsSpace(int next) {
+            return (isIdentifierPart(last) && isIdentifierPart(next))
+                    || ((last == '+' || last == '-') && next == last)
+                    || (last == '/' && (next == '/' || next == '*'))
+                    || (Character.isDigit(last) && next == '.');
+        }
+
+        private void skipLineComment() throws IOException {
+            int c;
+            while ((c = input.peek()) >= 0 && !isLineBreak(c)) {
+                input.read();
+            }
+        }
+
+        private void skipComment() throws IOException {
+            int c;
+            while ((c = input.read()) >= 0) {
+                if (isLineBreak(c)) {
+                    pendingLineBreak = true;
+                } else if (c == '*' && input.peek() == '/') {
+                    input.read();
+                    break;
+                }
+            }
+            pendingSpace = true;
+        }
+
+        private void copyComment() throws IOException {
+            int c;
+            while ((c = input.read()) >= 0) {
+                writer.write(c);
+                if (c == '*' && input.peek() == '/') {
+                    writer.write(input.read());
+                    return;
+                }
+            }
+        }
+
+        private void copyString(int quote) throws IOException {
+            writer.write(quote);
+            int c;
+            while ((c = input.read()) >= 0) {
+                writer.write(c);
+                if (c == '\\') {
+                    int escaped = input.read();
+                    if (escaped < 0) {
+                        return;
+                    }
+                    writer.write(escaped);
+                } else if (c == quote || isLineBreak(c)) {
+                    return;
+                }
+            }
+        }
+
+        private void copyTemplate() throws IOException {
+            writer.write('`');
+            int c;
+            while ((c = input.read()) >= 0) {
+                writer.write(c);
+                if (c == '\\') {
+                    int escaped = input.read();
+                    if (escaped < 0) {
+                        return;
+                    }
+                    writer.write(escaped);
+                } else if (c == '`') {
+                    return;
+                } else if (c == '$' && input.peek() == '{') {
+                    writer.write(input.read());
+                    copyTemplateSubstitution();
+                }
+            }
+        }
+
+        /**
+         * Copies the expression of a template literal substitution as it is, up to its closing brace, skipping the
+         * braces of the strings and template literals it holds.
+         */
+        private void copyTemplateSubstitution() throws IOException {
+            int depth = 1;
+            int c;
+            while ((c = input.read()) >= 0) {
+                if (c == '"' || c == '\'') {
+                    copyString(c);
+                } else if (c == '`') {
+                    copyTemplate();
+                } else {
+                    writer.write(c);
+                    if (c == '{') {
+                        depth++;
+                    } else if (c == '}' && --depth == 0) {
+                        return;
+                    }
+                }
+            }
+        }
+
+        private void copyRegex() throws IOException {
+            writer.write('/');
+            boolean inClass = false;
+            int c;
+            while ((c = input.read()) >= 0) {
+                writer.write(c);
+                if (c == '\\') {
+                    int escaped = input.read();
+                    if (escaped < 0) {
+                        return;
+                    }
+                    writer.write(escaped);
+                } else if (c == '[') {
+                    inClass = true;
+                } else if (c == ']') {
+                    inClass = false;
+                } else if ((c == '/' && !inClass) || isLineBreak(c)) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/**
+ * Copyright © 2013 - 2017 WaveMaker, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wavemaker.app.build.pages;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+
+/**
+ * Removes the whitespace outside of the strings of a JSON document, giving the same document as its compact
+ * serialization without parsing it. Content which is not valid JSON is not rejected, whitespace separating two literals
+ * is kept as a single space.
+ */
+public class JsonMinifier implements PageMinifier {
+
+    @Override
+    public void minify(Reader reader, Writer writer) throws IOException {
+        MinifierInput input = new MinifierInput(reader);
+        int last = -1;
+        boolean pendingSpace = false;
+        int c;
+        while ((c = input.read()) >= 0) {
+            if (Character.isWhitespace(c)) {
+                pendingSpace = true;
+                continue;
+            }
+            if (pendingSpace && isLiteralPart(last) && isLiteralPart(c)) {
+                writer.write(' ');
+            }
+            pendingSpace = false;
+            last = c;
+            if (c == '"') {
+                writer.write(c);
+                while ((c = input.read()) >= 0) {
+                    writer.write(c);
+                    if (c == '\\') {
+                        int escaped = input.read();
+                        if (escaped < 0) {
+                            return;
+                        }
+                        writer.write(escaped);
+                    } else if (c == '"') {
+                        break;
+                    }
+                }
+            } else {
+                writer.write(c);
+            }
+        }
+    }
+
+    private static boolean isLiteralPart(int c) {
+        return c >= 0 && (Character.isLetterOrDigit(c) || c == '.' || c == '-' || c == '+');
+    }
+}
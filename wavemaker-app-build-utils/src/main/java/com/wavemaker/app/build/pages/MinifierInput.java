@@ -0,0 +1,55 @@
+/**
+ * Copyright © 2013 - 2017 WaveMaker, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wavemaker.app.build.pages;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reader of the characters to minify, with a look ahead of one character.
+ */
+class MinifierInput {
+    private static final int NONE = -2;
+
+    private final Reader reader;
+    private int peeked = NONE;
+
+    MinifierInput(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * @return the next character, or -1 at the end of the input.
+     */
+    int read() throws IOException {
+        if (peeked != NONE) {
+            int c = peeked;
+            peeked = NONE;
+            return c;
+        }
+        return reader.read();
+    }
+
+    /**
+     * @return the next character without consuming it, or -1 at the end of the input.
+     */
+    int peek() throws IOException {
+        if (peeked == NONE) {
+            peeked = reader.read();
+        }
+        return peeked;
+    }
+}
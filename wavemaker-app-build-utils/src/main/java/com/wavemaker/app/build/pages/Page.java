@@ -15,9 +15,25 @@
  */
 package com.wavemaker.app.build.pages;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.apache.commons.lang3.StringUtils;
 
@@ -25,6 +41,7 @@ import com.wavemaker.commons.WMRuntimeException;
 import com.wavemaker.commons.io.File;
 import com.wavemaker.commons.io.Folder;
 import com.wavemaker.commons.io.local.LocalFile;
+import com.wavemaker.commons.util.IOUtils;
 import com.wavemaker.commons.util.SystemUtils;
 import com.wavemaker.commons.util.WMFileUtils;
 
@@ -37,46 +54,59 @@ public enum Page {
             "{Content}",
             "<style id=\"{PageName}.css\">",
             "</style>",
-            ""),
+            "",
+            new CssMinifier()),
     JS(
             "js",
             "{Content}",
             "<script id=\"{PageName}.js\">",
             "</script>",
-            ""),
+            "",
+            new JsMinifier()),
     JSON(
             "variables.json",
             "var _{PageName}Page_Variables_ ={Content}",
             "<script id=\"{PageName}.variables.json\">",
             "</script>",
-            "{}"),
+            "{}",
+            new JsonMinifier()),
     HTML(
             "html",
             "{Content}",
             "<script id=\"{PageName}.html\" type=\"text/ng-template\">",
             "</script>",
-            "");
+            "",
+            new HtmlMinifier());
 
-    private static final Pattern PAGE_NAME_PATTERN = Pattern.compile("\\{PageName\\}");
-    private static final Pattern CONTENT_PATTERN = Pattern.compile("\\{Content\\}");
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    // bytes read at a time when looking for the first and last non blank bytes of a page file
+    private static final int EDGE_BUFFER_SIZE = 512;
 
-    private String fileSuffix;
-    private String contentTemplate;
-    private String startElement;
+    private Template startElement;
     private String endElement;
+    private Template contentTemplate;
+    private String fileSuffix;
     private String defaultContent;
+    private PageMinifier minifier;
 
-    Page(String fileSuffix, String contentTemplate, String startElement, String endElement, String defaultContent) {
+    Page(String fileSuffix, String contentTemplate, String startElement, String endElement, String defaultContent,
+         PageMinifier minifier) {
         this.fileSuffix = fileSuffix;
-        this.contentTemplate = contentTemplate;
-        this.startElement = startElement;
+        this.contentTemplate = new Template(contentTemplate);
+        this.startElement = new Template(startElement);
         this.endElement = endElement;
         this.defaultContent = defaultContent;
+        this.minifier = minifier;
+    }
+
+    public PageMinifier getMinifier() {
+        return minifier;
     }
 
     public String getStartElement(String pageName) {
-        String manipulateStartElement = PAGE_NAME_PATTERN.matcher(startElement).replaceAll(pageName);
-        return manipulateStartElement;
+        StringBuilder startElementBuilder = new StringBuilder(this.startElement.getLength(pageName, 0));
+        this.startElement.append(startElementBuilder, pageName, null, 0, 0);
+        return startElementBuilder.toString();
     }
 
     public String getEndElement() {
@@ -87,43 +117,422 @@ public enum Page {
         return pageName + "." + fileSuffix;
     }
 
-    private String getTemplateContent(String pageName, String originalContent){
-        String lineBreak = SystemUtils.getLineBreak();
-
-        String startElement = this.getStartElement(pageName);
-        startElement = startElement+lineBreak;
-
-        String manipulatedContent = PAGE_NAME_PATTERN.matcher(contentTemplate).replaceAll(pageName);
-        manipulatedContent = CONTENT_PATTERN.matcher(manipulatedContent).replaceFirst(Matcher.quoteReplacement(originalContent));
-        manipulatedContent = StringUtils.isNotBlank(manipulatedContent)?manipulatedContent+lineBreak:manipulatedContent;
-
-        String endElement = this.getEndElement();
-        endElement = endElement+lineBreak;
-
-        String templateContent = startElement+manipulatedContent+endElement;
-        return templateContent;
+    public File getPageFile(Folder pageFolder) {
+        return pageFolder.getFile(getPageFileName(pageFolder.getName()));
     }
 
     public String constructTemplate(Folder pageFolder){
-        String templateContent = null;
+        return constructTemplate(pageFolder, false);
+    }
 
-        try {
-            String pageName = pageFolder.getName();
-            File templateFile = pageFolder.getFile(getPageFileName(pageName));
+    /**
+     * @param minify whether the content of the page file is minified by the minifier of this part of the page.
+     */
+    public String constructTemplate(Folder pageFolder, boolean minify){
+        StringBuilder templateBuilder = new StringBuilder();
+        appendTemplate(pageFolder, templateBuilder, minify);
+        return templateBuilder.toString();
+    }
 
-            templateContent = templateFile.exists() ? WMFileUtils.readFileToString(((LocalFile) templateFile).getLocalFile()) : "";
-            templateContent = StringUtils.isBlank(templateContent) ? defaultContent : templateContent.trim();
-            templateContent = getTemplateContent(pageName, templateContent);
+    public void appendTemplate(Folder pageFolder, StringBuilder templateBuilder){
+        appendTemplate(pageFolder, templateBuilder, false);
+    }
 
+    /**
+     * Appends the template of this part of the page to the builder in a single pass, the content of the page file is
+     * copied once without being trimmed or escaped beforehand, unless it is minified.
+     */
+    public void appendTemplate(Folder pageFolder, StringBuilder templateBuilder, boolean minify){
+        String content;
+        try {
+            File templateFile = getPageFile(pageFolder);
+            content = templateFile.exists() ? WMFileUtils.readFileToString(((LocalFile) templateFile).getLocalFile()) : "";
         } catch (IOException ioException){
             throw new WMRuntimeException("Failed to construct template for project page", ioException);
         }
+        ContentBounds contentBounds = ContentBounds.of(content);
+        int contentStart = (int) contentBounds.start;
+        int contentEnd = (int) contentBounds.end;
+        if (contentBounds.blank) {
+            content = defaultContent;
+            contentStart = 0;
+            contentEnd = content.length();
+        } else if (minify) {
+            StringWriter minifiedContent = new StringWriter(contentEnd - contentStart);
+            try {
+                minifier.minify(new StringReader(content.substring(contentStart, contentEnd)), minifiedContent);
+            } catch (IOException e) {
+                throw new WMRuntimeException("Failed to minify " + getPageFileName(pageFolder.getName()), e);
+            }
+            content = minifiedContent.toString();
+            contentStart = 0;
+            contentEnd = content.length();
+        }
+        appendTemplate(templateBuilder, pageFolder.getName(), content, contentStart, contentEnd,
+                isLineBreakBeforeEnd(contentBounds));
+    }
+
+    private void appendTemplate(StringBuilder templateBuilder, String pageName, CharSequence content, int contentStart,
+                                int contentEnd, boolean lineBreakBeforeEnd) {
+        String lineBreak = SystemUtils.getLineBreak();
+        int contentLength = contentEnd - contentStart;
+        templateBuilder.ensureCapacity(templateBuilder.length() + startElement.getLength(pageName, 0)
+                + contentTemplate.getLength(pageName, contentLength) + endElement.length() + 3 * lineBreak.length());
 
-        return templateContent;
+        startElement.append(templateBuilder, pageName, null, 0, 0);
+        templateBuilder.append(lineBreak);
+        contentTemplate.append(templateBuilder, pageName, content, contentStart, contentEnd);
+        if (lineBreakBeforeEnd) {
+            templateBuilder.append(lineBreak);
+        }
+        templateBuilder.append(endElement).append(lineBreak);
     }
 
     public static Page getPage(String pageName){
         return (StringUtils.isNotBlank(pageName) ? Page.valueOf(pageName.toUpperCase()) : null);
     }
-}
 
+    /**
+     * Writes the template of this part of the page to the channel without reading the page file in memory: the page
+     * file is trimmed by scanning its first and last bytes only, and the bytes between them are transferred to the
+     * channel. Page files are expected to be UTF-8 encoded, like the page min file.
+     *
+     * @param trailingLineBreak whether to write the line break following the end element.
+     * @return the position in the channel right after the end element.
+     */
+    public long transferTemplate(Folder pageFolder, FileChannel outputChannel, boolean trailingLineBreak) throws IOException {
+        return transferTemplate(pageFolder, outputChannel, trailingLineBreak, false);
+    }
+
+    /**
+     * Writes the template like {@link #transferTemplate(Folder, FileChannel, boolean)}, the bytes of the page file
+     * being streamed through the minifier of this part of the page when minify is true.
+     */
+    public long transferTemplate(Folder pageFolder, FileChannel outputChannel, boolean trailingLineBreak, boolean minify)
+            throws IOException {
+        String pageName = pageFolder.getName();
+        String lineBreak = SystemUtils.getLineBreak();
+        File templateFile = getPageFile(pageFolder);
+        FileChannel inputChannel = null;
+        try {
+            ContentBounds contentBounds = new ContentBounds();
+            if (templateFile.exists()) {
+                inputChannel = FileChannel.open(((LocalFile) templateFile).getLocalFile().toPath(), StandardOpenOption.READ);
+                contentBounds = ContentBounds.find(inputChannel);
+            }
+            StringBuilder before = new StringBuilder();
+            startElement.append(before, pageName, null, 0, 0);
+            before.append(lineBreak);
+            contentTemplate.appendBeforeContent(before, pageName);
+            if (contentBounds.blank) {
+                before.append(defaultContent);
+            }
+            write(outputChannel, before);
+
+            if (!contentBounds.blank && minify) {
+                Reader reader = new BufferedReader(new InputStreamReader(
+                        new RangeInputStream(inputChannel, contentBounds.start, contentBounds.end), UTF_8));
+                // not closed, which would close the output channel
+                Writer writer = new BufferedWriter(Channels.newWriter(outputChannel, UTF_8.newEncoder(), -1));
+                minifier.minify(reader, writer);
+                writer.flush();
+            } else if (!contentBounds.blank) {
+                long position = contentBounds.start;
+                while (position < contentBounds.end) {
+                    position += inputChannel.transferTo(position, contentBounds.end - position, outputChannel);
+                }
+            }
+
+            StringBuilder after = new StringBuilder();
+            contentTemplate.appendAfterContent(after, pageName);
+            if (isLineBreakBeforeEnd(contentBounds)) {
+                after.append(lineBreak);
+            }
+            after.append(endElement);
+            write(outputChannel, after);
+            long templateEnd = outputChannel.position();
+            if (trailingLineBreak) {
+                write(outputChannel, lineBreak);
+            }
+            return templateEnd;
+        } finally {
+            IOUtils.closeSilently(inputChannel);
+        }
+    }
+
+    /**
+     * A line break separates the content from the end element unless both the content, or the default content
+     * replacing a blank page file, and the content template around it are blank.
+     */
+    private boolean isLineBreakBeforeEnd(ContentBounds contentBounds) {
+        boolean contentBlank = contentBounds.blank ? StringUtils.isBlank(defaultContent) : contentBounds.contentBlank;
+        return !contentBlank || !contentTemplate.isBlank();
+    }
+
+    private static boolean isWhitespace(CharSequence content, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!Character.isWhitespace(content.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void write(FileChannel channel, CharSequence text) throws IOException {
+        ByteBuffer buffer = UTF_8.encode(CharBuffer.wrap(text));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Stream of the bytes of a file channel between two positions, leaving the position of the channel unchanged.
+     */
+    private static final class RangeInputStream extends InputStream {
+        private final FileChannel channel;
+        private final long end;
+        private long position;
+
+        private RangeInputStream(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.position = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (position >= end) {
+                return -1;
+            }
+            int read = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, end - position)), position);
+            if (read > 0) {
+                position += read;
+            }
+            return read;
+        }
+    }
+
+    /**
+     * Bounds of the content of a page file once trimmed like {@link String#trim()}. The file is blank, and replaced by
+     * the default content, when it only has whitespace characters like {@link StringUtils#isBlank(CharSequence)}
+     * checks. The same rules apply to the content read in memory and to a file channel, of which only the bytes at
+     * the edges are read, the trimmed content being decoded up to its first non whitespace character.
+     */
+    private static final class ContentBounds {
+        private long start;
+        private long end;
+        private boolean blank = true;
+        private boolean contentBlank = true;
+
+        private static ContentBounds of(CharSequence content) {
+            ContentBounds contentBounds = new ContentBounds();
+            int start = 0;
+            int end = content.length();
+            while (start < end && isTrimmed(content.charAt(start))) {
+                contentBounds.blank &= Character.isWhitespace(content.charAt(start));
+                start++;
+            }
+            while (end > start && isTrimmed(content.charAt(end - 1))) {
+                contentBounds.blank &= Character.isWhitespace(content.charAt(end - 1));
+                end--;
+            }
+            contentBounds.start = start;
+            contentBounds.end = end;
+            if (start < end) {
+                contentBounds.contentBlank = Page.isWhitespace(content, start, end);
+                contentBounds.blank &= contentBounds.contentBlank;
+            }
+            return contentBounds;
+        }
+
+        private static ContentBounds find(FileChannel channel) throws IOException {
+            ContentBounds contentBounds = new ContentBounds();
+            ByteBuffer buffer = ByteBuffer.allocate(EDGE_BUFFER_SIZE);
+            long size = channel.size();
+            contentBounds.start = size;
+            for (long position = 0; position < size && contentBounds.start == size; position += EDGE_BUFFER_SIZE) {
+                int length = read(channel, buffer, position, (int) Math.min(EDGE_BUFFER_SIZE, size - position));
+                for (int i = 0; i < length; i++) {
+                    byte b = buffer.get(i);
+                    if (!isTrimmed(b)) {
+                        contentBounds.start = position + i;
+                        break;
+                    }
+                    contentBounds.blank &= Character.isWhitespace(b);
+                }
+            }
+            contentBounds.end = contentBounds.start;
+            for (long end = size; end > contentBounds.start && contentBounds.end == contentBounds.start; end -= EDGE_BUFFER_SIZE) {
+                int length = (int) Math.min(EDGE_BUFFER_SIZE, end - contentBounds.start);
+                read(channel, buffer, end - length, length);
+                for (int i = length - 1; i >= 0; i--) {
+                    byte b = buffer.get(i);
+                    if (!isTrimmed(b)) {
+                        contentBounds.end = end - length + i + 1;
+                        break;
+                    }
+                    contentBounds.blank &= Character.isWhitespace(b);
+                }
+            }
+            if (contentBounds.start < contentBounds.end) {
+                contentBounds.contentBlank = isWhitespace(channel, buffer, contentBounds.start, contentBounds.end);
+                contentBounds.blank &= contentBounds.contentBlank;
+            }
+            return contentBounds;
+        }
+
+        /**
+         * @return true for the characters, and bytes, removed by {@link String#trim()}. Bytes of multi byte UTF-8
+         * characters are negative and never are.
+         */
+        private static boolean isTrimmed(int c) {
+            return c >= 0 && c <= ' ';
+        }
+
+        private static boolean isWhitespace(FileChannel channel, ByteBuffer buffer, long start, long end) throws IOException {
+            CharsetDecoder decoder = UTF_8.newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            CharBuffer chars = CharBuffer.allocate(EDGE_BUFFER_SIZE);
+            ByteBuffer bytes = ByteBuffer.allocate(EDGE_BUFFER_SIZE + 8);
+            bytes.flip();
+            for (long position = start; position < end; position += EDGE_BUFFER_SIZE) {
+                int length = read(channel, buffer, position, (int) Math.min(EDGE_BUFFER_SIZE, end - position));
+                buffer.limit(length);
+                bytes.compact();
+                bytes.put(buffer);
+                bytes.flip();
+                chars.clear();
+                decoder.decode(bytes, chars, position + length >= end);
+                chars.flip();
+                while (chars.hasRemaining()) {
+                    if (!Character.isWhitespace(chars.get())) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        private static int read(FileChannel channel, ByteBuffer buffer, long position, int length) throws IOException {
+            buffer.clear();
+            buffer.limit(length);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    throw new IOException("Unexpected end of file while reading at " + position);
+                }
+            }
+            buffer.flip();
+            return length;
+        }
+    }
+
+    /**
+     * A template split once in its literal segments and its {PageName} and {Content} placeholders. Every {PageName}
+     * is replaced by the page name and the first {Content} by the content, the later ones are kept as they are.
+     */
+    private static final class Template {
+        private static final String PAGE_NAME = "{PageName}";
+        private static final String CONTENT = "{Content}";
+
+        // literal segments at the even indexes, placeholders at the odd indexes
+        private final String[] segments;
+        private final int literalLength;
+        private final int pageNameCount;
+        private final boolean blank;
+
+        private Template(String template) {
+            List<String> segmentList = new ArrayList<>();
+            int literalLength = 0;
+            int pageNameCount = 0;
+            boolean contentFound = false;
+            StringBuilder literal = new StringBuilder();
+            int index = 0;
+            while (index < template.length()) {
+                if (template.startsWith(PAGE_NAME, index)) {
+                    segmentList.add(literal.toString());
+                    segmentList.add(PAGE_NAME);
+                    literal.setLength(0);
+                    pageNameCount++;
+                    index += PAGE_NAME.length();
+                } else if (!contentFound && template.startsWith(CONTENT, index)) {
+                    segmentList.add(literal.toString());
+                    segmentList.add(CONTENT);
+                    literal.setLength(0);
+                    contentFound = true;
+                    index += CONTENT.length();
+                } else {
+                    literal.append(template.charAt(index));
+                    literalLength++;
+                    index++;
+                }
+            }
+            segmentList.add(literal.toString());
+            this.segments = segmentList.toArray(new String[segmentList.size()]);
+            this.literalLength = literalLength;
+            this.pageNameCount = pageNameCount;
+            this.blank = StringUtils.isBlank(template.replace(PAGE_NAME, "").replace(CONTENT, ""));
+        }
+
+        private int getLength(String pageName, int contentLength) {
+            return literalLength + pageNameCount * pageName.length() + contentLength;
+        }
+
+        /**
+         * @return true when the template renders blank for a blank page name and content.
+         */
+        private boolean isBlank() {
+            return blank;
+        }
+
+        private void appendBeforeContent(StringBuilder builder, String pageName) {
+            appendSegments(builder, pageName, 0, getContentIndex());
+        }
+
+        private void appendAfterContent(StringBuilder builder, String pageName) {
+            int contentIndex = getContentIndex();
+            if (contentIndex < segments.length) {
+                appendSegments(builder, pageName, contentIndex + 1, segments.length);
+            }
+        }
+
+        /**
+         * @return the index of the {Content} placeholder, or the number of segments if there is none.
+         */
+        private int getContentIndex() {
+            for (int i = 1; i < segments.length; i += 2) {
+                if (CONTENT.equals(segments[i])) {
+                    return i;
+                }
+            }
+            return segments.length;
+        }
+
+        private void appendSegments(StringBuilder builder, String pageName, int from, int to) {
+            for (int i = from; i < to; i++) {
+                if (i % 2 == 0) {
+                    builder.append(segments[i]);
+                } else if (PAGE_NAME.equals(segments[i])) {
+                    builder.append(pageName);
+                }
+            }
+        }
+
+        private void append(StringBuilder builder, String pageName, CharSequence content, int contentStart, int contentEnd) {
+            for (int i = 0; i < segments.length; i++) {
+                if (i % 2 == 0) {
+                    builder.append(segments[i]);
+                } else if (PAGE_NAME.equals(segments[i])) {
+                    builder.append(pageName);
+                } else if (content != null) {
+                    builder.append(content, contentStart, contentEnd);
+                }
+            }
+        }
+    }
+}
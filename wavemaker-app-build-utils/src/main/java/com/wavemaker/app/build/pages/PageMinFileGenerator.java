@@ -15,19 +15,47 @@
  */
 package com.wavemaker.app.build.pages;
 
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.wavemaker.app.build.constants.AppBuildConstants;
+import com.wavemaker.app.build.io.GeneratedFileCompressor;
+import com.wavemaker.app.build.io.GeneratedFileWriter;
 import com.wavemaker.commons.WMRuntimeException;
 import com.wavemaker.commons.io.File;
 import com.wavemaker.commons.io.Folder;
+import com.wavemaker.commons.io.local.LocalFile;
+import com.wavemaker.commons.io.local.LocalFolder;
+import com.wavemaker.commons.util.IOUtils;
 
 /**
  * Created by saddhamp on 14/4/16.
  */
 public class PageMinFileGenerator {
+    private static final Logger logger = LoggerFactory.getLogger(PageMinFileGenerator.class);
+    public static final String ASSEMBLY_EXTENSION = ".tmp";
+    private static final Page[] PAGE_ORDER = {Page.CSS, Page.JS, Page.JSON, Page.HTML};
+
     private List<Folder> pageFolders;
     private boolean forceOverwrite;
+    private int parallelism = 1;
+    private boolean minify;
+    private GeneratedFileWriter generatedFileWriter = new GeneratedFileWriter();
+    private GeneratedFileCompressor generatedFileCompressor;
+    private java.io.File cacheFolder;
 
     public PageMinFileGenerator(List<Folder> pageFolders){
         if(pageFolders == null || pageFolders.size() < 1)
@@ -40,25 +68,194 @@ public class PageMinFileGenerator {
         return this;
     }
 
+    /**
+     * Sets the maximum number of pages generated at the same time. Defaults to 1, generating the pages one after the
+     * other in the calling thread.
+     */
+    public PageMinFileGenerator setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new WMRuntimeException("Parallelism should be at least 1, found " + parallelism);
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Sets whether the content of the page files is minified by the {@link PageMinifier} of their {@link Page} type.
+     * Defaults to false, the page files being copied as they are.
+     */
+    public PageMinFileGenerator setMinify(boolean minify) {
+        this.minify = minify;
+        return this;
+    }
+
+    /**
+     * Sets the writer of the page min files, skipping the pages whose page min file is unchanged.
+     */
+    public PageMinFileGenerator setGeneratedFileWriter(GeneratedFileWriter generatedFileWriter) {
+        if (generatedFileWriter == null) {
+            throw new WMRuntimeException("Generated file writer is null");
+        }
+        this.generatedFileWriter = generatedFileWriter;
+        return this;
+    }
+
+    /**
+     * Sets the compressor writing a compressed copy of the page min files. Defaults to none, the page min files not
+     * being compressed.
+     */
+    public PageMinFileGenerator setGeneratedFileCompressor(GeneratedFileCompressor generatedFileCompressor) {
+        if (generatedFileCompressor == null) {
+            throw new WMRuntimeException("Generated file compressor is null");
+        }
+        this.generatedFileCompressor = generatedFileCompressor;
+        return this;
+    }
+
+    /**
+     * Sets the folder in which the page min files are assembled and their index kept, in a folder named after each
+     * page. Defaults to none, the page min files being assembled in temporary files and not indexed.
+     */
+    public PageMinFileGenerator setCacheFolder(java.io.File cacheFolder) {
+        if (cacheFolder == null) {
+            throw new WMRuntimeException("Cache folder is null");
+        }
+        this.cacheFolder = cacheFolder;
+        return this;
+    }
+
+    /**
+     * Generates the page min file of every page. A page failing does not stop the generation of the other pages, the
+     * failures of all the pages are reported together once every page is done.
+     */
     public void generate() {
+        List<Folder> pagesToGenerate = new ArrayList<>();
         for (Folder pageFolder : pageFolders) {
             File pageMinFile = pageFolder.getFile(AppBuildConstants.PAGE_MIN_FILE);
             if (forceOverwrite || !pageMinFile.exists()) {
+                pagesToGenerate.add(pageFolder);
+            }
+        }
+        Map<String, Throwable> failures = (parallelism == 1 || pagesToGenerate.size() < 2) ?
+                generateSerially(pagesToGenerate) : generateInParallel(pagesToGenerate);
+        if (!failures.isEmpty()) {
+            StringBuilder message = new StringBuilder("Failed to generate ").append(AppBuildConstants.PAGE_MIN_FILE)
+                    .append(" for ").append(failures.size()).append(" of ").append(pagesToGenerate.size()).append(" pages");
+            for (Map.Entry<String, Throwable> failure : failures.entrySet()) {
+                message.append("\n  ").append(failure.getKey()).append(": ").append(failure.getValue().getMessage());
+            }
+            List<Throwable> causes = new ArrayList<>(failures.values());
+            WMRuntimeException exception = new WMRuntimeException(message.toString(), causes.get(0));
+            for (Throwable cause : causes.subList(1, causes.size())) {
+                exception.addSuppressed(cause);
+            }
+            throw exception;
+        }
+    }
+
+    private Map<String, Throwable> generateSerially(List<Folder> pagesToGenerate) {
+        Map<String, Throwable> failures = new LinkedHashMap<>();
+        for (Folder pageFolder : pagesToGenerate) {
+            try {
                 generate(pageFolder);
+            } catch (RuntimeException e) {
+                failures.put(pageFolder.getName(), e);
             }
         }
+        return failures;
     }
 
-    private static void generate(Folder pageFolder) {
-            StringBuilder pageMinFileContent = new StringBuilder();
-            pageMinFileContent.append(Page.CSS.constructTemplate(pageFolder));
-            pageMinFileContent.append(Page.JS.constructTemplate(pageFolder));
-            pageMinFileContent.append(Page.JSON.constructTemplate(pageFolder));
-            pageMinFileContent.append(Page.HTML.constructTemplate(pageFolder));
+    private Map<String, Throwable> generateInParallel(List<Folder> pagesToGenerate) {
+        ExecutorService executorService = Executors.newFixedThreadPool(Math.min(parallelism, pagesToGenerate.size()));
+        try {
+            List<Future<?>> futures = new ArrayList<>(pagesToGenerate.size());
+            for (final Folder pageFolder : pagesToGenerate) {
+                futures.add(executorService.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        generate(pageFolder);
+                    }
+                }));
+            }
+            // collected in the order of the pages, for a report not depending on the scheduling
+            Map<String, Throwable> failures = new LinkedHashMap<>();
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    futures.get(i).get();
+                } catch (ExecutionException e) {
+                    failures.put(pagesToGenerate.get(i).getName(), e.getCause());
+                }
+            }
+            return failures;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WMRuntimeException("Interrupted while generating " + AppBuildConstants.PAGE_MIN_FILE, e);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
 
-            File pageMinFile = pageFolder.getFile(AppBuildConstants.PAGE_MIN_FILE);
-            pageMinFile.createIfMissing();
+    /**
+     * Assembles the page min file in a temporary file of the cache folder, transferring the page files into it, and
+     * replaces the page min file with it when its content changed. The offsets of the sections are written to the page
+     * min index file of the cache folder, letting {@link PageMinFileUpdator} replace a single section.
+     */
+    private void generate(Folder pageFolder) {
+        java.io.File pageMinFile = ((LocalFile) pageFolder.getFile(AppBuildConstants.PAGE_MIN_FILE)).getLocalFile();
+        java.io.File pageCacheFolder = cacheFolder == null ? null : new java.io.File(cacheFolder, pageFolder.getName());
+        java.io.File assembledFile = null;
+        FileChannel outputChannel = null;
+        try {
+            assembledFile = createAssemblyFile(pageCacheFolder);
+            outputChannel = FileChannel.open(assembledFile.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            PageMinFileIndex pageMinFileIndex = new PageMinFileIndex();
+            for (int i = 0; i < PAGE_ORDER.length; i++) {
+                long sectionStart = outputChannel.position();
+                // the page min file is trimmed, so the last line break is left out
+                long sectionEnd = PAGE_ORDER[i].transferTemplate(pageFolder, outputChannel, i < PAGE_ORDER.length - 1, minify);
+                pageMinFileIndex.setSection(PAGE_ORDER[i], sectionStart, sectionEnd);
+            }
+            long pageMinFileSize = outputChannel.size();
+            outputChannel.close();
+            if (minify) {
+                logger.info("Minified {} bytes of page files of page {} into a page min file of {} bytes",
+                        getPageFilesSize(pageFolder), pageFolder.getName(), pageMinFileSize);
+            }
+            generatedFileWriter.replace(pageMinFile, assembledFile);
+            if (generatedFileCompressor != null) {
+                generatedFileCompressor.compress(pageMinFile);
+            }
+            if (pageCacheFolder != null) {
+                pageMinFileIndex.write(pageMinFile,
+                        new LocalFolder(pageCacheFolder).getFile(AppBuildConstants.PAGE_MIN_INDEX_FILE), generatedFileWriter);
+            }
+        } catch (IOException e) {
+            throw new WMRuntimeException("Failed to generate " + AppBuildConstants.PAGE_MIN_FILE + " for page " + pageFolder.getName(), e);
+        } finally {
+            IOUtils.closeSilently(outputChannel);
+            if (assembledFile != null && assembledFile.exists() && !assembledFile.delete()) {
+                logger.warn("Failed to delete {}", assembledFile);
+            }
+        }
+    }
 
-            pageMinFile.getContent().write(pageMinFileContent.toString().trim());
+    private static java.io.File createAssemblyFile(java.io.File pageCacheFolder) throws IOException {
+        if (pageCacheFolder == null) {
+            return Files.createTempFile(AppBuildConstants.PAGE_MIN_FILE, ASSEMBLY_EXTENSION).toFile();
+        }
+        Files.createDirectories(pageCacheFolder.toPath());
+        return new java.io.File(pageCacheFolder, AppBuildConstants.PAGE_MIN_FILE + ASSEMBLY_EXTENSION);
+    }
+
+    private static long getPageFilesSize(Folder pageFolder) {
+        long size = 0;
+        for (Page page : PAGE_ORDER) {
+            File pageFile = page.getPageFile(pageFolder);
+            if (pageFile.exists()) {
+                size += pageFile.getSize();
+            }
+        }
+        return size;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,180 @@
+/**
+ * Copyright © 2013 - 2017 WaveMaker, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wavemaker.app.build.pages;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import com.wavemaker.app.build.io.GeneratedFileWriter;
+import com.wavemaker.commons.WMRuntimeException;
+import com.wavemaker.commons.io.File;
+
+/**
+ * Byte offsets of the section of each {@link Page} in a page min file, from the first byte of its start element to the
+ * last byte of its end element. Kept in a small file in the build cache folder, along with the size and last modified
+ * time the page min file had when the offsets were recorded. A page min file changed since then without changing
+ * either is caught by the updates, which check the start and end elements at the recorded offsets.
+ */
+public class PageMinFileIndex {
+    private static final String SIZE = "size";
+    private static final String LAST_MODIFIED = "lastModified";
+
+    private final Map<Page, long[]> sections = new EnumMap<>(Page.class);
+    private long size = -1;
+    private long lastModified = -1;
+
+    public PageMinFileIndex setSection(Page page, long start, long end) {
+        if (start < 0 || end < start) {
+            throw new WMRuntimeException("Invalid section [" + start + ", " + end + "] of page " + page);
+        }
+        sections.put(page, new long[]{start, end});
+        return this;
+    }
+
+    public boolean hasSection(Page page) {
+        return sections.containsKey(page);
+    }
+
+    public long getStart(Page page) {
+        return getSection(page)[0];
+    }
+
+    public long getEnd(Page page) {
+        return getSection(page)[1];
+    }
+
+    /**
+     * Updates the offsets after the section of the page was replaced by a section of the given length, the following
+     * sections being moved accordingly.
+     */
+    public PageMinFileIndex resizeSection(Page page, long length) {
+        long[] section = getSection(page);
+        long delta = length - (section[1] - section[0]);
+        for (long[] otherSection : sections.values()) {
+            if (otherSection != section && otherSection[0] >= section[1]) {
+                otherSection[0] += delta;
+                otherSection[1] += delta;
+            }
+        }
+        section[1] += delta;
+        return this;
+    }
+
+    /**
+     * @return true when the page min file has the size and last modified time these offsets were recorded for.
+     */
+    public boolean isValid(java.io.File pageMinFile) {
+        return size >= 0 && pageMinFile.exists() && pageMinFile.length() == size
+                && pageMinFile.lastModified() == lastModified;
+    }
+
+    /**
+     * Records the current size and last modified time of the page min file and writes the index to the index file.
+     */
+    public void write(java.io.File pageMinFile, File indexFile, GeneratedFileWriter generatedFileWriter) {
+        size = pageMinFile.length();
+        lastModified = pageMinFile.lastModified();
+        StringBuilder content = new StringBuilder();
+        content.append(SIZE).append('=').append(size).append('\n');
+        content.append(LAST_MODIFIED).append('=').append(lastModified).append('\n');
+        for (Map.Entry<Page, long[]> section : sections.entrySet()) {
+            content.append(section.getKey().name()).append('=').append(section.getValue()[0]).append(',')
+                    .append(section.getValue()[1]).append('\n');
+        }
+        generatedFileWriter.write(indexFile, content.toString());
+    }
+
+    /**
+     * @return the index of the sections found once in the content of a page min file.
+     */
+    public static PageMinFileIndex of(String pageMinFileContent, String pageName) {
+        PageMinFileIndex pageMinFileIndex = new PageMinFileIndex();
+        for (Page page : Page.values()) {
+            String startElement = page.getStartElement(pageName);
+            int start = pageMinFileContent.indexOf(startElement);
+            if (start < 0 || pageMinFileContent.indexOf(startElement, start + 1) >= 0) {
+                continue;
+            }
+            int end = pageMinFileContent.indexOf(page.getEndElement(), start + startElement.length());
+            if (end >= 0) {
+                end += page.getEndElement().length();
+                long byteStart = utf8Length(pageMinFileContent, 0, start);
+                pageMinFileIndex.setSection(page, byteStart, byteStart + utf8Length(pageMinFileContent, start, end));
+            }
+        }
+        return pageMinFileIndex;
+    }
+
+    /**
+     * @return the index read from the index file, or null when it does not exist or can not be parsed.
+     */
+    public static PageMinFileIndex read(java.io.File indexFile) {
+        if (!indexFile.exists()) {
+            return null;
+        }
+        try {
+            List<String> lines = Files.readAllLines(indexFile.toPath(), GeneratedFileWriter.UTF_8);
+            PageMinFileIndex pageMinFileIndex = new PageMinFileIndex();
+            for (String line : lines) {
+                int separator = line.indexOf('=');
+                if (separator < 0) {
+                    continue;
+                }
+                String key = line.substring(0, separator);
+                String value = line.substring(separator + 1);
+                if (SIZE.equals(key)) {
+                    pageMinFileIndex.size = Long.parseLong(value);
+                } else if (LAST_MODIFIED.equals(key)) {
+                    pageMinFileIndex.lastModified = Long.parseLong(value);
+                } else {
+                    int comma = value.indexOf(',');
+                    pageMinFileIndex.setSection(Page.valueOf(key), Long.parseLong(value.substring(0, comma)),
+                            Long.parseLong(value.substring(comma + 1)));
+                }
+            }
+            return pageMinFileIndex;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static long utf8Length(String content, int start, int end) {
+        long length = 0;
+        for (int i = start; i < end; i++) {
+            char c = content.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800 || Character.isSurrogate(c)) {
+                // each half of a surrogate pair accounts for half of its 4 bytes
+                length += 2;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private long[] getSection(Page page) {
+        long[] section = sections.get(page);
+        if (section == null) {
+            throw new WMRuntimeException("No section of page " + page + " in the page min file index");
+        }
+        return section;
+    }
+}
@@ -0,0 +1,264 @@
+/**
+ * Copyright © 2013 - 2017 WaveMaker, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wavemaker.app.build.pages;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.wavemaker.app.build.constants.AppBuildConstants;
+import com.wavemaker.app.build.io.GeneratedFileCompressor;
+import com.wavemaker.app.build.io.GeneratedFileWriter;
+import com.wavemaker.commons.WMRuntimeException;
+import com.wavemaker.commons.io.Folder;
+import com.wavemaker.commons.io.local.LocalFolder;
+
+/**
+ * Queues the updates of page min files and applies them on a single thread after a delay, the updates of a page
+ * received in the meantime being merged into a single {@link PageMinFileUpdator} update. Falls back to regenerating the
+ * page min file when it can not be updated. The failures of the updates are reported by the next {@link #flush()}.
+ */
+public class PageMinFileUpdateQueue implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(PageMinFileUpdateQueue.class);
+
+    private final long delayMillis;
+    private final ScheduledExecutorService executorService = Executors.newSingleThreadScheduledExecutor();
+    // pending updates by page folder path, guarded by this
+    private final Map<String, PendingUpdate> pendingUpdates = new LinkedHashMap<>();
+    // failures of the applied updates not reported yet, guarded by this
+    private final List<Throwable> failures = new ArrayList<>();
+    private GeneratedFileWriter generatedFileWriter = new GeneratedFileWriter();
+    private boolean minify;
+    private GeneratedFileCompressor generatedFileCompressor;
+    private java.io.File cacheFolder;
+
+    /**
+     * @param delayMillis time an update waits for the following updates of the same page before being applied.
+     */
+    public PageMinFileUpdateQueue(long delayMillis) {
+        if (delayMillis < 0) {
+            throw new WMRuntimeException("Delay should not be negative, found " + delayMillis);
+        }
+        this.delayMillis = delayMillis;
+    }
+
+    /**
+     * Sets whether the content of the page files is minified, see {@link PageMinFileGenerator#setMinify(boolean)}.
+     */
+    public PageMinFileUpdateQueue setMinify(boolean minify) {
+        this.minify = minify;
+        return this;
+    }
+
+    public PageMinFileUpdateQueue setGeneratedFileWriter(GeneratedFileWriter generatedFileWriter) {
+        if (generatedFileWriter == null) {
+            throw new WMRuntimeException("Generated file writer is null");
+        }
+        this.generatedFileWriter = generatedFileWriter;
+        return this;
+    }
+
+    public PageMinFileUpdateQueue setGeneratedFileCompressor(GeneratedFileCompressor generatedFileCompressor) {
+        if (generatedFileCompressor == null) {
+            throw new WMRuntimeException("Generated file compressor is null");
+        }
+        this.generatedFileCompressor = generatedFileCompressor;
+        return this;
+    }
+
+    /**
+     * Sets the folder holding the page min file indexes, see {@link PageMinFileGenerator#setCacheFolder(java.io.File)}.
+     */
+    public PageMinFileUpdateQueue setCacheFolder(java.io.File cacheFolder) {
+        if (cacheFolder == null) {
+            throw new WMRuntimeException("Cache folder is null");
+        }
+        this.cacheFolder = cacheFolder;
+        return this;
+    }
+
+    public void submit(Folder pageFolder, Page page) {
+        submit(pageFolder, Collections.singleton(page));
+    }
+
+    /**
+     * Queues the update of the sections of the pages in the page min file of the page folder, merged with the pending
+     * update of that page folder if any.
+     */
+    public void submit(Folder pageFolder, Collection<Page> pages) {
+        if (pageFolder == null) {
+            throw new WMRuntimeException("Page folder is null");
+        }
+        if (pages == null || pages.isEmpty() || pages.contains(null)) {
+            throw new WMRuntimeException("Page types are null or empty");
+        }
+        final String key = ((LocalFolder) pageFolder).getLocalFile().getAbsolutePath();
+        synchronized (this) {
+            PendingUpdate pendingUpdate = pendingUpdates.get(key);
+            if (pendingUpdate != null) {
+                pendingUpdate.pages.addAll(pages);
+                return;
+            }
+            pendingUpdates.put(key, new PendingUpdate(pageFolder, pages));
+        }
+        executorService.schedule(new Runnable() {
+            @Override
+            public void run() {
+                PendingUpdate pendingUpdate;
+                synchronized (PageMinFileUpdateQueue.this) {
+                    pendingUpdate = pendingUpdates.remove(key);
+                }
+                if (pendingUpdate != null) {
+                    applyAndRecordFailure(pendingUpdate);
+                }
+            }
+        }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Applies the pending updates without waiting for their delay, and waits for them to be applied. An update failing
+     * does not stop the other ones.
+     *
+     * @throws WMRuntimeException when updates failed since the previous flush, including the ones applied after their
+     *                            delay.
+     */
+    public void flush() {
+        try {
+            executorService.submit(new Runnable() {
+                @Override
+                public void run() {
+                    List<PendingUpdate> updates;
+                    synchronized (PageMinFileUpdateQueue.this) {
+                        updates = new ArrayList<>(pendingUpdates.values());
+                        pendingUpdates.clear();
+                    }
+                    for (PendingUpdate pendingUpdate : updates) {
+                        applyAndRecordFailure(pendingUpdate);
+                    }
+                    reportFailures();
+                }
+            }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WMRuntimeException("Interrupted while waiting for the page min file updates", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof WMRuntimeException) {
+                throw (WMRuntimeException) e.getCause();
+            }
+            throw new WMRuntimeException("Failed to apply the page min file updates", e.getCause());
+        }
+    }
+
+    /**
+     * Applies the pending updates and stops the thread applying them.
+     */
+    @Override
+    public void close() {
+        try {
+            flush();
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private void applyAndRecordFailure(PendingUpdate pendingUpdate) {
+        try {
+            apply(pendingUpdate);
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                failures.add(e);
+            }
+        }
+    }
+
+    private void reportFailures() {
+        List<Throwable> reportedFailures;
+        synchronized (this) {
+            reportedFailures = new ArrayList<>(failures);
+            failures.clear();
+        }
+        if (!reportedFailures.isEmpty()) {
+            StringBuilder message = new StringBuilder("Failed to update ").append(reportedFailures.size())
+                    .append(" page min files");
+            for (Throwable failure : reportedFailures) {
+                message.append("\n  ").append(failure.getMessage());
+            }
+            WMRuntimeException exception = new WMRuntimeException(message.toString(), reportedFailures.get(0));
+            for (Throwable failure : reportedFailures.subList(1, reportedFailures.size())) {
+                exception.addSuppressed(failure);
+            }
+            throw exception;
+        }
+    }
+
+    private void apply(PendingUpdate pendingUpdate) {
+        Folder pageFolder = pendingUpdate.pageFolder;
+        try {
+            if (pageFolder.getFile(AppBuildConstants.PAGE_MIN_FILE).exists()) {
+                try {
+                    PageMinFileUpdator pageMinFileUpdator = new PageMinFileUpdator(pageFolder, pendingUpdate.pages)
+                            .setMinify(minify).setGeneratedFileWriter(generatedFileWriter);
+                    if (generatedFileCompressor != null) {
+                        pageMinFileUpdator.setGeneratedFileCompressor(generatedFileCompressor);
+                    }
+                    if (cacheFolder != null) {
+                        pageMinFileUpdator.setCacheFolder(cacheFolder);
+                    }
+                    pageMinFileUpdator.update();
+                    return;
+                } catch (WMRuntimeException e) {
+                    logger.debug("Regenerating {} of page {} as it could not be updated", AppBuildConstants.PAGE_MIN_FILE,
+                            pageFolder.getName(), e);
+                }
+            }
+            PageMinFileGenerator pageMinFileGenerator = new PageMinFileGenerator(Collections.singletonList(pageFolder))
+                    .setForceOverwrite(true).setMinify(minify).setGeneratedFileWriter(generatedFileWriter);
+            if (generatedFileCompressor != null) {
+                pageMinFileGenerator.setGeneratedFileCompressor(generatedFileCompressor);
+            }
+            if (cacheFolder != null) {
+                pageMinFileGenerator.setCacheFolder(cacheFolder);
+            }
+            pageMinFileGenerator.generate();
+        } catch (RuntimeException e) {
+            throw new WMRuntimeException("Failed to update " + AppBuildConstants.PAGE_MIN_FILE + " of page "
+                    + pageFolder.getName(), e);
+        }
+    }
+
+    private static class PendingUpdate {
+        private final Folder pageFolder;
+        private final Set<Page> pages;
+
+        private PendingUpdate(Folder pageFolder, Collection<Page> pages) {
+            this.pageFolder = pageFolder;
+            this.pages = EnumSet.copyOf(pages);
+        }
+    }
+}
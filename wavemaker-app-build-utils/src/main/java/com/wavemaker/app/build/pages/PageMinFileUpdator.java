@@ -15,15 +15,33 @@
  */
 package com.wavemaker.app.build.pages;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.StringUtils;
 
 import com.wavemaker.app.build.constants.AppBuildConstants;
+import com.wavemaker.app.build.io.GeneratedFileCompressor;
+import com.wavemaker.app.build.io.GeneratedFileWriter;
 import com.wavemaker.commons.WMRuntimeException;
 import com.wavemaker.commons.io.File;
 import com.wavemaker.commons.io.Folder;
+import com.wavemaker.commons.io.local.LocalFile;
+import com.wavemaker.commons.io.local.LocalFolder;
+import com.wavemaker.commons.util.IOUtils;
 import com.wavemaker.commons.util.RegexConstants;
 
 /**
@@ -31,30 +49,205 @@ import com.wavemaker.commons.util.RegexConstants;
  */
 public class PageMinFileUpdator {
     private Folder pageFolder;
-    private Page page;
+    private Set<Page> pages;
+    private boolean minify;
+    private GeneratedFileWriter generatedFileWriter = new GeneratedFileWriter();
+    private GeneratedFileCompressor generatedFileCompressor;
+    private java.io.File cacheFolder;
 
     public PageMinFileUpdator(Folder pageFolder, Page page) {
+        this(pageFolder, page == null ? null : Collections.singleton(page));
+    }
+
+    /**
+     * Updates several sections of the page min file at once, with a single read and a single write of the file.
+     */
+    public PageMinFileUpdator(Folder pageFolder, Collection<Page> pages) {
         if(pageFolder == null)
             throw new WMRuntimeException("Page folder is null");
-        if(page == null)
-            throw new WMRuntimeException("Page type is null");
+        if(pages == null || pages.isEmpty() || pages.contains(null))
+            throw new WMRuntimeException("Page types are null or empty");
         this.pageFolder = pageFolder;
-        this.page = page;
+        this.pages = EnumSet.copyOf(pages);
+    }
+
+    /**
+     * Sets whether the content of the page files is minified, as it should be when the page min file was generated
+     * with minification.
+     */
+    public PageMinFileUpdator setMinify(boolean minify) {
+        this.minify = minify;
+        return this;
+    }
+
+    public PageMinFileUpdator setGeneratedFileWriter(GeneratedFileWriter generatedFileWriter) {
+        if(generatedFileWriter == null)
+            throw new WMRuntimeException("Generated file writer is null");
+        this.generatedFileWriter = generatedFileWriter;
+        return this;
     }
 
+    /**
+     * Sets the compressor refreshing the compressed copy of the page min file once it is updated.
+     */
+    public PageMinFileUpdator setGeneratedFileCompressor(GeneratedFileCompressor generatedFileCompressor) {
+        if(generatedFileCompressor == null)
+            throw new WMRuntimeException("Generated file compressor is null");
+        this.generatedFileCompressor = generatedFileCompressor;
+        return this;
+    }
+
+    /**
+     * Sets the folder holding the page min file index of each page, in a folder named after the page, see
+     * {@link PageMinFileGenerator#setCacheFolder(java.io.File)}. Defaults to none, the sections being always found in
+     * the whole content of the page min file.
+     */
+    public PageMinFileUpdator setCacheFolder(java.io.File cacheFolder) {
+        if(cacheFolder == null)
+            throw new WMRuntimeException("Cache folder is null");
+        this.cacheFolder = cacheFolder;
+        return this;
+    }
+
+    /**
+     * Replaces the sections of the pages in the page min file. When the page min file index is up to date, only the
+     * bytes of these sections are replaced, otherwise the sections are found in the whole content of the page min
+     * file.
+     */
     public void update() {
         File pageMinFile = pageFolder.getFile(AppBuildConstants.PAGE_MIN_FILE);
-        String pageMinFileContent = pageMinFile.getContent().asString();
+        java.io.File localPageMinFile = ((LocalFile) pageMinFile).getLocalFile();
+        File indexFile = cacheFolder == null ? null
+                : new LocalFolder(cacheFolder).getFolder(pageFolder.getName()).getFile(AppBuildConstants.PAGE_MIN_INDEX_FILE);
+        PageMinFileIndex pageMinFileIndex = indexFile == null ? null
+                : PageMinFileIndex.read(((LocalFile) indexFile).getLocalFile());
+        if (pageMinFileIndex != null && pageMinFileIndex.isValid(localPageMinFile) && hasSections(pageMinFileIndex)) {
+            boolean updated = pages.size() == 1 ? spliceSection(localPageMinFile, pageMinFileIndex, pages.iterator().next())
+                    : replaceSections(pageMinFile, pageMinFileIndex);
+            if (updated) {
+                pageMinFileIndex.write(localPageMinFile, indexFile, generatedFileWriter);
+                compress(localPageMinFile);
+                return;
+            }
+        }
 
+        String pageMinFileContent = pageMinFile.getContent().asString();
         String pageName = pageFolder.getName();
-        String startElement = page.getStartElement(pageName);
+        for (Page page : pages) {
+            String startElement = page.getStartElement(pageName);
+
+            validatePageMinFile(pageMinFileContent, startElement);
+
+            String endElement = page.getEndElement();
+            String pageContent = page.constructTemplate(pageFolder, minify);
+            pageMinFileContent = replacePageContent(pageMinFileContent, startElement, endElement, pageContent.trim());
+        }
+        String newPageMinFileContent = pageMinFileContent.trim();
+        generatedFileWriter.write(pageMinFile, newPageMinFileContent);
+        if (indexFile != null) {
+            PageMinFileIndex.of(newPageMinFileContent, pageName).write(localPageMinFile, indexFile, generatedFileWriter);
+        }
+        compress(localPageMinFile);
+    }
 
-        validatePageMinFile(pageMinFileContent, startElement);
+    private void compress(java.io.File pageMinFile) {
+        if (generatedFileCompressor != null) {
+            generatedFileCompressor.compress(pageMinFile);
+        }
+    }
 
-        String endElement = page.getEndElement();
-        String pageContent = page.constructTemplate(pageFolder);
-        String newPageMinFileContent = replacePageContent(pageMinFileContent, startElement, endElement, pageContent.trim());
-        pageMinFile.getContent().write(newPageMinFileContent.trim());
+    private boolean hasSections(PageMinFileIndex pageMinFileIndex) {
+        for (Page page : pages) {
+            if (!pageMinFileIndex.hasSection(page)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return false when the indexed section does not hold the elements of the page, the index being stale.
+     */
+    private boolean spliceSection(java.io.File pageMinFile, PageMinFileIndex pageMinFileIndex, Page page) {
+        long start = pageMinFileIndex.getStart(page);
+        long end = pageMinFileIndex.getEnd(page);
+        byte[] startElement = page.getStartElement(pageFolder.getName()).getBytes(GeneratedFileWriter.UTF_8);
+        byte[] endElement = page.getEndElement().getBytes(GeneratedFileWriter.UTF_8);
+        if (end - start < startElement.length + endElement.length || !regionMatches(pageMinFile, start, startElement)
+                || !regionMatches(pageMinFile, end - endElement.length, endElement)) {
+            return false;
+        }
+        byte[] section = page.constructTemplate(pageFolder, minify).trim().getBytes(GeneratedFileWriter.UTF_8);
+        generatedFileWriter.splice(pageMinFile, start, end, section);
+        pageMinFileIndex.resizeSection(page, section.length);
+        return true;
+    }
+
+    /**
+     * Reads the page min file once and writes it once with all the indexed sections replaced.
+     *
+     * @return false when an indexed section does not hold the elements of its page, the index being stale.
+     */
+    private boolean replaceSections(File pageMinFile, PageMinFileIndex pageMinFileIndex) {
+        byte[] content = pageMinFile.getContent().asBytes();
+        List<Page> sortedPages = new ArrayList<>(pages);
+        Collections.sort(sortedPages, new SectionStartComparator(pageMinFileIndex));
+
+        ByteArrayOutputStream newContent = new ByteArrayOutputStream(content.length);
+        Map<Page, Integer> sectionLengths = new EnumMap<>(Page.class);
+        int position = 0;
+        for (Page page : sortedPages) {
+            long start = pageMinFileIndex.getStart(page);
+            long end = pageMinFileIndex.getEnd(page);
+            byte[] startElement = page.getStartElement(pageFolder.getName()).getBytes(GeneratedFileWriter.UTF_8);
+            byte[] endElement = page.getEndElement().getBytes(GeneratedFileWriter.UTF_8);
+            if (start < position || end > content.length || end - start < startElement.length + endElement.length
+                    || !regionMatches(content, (int) start, startElement)
+                    || !regionMatches(content, (int) end - endElement.length, endElement)) {
+                return false;
+            }
+            byte[] section = page.constructTemplate(pageFolder, minify).trim().getBytes(GeneratedFileWriter.UTF_8);
+            newContent.write(content, position, (int) start - position);
+            newContent.write(section, 0, section.length);
+            sectionLengths.put(page, section.length);
+            position = (int) end;
+        }
+        newContent.write(content, position, content.length - position);
+        generatedFileWriter.write(pageMinFile, newContent.toByteArray());
+        for (Map.Entry<Page, Integer> sectionLength : sectionLengths.entrySet()) {
+            pageMinFileIndex.resizeSection(sectionLength.getKey(), sectionLength.getValue());
+        }
+        return true;
+    }
+
+    private static boolean regionMatches(byte[] content, int position, byte[] bytes) {
+        if (position < 0 || position + bytes.length > content.length) {
+            return false;
+        }
+        for (int i = 0; i < bytes.length; i++) {
+            if (content[position + i] != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean regionMatches(java.io.File file, long position, byte[] bytes) {
+        RandomAccessFile randomAccessFile = null;
+        try {
+            randomAccessFile = new RandomAccessFile(file, "r");
+            if (position < 0 || position + bytes.length > randomAccessFile.length()) {
+                return false;
+            }
+            byte[] region = new byte[bytes.length];
+            randomAccessFile.seek(position);
+            randomAccessFile.readFully(region);
+            return Arrays.equals(region, bytes);
+        } catch (IOException e) {
+            throw new WMRuntimeException("Failed to read " + file.getName(), e);
+        } finally {
+            IOUtils.closeSilently(randomAccessFile);
+        }
     }
 
     private static String replacePageContent(String fileContent, String startElement, String endElement, String pageContent) {
@@ -70,4 +263,18 @@ public class PageMinFileUpdator {
         }
     }
 
+    private static class SectionStartComparator implements Comparator<Page> {
+        private final PageMinFileIndex pageMinFileIndex;
+
+        private SectionStartComparator(PageMinFileIndex pageMinFileIndex) {
+            this.pageMinFileIndex = pageMinFileIndex;
+        }
+
+        @Override
+        public int compare(Page page, Page otherPage) {
+            long start = pageMinFileIndex.getStart(page);
+            long otherStart = pageMinFileIndex.getStart(otherPage);
+            return start < otherStart ? -1 : (start == otherStart ? 0 : 1);
+        }
+    }
 }
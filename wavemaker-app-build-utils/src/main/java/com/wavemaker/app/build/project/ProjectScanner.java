@@ -0,0 +1,152 @@
+/**
+ * Copyright © 2013 - 2017 WaveMaker, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wavemaker.app.build.project;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.wavemaker.commons.WMRuntimeException;
+
+/**
+ * Walks the project tree once to build a {@link ProjectSnapshot} of the pages, services, service java sources and
+ * variables files. Folders with one of the pruned names, such as build outputs and node modules, are not walked,
+ * except inside the src folder of services where every java source is needed.
+ */
+public class ProjectScanner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProjectScanner.class);
+
+    public static final String[] DEFAULT_PRUNED_DIRECTORIES = {"target", "node_modules", ".git", ".svn"};
+
+    private static final String SERVICE_SRC_FOLDER = "src";
+    private static final String PREFABS_FOLDER = "app/prefabs";
+    private static final String JAVA_EXTENSION = ".java";
+    private static final String VARIABLES_EXTENSION = ".variables.json";
+
+    private final Path rootPath;
+    private final Path pagesPath;
+    private final Path servicesPath;
+    private final Path prefabsPath;
+    private Set<String> prunedDirectories = new HashSet<>(Arrays.asList(DEFAULT_PRUNED_DIRECTORIES));
+
+    /**
+     * @param pagesDirectory    pages folder, relative to the root folder.
+     * @param servicesDirectory services folder, relative to the root folder.
+     */
+    public ProjectScanner(java.io.File rootFolder, String pagesDirectory, String servicesDirectory) {
+        if (rootFolder == null || !rootFolder.isDirectory()) {
+            throw new WMRuntimeException("Project root folder is null or does not exist");
+        }
+        this.rootPath = rootFolder.toPath().toAbsolutePath().normalize();
+        this.pagesPath = rootPath.resolve(pagesDirectory).normalize();
+        this.servicesPath = rootPath.resolve(servicesDirectory).normalize();
+        this.prefabsPath = rootPath.resolve(PREFABS_FOLDER);
+    }
+
+    /**
+     * Sets the names of the folders which are not walked, defaults to {@link #DEFAULT_PRUNED_DIRECTORIES}.
+     */
+    public ProjectScanner setPrunedDirectories(Collection<String> prunedDirectories) {
+        this.prunedDirectories = new HashSet<>(prunedDirectories);
+        return this;
+    }
+
+    public ProjectSnapshot scan() {
+        final ProjectSnapshot projectSnapshot = new ProjectSnapshot();
+        long startTime = System.currentTimeMillis();
+        try {
+            Files.walkFileTree(rootPath, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    Path parent = dir.getParent();
+                    if (pagesPath.equals(parent)) {
+                        projectSnapshot.addPage(dir.getFileName().toString());
+                    } else if (servicesPath.equals(parent)) {
+                        projectSnapshot.addService(dir.getFileName().toString());
+                    } else if (!dir.equals(rootPath) && prunedDirectories.contains(dir.getFileName().toString())
+                            && getServiceSrcPath(dir) == null) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    String fileName = file.getFileName().toString();
+                    if (fileName.endsWith(JAVA_EXTENSION)) {
+                        Path serviceSrcPath = getServiceSrcPath(file);
+                        if (serviceSrcPath != null) {
+                            projectSnapshot.addJavaSource(serviceSrcPath.getParent().getFileName().toString(),
+                                    toRelativePath(serviceSrcPath, file));
+                        }
+                    } else if (fileName.endsWith(VARIABLES_EXTENSION) && !file.startsWith(prefabsPath)) {
+                        projectSnapshot.addVariableFile(toRelativePath(rootPath, file));
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    logger.warn("Skipping unreadable path {}", file, e);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            throw new WMRuntimeException("Failed to scan project " + rootPath, e);
+        }
+        logger.debug("Scanned project {} in {} ms", rootPath, System.currentTimeMillis() - startTime);
+        return projectSnapshot;
+    }
+
+    /**
+     * @return the src folder of the service containing the given path, or null when the path is not in the src
+     * folder of a service.
+     */
+    private Path getServiceSrcPath(Path path) {
+        if (!path.startsWith(servicesPath)) {
+            return null;
+        }
+        Path relativePath = servicesPath.relativize(path);
+        if (relativePath.getNameCount() < 2 || !SERVICE_SRC_FOLDER.equals(relativePath.getName(1).toString())) {
+            return null;
+        }
+        return servicesPath.resolve(relativePath.subpath(0, 2));
+    }
+
+    private static String toRelativePath(Path base, Path path) {
+        StringBuilder relativePath = new StringBuilder();
+        Iterator<Path> names = base.relativize(path).iterator();
+        while (names.hasNext()) {
+            relativePath.append(names.next().toString());
+            if (names.hasNext()) {
+                relativePath.append('/');
+            }
+        }
+        return relativePath.toString();
+    }
+}
@@ -0,0 +1,85 @@
+/**
+ * Copyright © 2013 - 2017 WaveMaker, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wavemaker.app.build.project;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Files of interest to the app build, collected by a single walk of the project by {@link ProjectScanner}. All paths
+ * use '/' as separator and all lists are sorted.
+ */
+public class ProjectSnapshot {
+
+    private final TreeSet<String> pageNames = new TreeSet<>();
+    private final TreeSet<String> serviceNames = new TreeSet<>();
+    private final Map<String, TreeSet<String>> javaSources = new TreeMap<>();
+    private final TreeSet<String> variableFiles = new TreeSet<>();
+
+    /**
+     * @return names of the folders of the pages folder.
+     */
+    public List<String> getPageNames() {
+        return new ArrayList<>(pageNames);
+    }
+
+    /**
+     * @return names of the folders of the services folder.
+     */
+    public List<String> getServiceNames() {
+        return new ArrayList<>(serviceNames);
+    }
+
+    /**
+     * @return paths of the java files of the service, relative to its src folder.
+     */
+    public List<String> getJavaSources(String serviceName) {
+        TreeSet<String> serviceJavaSources = javaSources.get(serviceName);
+        return serviceJavaSources == null ? Collections.<String>emptyList() : new ArrayList<>(serviceJavaSources);
+    }
+
+    /**
+     * @return paths of the variables json files, relative to the project root, prefabs excluded.
+     */
+    public List<String> getVariableFiles() {
+        return new ArrayList<>(variableFiles);
+    }
+
+    void addPage(String pageName) {
+        pageNames.add(pageName);
+    }
+
+    void addService(String serviceName) {
+        serviceNames.add(serviceName);
+    }
+
+    void addJavaSource(String serviceName, String javaSource) {
+        TreeSet<String> serviceJavaSources = javaSources.get(serviceName);
+        if (serviceJavaSources == null) {
+            serviceJavaSources = new TreeSet<>();
+            javaSources.put(serviceName, serviceJavaSources);
+        }
+        serviceJavaSources.add(javaSource);
+    }
+
+    void addVariableFile(String variableFile) {
+        variableFiles.add(variableFile);
+    }
+}
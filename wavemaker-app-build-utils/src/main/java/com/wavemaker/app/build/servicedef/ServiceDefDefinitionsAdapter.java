@@ -11,6 +11,10 @@ import com.wavemaker.tools.apidocs.tools.core.model.properties.Property;
 import com.wavemaker.tools.apidocs.tools.core.model.properties.RefProperty;
 
 /**
+ * Builds the definition parameters of the models used by body parameters. The fields generated for a model at a given
+ * depth are memoized, so an adapter can be shared by all the operations of a swagger, and a model already being
+ * traversed is not traversed again so that recursive models terminate whatever the depth.
+ *
  * @author <a href="mailto:sunil.pulugula@wavemaker.com">Sunil Kumar</a>
  * @since 9/2/17
  */
@@ -18,22 +22,25 @@ public class ServiceDefDefinitionsAdapter {
 
     private final Swagger swagger;
     private final ServiceDefParameterCriteria criteria;
-    Map<String, Set<com.wavemaker.commons.servicedef.model.Parameter>> parameters = new HashMap<>();
+
+    private final Map<Model, Map<Integer, Map<String, Set<com.wavemaker.commons.servicedef.model.Parameter>>>> modelFields = new IdentityHashMap<>();
+    private final Map<Model, Integer> modelsInProgress = new IdentityHashMap<>();
 
     public ServiceDefDefinitionsAdapter(final Swagger swagger, final ServiceDefParameterCriteria criteria) {
         this.swagger = swagger;
         this.criteria = criteria;
     }
 
-    public Map<String, Set<com.wavemaker.commons.servicedef.model.Parameter>> adaptToDefinitions(final Parameter parameter, final int depth) {
+    public synchronized Map<String, Set<com.wavemaker.commons.servicedef.model.Parameter>> adaptToDefinitions(final Parameter parameter, final int depth) {
         final Map<String, Model> definitions = swagger.getDefinitions();
+        final Fields fields = new Fields(Integer.MAX_VALUE);
         if (parameter instanceof BodyParameter) {
             BodyParameter bodyParameter = (BodyParameter) parameter;
             Model model = bodyParameter.getSchema();
             if (model instanceof RefModel) {
                 // when body is Object or Object<Object>
                 RefModel refModel = (RefModel) model;
-                generateFieldsFromRefModels(refModel, depth);
+                generateFieldsFromRefModels(refModel, depth, fields);
             }
             if (model instanceof ArrayModel) {
                 //When Body is List<String>,Set<Object>...
@@ -49,7 +56,7 @@ public class ServiceDefDefinitionsAdapter {
                     if (property instanceof RefProperty) {
                         String refName = ((RefProperty) property).getSimpleRef();
                         final Model actualModel = definitions.get(refName);
-                        generateFields(actualModel, depth);
+                        generateFields(actualModel, depth, fields);
                     }
                     if (property instanceof ArrayProperty) {
                         //FIXME check if this case exist i,e List<List<Integer>> or Array[List<Object>]..
@@ -58,10 +65,10 @@ public class ServiceDefDefinitionsAdapter {
                 }
             }
         }
-        return parameters;
+        return fields.parameters;
     }
 
-    private void generateFieldsFromRefModels(final RefModel refModel, final int depth) {
+    private void generateFieldsFromRefModels(final RefModel refModel, final int depth, final Fields fields) {
         final Map<String, Model> definitions = swagger.getDefinitions();
         List<Model> argumentModel = refModel.getTypeArguments();
         if (argumentModel.size() > 0) {
@@ -71,20 +78,42 @@ public class ServiceDefDefinitionsAdapter {
                 RefModel refArgModel = (RefModel) argModel;
                 Model actualArgModel = definitions.get(refArgModel.getSimpleRef());
                 if (actualArgModel != null) {
-                    generateFields(actualArgModel, depth);
+                    generateFields(actualArgModel, depth, fields);
                 }
             }
         } else {
             final Model model = definitions.get(refModel.getSimpleRef());
-            generateFields(model, depth);
+            generateFields(model, depth, fields);
         }
     }
 
+    /**
+     * Adds the fields of the model up to the given depth. Fields of a model only depend on the model and the depth,
+     * except when a model being traversed was skipped below it, so only the fields not affected by such a skip are
+     * memoized.
+     */
+    private void generateFields(final Model model, final int depth, final Fields fields) {
+        if (depth <= 0 || model == null) {
+            return;
+        }
+        Map<Integer, Map<String, Set<com.wavemaker.commons.servicedef.model.Parameter>>> fieldsByDepth = modelFields.get(model);
+        if (fieldsByDepth != null && fieldsByDepth.containsKey(depth)) {
+            fields.addAll(fieldsByDepth.get(depth));
+            return;
+        }
+        Integer stackPosition = modelsInProgress.get(model);
+        if (stackPosition != null) {
+            // fields of the model at a lower depth are a subset of the fields it is already adding
+            fields.skippedPosition = Math.min(fields.skippedPosition, stackPosition);
+            return;
+        }
 
-    private void generateFields(final Model model, final int depth) {
-        if (depth > 0) {
+        int position = modelsInProgress.size();
+        modelsInProgress.put(model, position);
+        Fields modelFieldsAtDepth = new Fields(Integer.MAX_VALUE);
+        try {
             if (model instanceof ModelImpl) {
-                generateFieldsFromModel(model, depth);
+                generateFieldsFromModel(model, depth, modelFieldsAtDepth);
             } else if (model instanceof ComposedModel) {
                 ComposedModel composedModel = (ComposedModel) model;
                 final List<Model> allOf = composedModel.getAllOf();
@@ -94,42 +123,55 @@ public class ServiceDefDefinitionsAdapter {
                         if (properties != null) {
                             for (Map.Entry<String, Property> propertyEntry : properties.entrySet()) {
                                 final com.wavemaker.commons.servicedef.model.Parameter parameter = buildParameter(propertyEntry.getKey(), propertyEntry.getValue());
-                                addParameter(composedModel.getFullyQualifiedName(), parameter);
+                                addParameter(modelFieldsAtDepth.parameters, composedModel.getFullyQualifiedName(), parameter);
                                 if (propertyEntry.getValue() instanceof RefProperty) {
-                                    handleRefProperty(propertyEntry.getKey(), (RefProperty) propertyEntry.getValue(), depth - 1);
+                                    handleRefProperty(propertyEntry.getKey(), (RefProperty) propertyEntry.getValue(), depth - 1, modelFieldsAtDepth);
                                 } else if (propertyEntry.getValue() instanceof ArrayProperty) {
-                                    handleArrayProperty(propertyEntry.getKey(), (ArrayProperty) propertyEntry.getValue(), depth - 1);
+                                    handleArrayProperty(propertyEntry.getKey(), (ArrayProperty) propertyEntry.getValue(), depth - 1, modelFieldsAtDepth);
                                 }
                             }
                         }
                     } else {
-                        generateFields(eachModel, depth);
+                        generateFields(eachModel, depth, modelFieldsAtDepth);
                     }
                 }
             }
+        } finally {
+            modelsInProgress.remove(model);
+        }
+
+        if (modelFieldsAtDepth.skippedPosition >= position) {
+            if (fieldsByDepth == null) {
+                fieldsByDepth = new HashMap<>();
+                modelFields.put(model, fieldsByDepth);
+            }
+            fieldsByDepth.put(depth, modelFieldsAtDepth.parameters);
+        } else {
+            fields.skippedPosition = Math.min(fields.skippedPosition, modelFieldsAtDepth.skippedPosition);
         }
+        fields.addAll(modelFieldsAtDepth.parameters);
     }
 
 
-    private void generateFieldsFromModel(Model model, final int depth) {
+    private void generateFieldsFromModel(Model model, final int depth, final Fields fields) {
         ModelImpl actualModel = (ModelImpl) model;
         final Map<String, Property> properties = actualModel.getProperties();
         if (properties != null) {
             for (String propertyName : properties.keySet()) {
                 final Property property = properties.get(propertyName);
                 final com.wavemaker.commons.servicedef.model.Parameter parameter = buildParameter(propertyName, property);
-                addParameter(actualModel.getFullyQualifiedName(), parameter);
+                addParameter(fields.parameters, actualModel.getFullyQualifiedName(), parameter);
                 if (property instanceof ArrayProperty) {
-                    handleArrayProperty(propertyName, (ArrayProperty) property, depth - 1);
+                    handleArrayProperty(propertyName, (ArrayProperty) property, depth - 1, fields);
                 } else if (property instanceof RefProperty) {
-                    handleRefProperty(propertyName, (RefProperty) property, depth - 1);
+                    handleRefProperty(propertyName, (RefProperty) property, depth - 1, fields);
                 }
             }
         }
     }
 
 
-    private void handleRefProperty(final String propertyName, final RefProperty property, final int depth) {
+    private void handleRefProperty(final String propertyName, final RefProperty property, final int depth, final Fields fields) {
         RefProperty refProperty = property;
         // TODO this case needs to be handle
         //this case occurs when property is Object<Object,Object....> eq : Page<Employee>
@@ -140,11 +182,11 @@ public class ServiceDefDefinitionsAdapter {
             }
         }*/
         final Model model = swagger.getDefinitions().get(((RefProperty) property).getSimpleRef());
-        generateFields(model, depth);
+        generateFields(model, depth, fields);
 
     }
 
-    private void handleArrayProperty(final String propertyName, final ArrayProperty property, final int depth) {
+    private void handleArrayProperty(final String propertyName, final ArrayProperty property, final int depth, final Fields fields) {
         //this case occurs what property is List<int> || Set<Emp> || List<User> || Set<String> || ......
         ArrayProperty arrayProperty = property;
         boolean isList = arrayProperty.isList();
@@ -154,7 +196,7 @@ public class ServiceDefDefinitionsAdapter {
                 // case : List<someObject> or Set<someObject>
                 RefProperty refProperty = (RefProperty) argProperty;
                 final Model refModel = swagger.getDefinitions().get(refProperty.getSimpleRef());
-                generateFields(refModel, depth);
+                generateFields(refModel, depth, fields);
             }
         }
     }
@@ -170,7 +212,8 @@ public class ServiceDefDefinitionsAdapter {
         return parameter;
     }
 
-    protected void addParameter(final String key, final com.wavemaker.commons.servicedef.model.Parameter value) {
+    protected void addParameter(final Map<String, Set<com.wavemaker.commons.servicedef.model.Parameter>> parameters,
+                                final String key, final com.wavemaker.commons.servicedef.model.Parameter value) {
         if (!parameters.keySet().contains(key)) {
             parameters.put(key, new HashSet<com.wavemaker.commons.servicedef.model.Parameter>());
         }
@@ -178,4 +221,28 @@ public class ServiceDefDefinitionsAdapter {
             parameters.get(key).add(value);
         }
     }
+
+    /**
+     * Fields generated by a traversal, along with the lowest position in the traversal stack of a model skipped
+     * because it was already being traversed.
+     */
+    private static class Fields {
+        private final Map<String, Set<com.wavemaker.commons.servicedef.model.Parameter>> parameters = new HashMap<>();
+        private int skippedPosition;
+
+        private Fields(int skippedPosition) {
+            this.skippedPosition = skippedPosition;
+        }
+
+        private void addAll(Map<String, Set<com.wavemaker.commons.servicedef.model.Parameter>> otherParameters) {
+            for (Map.Entry<String, Set<com.wavemaker.commons.servicedef.model.Parameter>> entry : otherParameters.entrySet()) {
+                Set<com.wavemaker.commons.servicedef.model.Parameter> keyParameters = parameters.get(entry.getKey());
+                if (keyParameters == null) {
+                    keyParameters = new HashSet<>();
+                    parameters.put(entry.getKey(), keyParameters);
+                }
+                keyParameters.addAll(entry.getValue());
+            }
+        }
+    }
 }
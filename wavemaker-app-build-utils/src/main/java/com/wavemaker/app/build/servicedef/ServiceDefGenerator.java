@@ -22,6 +22,7 @@ import java.util.*;
 import com.wavemaker.app.build.adapter.ServiceDefPropertiesAdapter;
 import com.wavemaker.app.build.exception.ServiceDefGenerationException;
 import com.wavemaker.commons.OperationNotExistException;
+import com.wavemaker.commons.WMRuntimeException;
 import com.wavemaker.commons.json.JSONUtils;
 import com.wavemaker.commons.servicedef.model.Parameter;
 import com.wavemaker.commons.servicedef.model.RuntimeProxySettings;
@@ -45,9 +46,30 @@ public class ServiceDefGenerator {
     private final ServiceDefPropertiesAdapter serviceDefPropertiesAdapter = new ServiceDefPropertiesAdapter();
 
     private final Swagger swagger;
+    private final ServiceDefDefinitionsAdapter serviceDefDefinitionsAdapter;
+    private Map<String, OperationEntry> operationIndex;
+    private int parametersDepth = PARAMETERS_DEPTH;
 
     public ServiceDefGenerator(final Swagger swagger) {
         this.swagger = swagger;
+        this.serviceDefDefinitionsAdapter = new ServiceDefDefinitionsAdapter(swagger, new ServiceDefParameterCriteria() {
+            @Override
+            public boolean meetCriteria(final Parameter parameter) {
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Sets how deep the models of body parameters are traversed to build the definitions, defaults to
+     * {@link #PARAMETERS_DEPTH}. Models are traversed once per depth for all the operations.
+     */
+    public ServiceDefGenerator setParametersDepth(int parametersDepth) {
+        if (parametersDepth < 0) {
+            throw new WMRuntimeException("Parameters depth should not be negative, found " + parametersDepth);
+        }
+        this.parametersDepth = parametersDepth;
+        return this;
     }
 
     /**
@@ -55,32 +77,37 @@ public class ServiceDefGenerator {
      */
     public Map<String, ServiceDefinition> generate() throws ServiceDefGenerationException {
         Map<String, ServiceDefinition> serviceDefs = new HashMap<>();
-        if (swagger.getPaths() != null) {
-            try {
-                for (Map.Entry entry : swagger.getPaths().entrySet()) {
-                    Path path = (Path) entry.getValue();
-                    for (Operation operation : path.getOperations())
-                        if (operation != null) {
-
-                            final String operationHttpType = new PathHandler(entry.getKey().toString(), path).getOperationType(operation.getOperationId());
-                            final String operationType = new OperationHandler(operation, swagger.getDefinitions()).getFullyQualifiedReturnType();
-                            final String serviceOperationRelativePath = getServiceOperationRelativePath(swagger, path);
-                            final WMServiceOperationInfo operationInfo = buildWMServiceOperationInfo(swagger,
-                                    operation, operationHttpType, serviceOperationRelativePath, path.getCompletePath());
-
+        try {
+            for (OperationEntry operationEntry : getOperationIndex().values()) {
+                serviceDefs.put(operationEntry.operation.getOperationId(), buildServiceDefinition(operationEntry));
+            }
+        } catch (Exception e) {
+            throw new ServiceDefGenerationException(e);
+        }
+        return serviceDefs;
+    }
 
-                            serviceDefs.put(operation.getOperationId(), new ServiceDefinition().getNewInstance()
-                                    .addId(operation.getOperationId())
-                                    .addController(operation.getTags().get(0))
-                                    .addType(operationType)
-                                    .addOperationType(operationType)
-                                    .addService(swagger.getInfo().getServiceId())
-                                    .addWmServiceOperationInfo(operationInfo));
-                        }
+    /**
+     * Generates service definitions for the given operation Ids, operation Ids which do not exist in the swagger are
+     * ignored.
+     *
+     * @param operationIds operation Ids to generate, all operations when null.
+     */
+    public Map<String, ServiceDefinition> generate(Collection<String> operationIds) throws ServiceDefGenerationException {
+        if (operationIds == null) {
+            return generate();
+        }
+        Map<String, ServiceDefinition> serviceDefs = new HashMap<>();
+        try {
+            Map<String, OperationEntry> operationIndex = getOperationIndex();
+            for (String operationId : operationIds) {
+                OperationEntry operationEntry = operationIndex.get(operationId);
+                if (operationEntry != null) {
+                    serviceDefs.put(operationId, buildServiceDefinition(operationEntry));
                 }
-            } catch (Exception e) {
-                throw new ServiceDefGenerationException(e);
             }
+        } catch (Exception e) {
+            throw new ServiceDefGenerationException(e);
         }
         return serviceDefs;
     }
@@ -93,28 +120,11 @@ public class ServiceDefGenerator {
      * @throws OperationNotExistException when operationId does not exist in the swagger object.
      */
     public ServiceDefinition generate(String operationId) throws OperationNotExistException, ServiceDefGenerationException {
+        OperationEntry operationEntry;
         try {
-            for (Map.Entry entry : swagger.getPaths().entrySet()) {
-                Path path = (Path) entry.getValue();
-                for (Operation operation : path.getOperations())
-                    if (operation != null) {
-                        if (operation.getOperationId().equals(operationId)) {
-                            final String operationHttpType = new PathHandler(entry.getKey().toString(), path).getOperationType(operation.getOperationId());
-                            final String operationType = new OperationHandler(operation, swagger.getDefinitions()).getFullyQualifiedReturnType();
-                            final String serviceOperationRelativePath = getServiceOperationRelativePath(swagger, path);
-                            final WMServiceOperationInfo operationInfo = buildWMServiceOperationInfo(swagger,
-                                    operation, operationHttpType, serviceOperationRelativePath, path.getCompletePath());
-
-
-                            return new ServiceDefinition().getNewInstance()
-                                    .addId(operation.getOperationId())
-                                    .addController(operation.getTags().get(0))
-                                    .addType(operationType)
-                                    .addOperationType(operationType)
-                                    .addService(swagger.getInfo().getServiceId())
-                                    .addWmServiceOperationInfo(operationInfo);
-                        }
-                    }
+            operationEntry = getOperationIndex().get(operationId);
+            if (operationEntry != null) {
+                return buildServiceDefinition(operationEntry);
             }
         } catch (Exception e) {
             throw new ServiceDefGenerationException(e);
@@ -122,6 +132,46 @@ public class ServiceDefGenerator {
         throw new OperationNotExistException("Operation Id " + operationId + " does not exist in service " + swagger.getInfo().getServiceId());
     }
 
+    /**
+     * Operations of the swagger keyed by operation Id, in path order, built on first use. When an operation Id is
+     * repeated the last operation wins, as it does in {@link #generate()}.
+     */
+    private synchronized Map<String, OperationEntry> getOperationIndex() {
+        if (operationIndex == null) {
+            Map<String, OperationEntry> operations = new LinkedHashMap<>();
+            if (swagger.getPaths() != null) {
+                for (Map.Entry<String, Path> entry : swagger.getPaths().entrySet()) {
+                    Path path = entry.getValue();
+                    for (Operation operation : path.getOperations()) {
+                        if (operation != null) {
+                            operations.put(operation.getOperationId(), new OperationEntry(entry.getKey(), path, operation));
+                        }
+                    }
+                }
+            }
+            operationIndex = operations;
+        }
+        return operationIndex;
+    }
+
+    ServiceDefinition buildServiceDefinition(final OperationEntry operationEntry) {
+        final Path path = operationEntry.path;
+        final Operation operation = operationEntry.operation;
+        final String operationHttpType = operationEntry.getHttpMethod();
+        final String operationType = new OperationHandler(operation, swagger.getDefinitions()).getFullyQualifiedReturnType();
+        final String serviceOperationRelativePath = getServiceOperationRelativePath(swagger, path);
+        final WMServiceOperationInfo operationInfo = buildWMServiceOperationInfo(swagger,
+                operation, operationHttpType, serviceOperationRelativePath, path.getCompletePath());
+
+
+        return new ServiceDefinition().getNewInstance()
+                .addId(operation.getOperationId())
+                .addController(operation.getTags().get(0))
+                .addType(operationType)
+                .addOperationType(operationType)
+                .addService(swagger.getInfo().getServiceId())
+                .addWmServiceOperationInfo(operationInfo);
+    }
 
     private WMServiceOperationInfo buildWMServiceOperationInfo(final Swagger swagger, final Operation operation,
                                                                final String httpMethod, final String relativePath,
@@ -152,13 +202,7 @@ public class ServiceDefGenerator {
     }
 
     private void buildDefinitions(final Swagger swagger, final com.wavemaker.tools.apidocs.tools.core.model.parameters.Parameter parameter, final Map<String, Set<Parameter>> definitions) {
-        final ServiceDefDefinitionsAdapter serviceDefDefinitionsAdapter = new ServiceDefDefinitionsAdapter(swagger, new ServiceDefParameterCriteria() {
-            @Override
-            public boolean meetCriteria(final Parameter parameter) {
-                return true;
-            }
-        });
-        final Map<String, Set<Parameter>> requiredDefinitions = serviceDefDefinitionsAdapter.adaptToDefinitions(parameter, PARAMETERS_DEPTH);
+        final Map<String, Set<Parameter>> requiredDefinitions = serviceDefDefinitionsAdapter.adaptToDefinitions(parameter, parametersDepth);
         if (requiredDefinitions != null) {
             definitions.putAll(requiredDefinitions);
         }
@@ -242,4 +286,23 @@ public class ServiceDefGenerator {
         }
     }
 
+    static class OperationEntry {
+        final String pathKey;
+        final Path path;
+        final Operation operation;
+        private String httpMethod;
+
+        private OperationEntry(String pathKey, Path path, Operation operation) {
+            this.pathKey = pathKey;
+            this.path = path;
+            this.operation = operation;
+        }
+
+        private synchronized String getHttpMethod() {
+            if (httpMethod == null) {
+                httpMethod = new PathHandler(pathKey, path).getOperationType(operation.getOperationId());
+            }
+            return httpMethod;
+        }
+    }
 }
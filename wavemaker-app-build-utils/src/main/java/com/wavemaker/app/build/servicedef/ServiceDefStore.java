@@ -0,0 +1,163 @@
+/**
+ * Copyright © 2013 - 2017 WaveMaker, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wavemaker.app.build.servicedef;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+
+import com.wavemaker.commons.WMRuntimeException;
+import com.wavemaker.commons.json.JSONUtils;
+import com.wavemaker.commons.servicedef.model.ServiceDefinition;
+import com.wavemaker.commons.util.IOUtils;
+
+/**
+ * Read only store of the service definitions of all the services of an app, written by {@link ServiceDefStoreWriter}.
+ * The store file is memory mapped and a service definition is only deserialized when it is looked up, so that the
+ * runtime does not parse the definitions of every service at startup. Lookups can be made from several threads.
+ *
+ * The store is made of, with big endian integers:
+ * <ul>
+ * <li>a header holding the {@link #MAGIC} number, the {@link #VERSION} of the format and the number of entries,</li>
+ * <li>the table of entries sorted by key, each entry holding the offset and length of its key and of its value,</li>
+ * <li>the keys, &lt;serviceId&gt;/&lt;operationId&gt; in UTF-8,</li>
+ * <li>the values, each service definition in JSON.</li>
+ * </ul>
+ */
+public class ServiceDefStore {
+
+    public static final int MAGIC = 0x574D5344;
+    public static final int VERSION = 1;
+    static final int HEADER_SIZE = 3 * 4;
+    static final int ENTRY_SIZE = 4 * 4;
+    static final char KEY_SEPARATOR = '/';
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final ByteBuffer buffer;
+    private final int entryCount;
+
+    private ServiceDefStore(ByteBuffer buffer) {
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new WMRuntimeException("Not a service definitions store");
+        }
+        int version = buffer.getInt(4);
+        if (version != VERSION) {
+            throw new WMRuntimeException("Unsupported service definitions store version " + version + ", expected " + VERSION);
+        }
+        this.entryCount = buffer.getInt(8);
+        if (entryCount < 0 || HEADER_SIZE + (long) entryCount * ENTRY_SIZE > buffer.capacity()) {
+            throw new WMRuntimeException("Corrupted service definitions store of " + entryCount + " entries");
+        }
+        this.buffer = buffer;
+    }
+
+    /**
+     * Memory maps the store file, which should not be modified while the store is in use.
+     */
+    public static ServiceDefStore open(java.io.File file) {
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            // the mapping stays valid once the channel is closed
+            return new ServiceDefStore(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException e) {
+            throw new WMRuntimeException("Failed to open service definitions store " + file.getName(), e);
+        } finally {
+            IOUtils.closeSilently(channel);
+        }
+    }
+
+    public static ServiceDefStore wrap(byte[] content) {
+        return new ServiceDefStore(ByteBuffer.wrap(content));
+    }
+
+    public int size() {
+        return entryCount;
+    }
+
+    public boolean contains(String serviceId, String operationId) {
+        return indexOf(getKey(serviceId, operationId)) >= 0;
+    }
+
+    /**
+     * @return the service definition of the operation of the service, null when the store does not hold it.
+     */
+    public ServiceDefinition getServiceDefinition(String serviceId, String operationId) {
+        int index = indexOf(getKey(serviceId, operationId));
+        if (index < 0) {
+            return null;
+        }
+        int entryOffset = HEADER_SIZE + index * ENTRY_SIZE;
+        byte[] value = read(buffer.getInt(entryOffset + 8), buffer.getInt(entryOffset + 12));
+        try {
+            return JSONUtils.toObject(new ByteArrayInputStream(value), ServiceDefinition.class);
+        } catch (IOException e) {
+            throw new WMRuntimeException("Failed to read service definition of operation " + operationId + " of service "
+                    + serviceId, e);
+        }
+    }
+
+    /**
+     * @return the key of the entry at the given index of the table, in key order.
+     */
+    public String getKey(int index) {
+        if (index < 0 || index >= entryCount) {
+            throw new WMRuntimeException("Entry " + index + " is out of the " + entryCount + " entries of the store");
+        }
+        int entryOffset = HEADER_SIZE + index * ENTRY_SIZE;
+        return new String(read(buffer.getInt(entryOffset), buffer.getInt(entryOffset + 4)), UTF_8);
+    }
+
+    static String getKey(String serviceId, String operationId) {
+        if (serviceId == null || operationId == null) {
+            throw new WMRuntimeException("Service id or operation id is null");
+        }
+        return serviceId + KEY_SEPARATOR + operationId;
+    }
+
+    private int indexOf(String key) {
+        int low = 0;
+        int high = entryCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = getKey(middle).compareTo(key);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    private byte[] read(int offset, int length) {
+        if (offset < 0 || length < 0 || (long) offset + length > buffer.capacity()) {
+            throw new WMRuntimeException("Corrupted service definitions store, range [" + offset + ", " + ((long) offset + length)
+                    + "] is out of its " + buffer.capacity() + " bytes");
+        }
+        byte[] bytes = new byte[length];
+        // a duplicate has its own position, lookups from several threads do not interfere
+        ByteBuffer region = buffer.duplicate();
+        region.position(offset);
+        region.get(bytes);
+        return bytes;
+    }
+}
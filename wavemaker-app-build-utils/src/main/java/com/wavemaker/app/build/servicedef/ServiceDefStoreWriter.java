@@ -0,0 +1,123 @@
+/**
+ * Copyright © 2013 - 2017 WaveMaker, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wavemaker.app.build.servicedef;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.wavemaker.app.build.io.GeneratedFileWriter;
+import com.wavemaker.commons.WMRuntimeException;
+import com.wavemaker.commons.io.File;
+import com.wavemaker.commons.io.local.LocalFile;
+import com.wavemaker.commons.json.JSONUtils;
+import com.wavemaker.commons.servicedef.model.ServiceDefinition;
+
+/**
+ * Builds the {@link ServiceDefStore} of the service definitions of an app. The entries are sorted by key when the
+ * store is written, so the store only depends on the definitions added and not on the order they were added in.
+ */
+public class ServiceDefStoreWriter {
+
+    private static final String TEMPORARY_EXTENSION = ".tmp";
+
+    private final Map<String, ServiceDefinition> serviceDefinitions = new TreeMap<>();
+
+    public ServiceDefStoreWriter add(String serviceId, String operationId, ServiceDefinition serviceDefinition) {
+        if (serviceDefinition == null) {
+            throw new WMRuntimeException("Service definition of operation " + operationId + " of service " + serviceId + " is null");
+        }
+        serviceDefinitions.put(ServiceDefStore.getKey(serviceId, operationId), serviceDefinition);
+        return this;
+    }
+
+    /**
+     * Adds the service definitions of the service by operation id.
+     */
+    public ServiceDefStoreWriter add(String serviceId, Map<String, ServiceDefinition> serviceDefinitions) {
+        for (Map.Entry<String, ServiceDefinition> entry : serviceDefinitions.entrySet()) {
+            add(serviceId, entry.getKey(), entry.getValue());
+        }
+        return this;
+    }
+
+    public byte[] toBytes() {
+        int entryCount = serviceDefinitions.size();
+        byte[][] keys = new byte[entryCount][];
+        byte[][] values = new byte[entryCount][];
+        long keysSize = 0;
+        long valuesSize = 0;
+        int index = 0;
+        for (Map.Entry<String, ServiceDefinition> entry : serviceDefinitions.entrySet()) {
+            keys[index] = entry.getKey().getBytes(ServiceDefStore.UTF_8);
+            values[index] = toJson(entry.getKey(), entry.getValue());
+            keysSize += keys[index].length;
+            valuesSize += values[index].length;
+            index++;
+        }
+        long size = ServiceDefStore.HEADER_SIZE + (long) entryCount * ServiceDefStore.ENTRY_SIZE + keysSize + valuesSize;
+        if (size > Integer.MAX_VALUE) {
+            throw new WMRuntimeException("Service definitions store of " + size + " bytes is too large");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) size);
+        buffer.putInt(ServiceDefStore.MAGIC).putInt(ServiceDefStore.VERSION).putInt(entryCount);
+        int keyOffset = ServiceDefStore.HEADER_SIZE + entryCount * ServiceDefStore.ENTRY_SIZE;
+        int valueOffset = (int) (keyOffset + keysSize);
+        for (int i = 0; i < entryCount; i++) {
+            buffer.putInt(keyOffset).putInt(keys[i].length).putInt(valueOffset).putInt(values[i].length);
+            keyOffset += keys[i].length;
+            valueOffset += values[i].length;
+        }
+        for (byte[] key : keys) {
+            buffer.put(key);
+        }
+        for (byte[] value : values) {
+            buffer.put(value);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Writes the store to a temporary file next to the store file and replaces the store file with it, unless it is
+     * unchanged. The store file is never written in place, since a store opened on it maps the file in memory.
+     */
+    public void write(File storeFile, GeneratedFileWriter generatedFileWriter) {
+        java.io.File localStoreFile = ((LocalFile) storeFile).getLocalFile();
+        java.io.File newStoreFile = new java.io.File(localStoreFile.getParentFile(), localStoreFile.getName() + TEMPORARY_EXTENSION);
+        try {
+            Files.createDirectories(localStoreFile.getParentFile().toPath());
+            Files.write(newStoreFile.toPath(), toBytes());
+            generatedFileWriter.replace(localStoreFile, newStoreFile);
+        } catch (IOException e) {
+            throw new WMRuntimeException("Failed to write service definitions store " + storeFile.getName(), e);
+        } finally {
+            newStoreFile.delete();
+        }
+    }
+
+    private static byte[] toJson(String key, ServiceDefinition serviceDefinition) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try {
+            JSONUtils.toJSON(outputStream, serviceDefinition, false);
+        } catch (IOException e) {
+            throw new WMRuntimeException("Failed to serialize service definition " + key, e);
+        }
+        return outputStream.toByteArray();
+    }
+}
@@ -0,0 +1,56 @@
+/**
+ * Copyright © 2013 - 2017 WaveMaker, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wavemaker.app.build.swaggerdoc;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.wavemaker.tools.apidocs.tools.core.model.Swagger;
+
+/**
+ * Swagger generated for a single controller, along with the bytecode hashes of the controller and of the model classes
+ * its definitions were generated from.
+ */
+public class SwaggerFragment {
+
+    private String controllerHash;
+    private Map<String, String> modelHashes = new TreeMap<>();
+    private Swagger swagger;
+
+    public String getControllerHash() {
+        return controllerHash;
+    }
+
+    public void setControllerHash(String controllerHash) {
+        this.controllerHash = controllerHash;
+    }
+
+    public Map<String, String> getModelHashes() {
+        return modelHashes;
+    }
+
+    public void setModelHashes(Map<String, String> modelHashes) {
+        this.modelHashes = modelHashes;
+    }
+
+    public Swagger getSwagger() {
+        return swagger;
+    }
+
+    public void setSwagger(Swagger swagger) {
+        this.swagger = swagger;
+    }
+}
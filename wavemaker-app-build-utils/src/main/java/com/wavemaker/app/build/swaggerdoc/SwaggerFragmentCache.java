@@ -0,0 +1,193 @@
+/**
+ * Copyright © 2013 - 2017 WaveMaker, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wavemaker.app.build.swaggerdoc;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.wavemaker.app.build.manifest.ContentDigest;
+import com.wavemaker.commons.WMRuntimeException;
+import com.wavemaker.commons.json.JSONUtils;
+import com.wavemaker.commons.util.IOUtils;
+import com.wavemaker.tools.apidocs.tools.core.model.AbstractModel;
+import com.wavemaker.tools.apidocs.tools.core.model.Model;
+import com.wavemaker.tools.apidocs.tools.core.model.Swagger;
+
+/**
+ * On disk cache of the swagger generated per controller class. A cached fragment is only returned when neither the
+ * bytecode of the controller nor the bytecode of any model class referenced by its definitions changed since the
+ * fragment was generated. Class files are read as resources of the class loader, without loading the classes.
+ */
+public class SwaggerFragmentCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(SwaggerFragmentCache.class);
+
+    private static final String FRAGMENT_EXTENSION = ".json";
+    private static final String CLASS_EXTENSION = ".class";
+
+    private final java.io.File cacheFolder;
+    private final ClassLoader classLoader;
+    private final Map<String, String> classHashes = new HashMap<>();
+
+    public SwaggerFragmentCache(java.io.File cacheFolder, ClassLoader classLoader) {
+        if (cacheFolder == null) {
+            throw new WMRuntimeException("Swagger cache folder is null");
+        }
+        if (classLoader == null) {
+            throw new WMRuntimeException("Class loader is null");
+        }
+        this.cacheFolder = cacheFolder;
+        this.classLoader = classLoader;
+    }
+
+    /**
+     * @return the cached swagger of the controller, or null when there is none or it is out of date.
+     */
+    public Swagger get(String controllerClassName) {
+        java.io.File fragmentFile = getFragmentFile(controllerClassName);
+        if (!fragmentFile.exists()) {
+            return null;
+        }
+        SwaggerFragment swaggerFragment;
+        try {
+            swaggerFragment = JSONUtils.toObject(fragmentFile, SwaggerFragment.class);
+        } catch (IOException e) {
+            logger.warn("Ignoring unreadable swagger fragment {}", fragmentFile, e);
+            return null;
+        }
+        if (swaggerFragment == null || swaggerFragment.getSwagger() == null
+                || !isUpToDate(controllerClassName, swaggerFragment.getControllerHash())) {
+            return null;
+        }
+        if (swaggerFragment.getModelHashes() != null) {
+            for (Map.Entry<String, String> modelHash : swaggerFragment.getModelHashes().entrySet()) {
+                if (!isUpToDate(modelHash.getKey(), modelHash.getValue())) {
+                    return null;
+                }
+            }
+        }
+        return swaggerFragment.getSwagger();
+    }
+
+    public void put(String controllerClassName, Swagger swagger) {
+        put(controllerClassName, swagger, Collections.<String>emptySet());
+    }
+
+    /**
+     * @param referencedTypes classes used by the controller which invalidate the fragment when modified, in addition
+     *                        to the model classes of the swagger definitions.
+     */
+    public void put(String controllerClassName, Swagger swagger, Collection<String> referencedTypes) {
+        Set<String> classNames = new TreeSet<>(referencedTypes);
+        if (swagger.getDefinitions() != null) {
+            for (Model model : swagger.getDefinitions().values()) {
+                if (model instanceof AbstractModel) {
+                    String modelClassName = ((AbstractModel) model).getFullyQualifiedName();
+                    if (modelClassName != null) {
+                        classNames.add(modelClassName);
+                    }
+                }
+            }
+        }
+        java.io.File fragmentFile = getFragmentFile(controllerClassName);
+        SwaggerFragment swaggerFragment = new SwaggerFragment();
+        swaggerFragment.setControllerHash(getClassHash(controllerClassName));
+        Map<String, String> modelHashes = new TreeMap<>();
+        for (String className : classNames) {
+            modelHashes.put(className, getClassHash(className));
+        }
+        if (swaggerFragment.getControllerHash() == null || modelHashes.containsValue(null)) {
+            // a fragment which cannot be validated later is never cached, and any older fragment is dropped
+            logger.info("Not caching swagger of controller {} as some of its class files could not be read",
+                    controllerClassName);
+            if (fragmentFile.exists() && !fragmentFile.delete()) {
+                logger.warn("Failed to delete swagger fragment {}", fragmentFile);
+            }
+            return;
+        }
+        swaggerFragment.setModelHashes(modelHashes);
+        swaggerFragment.setSwagger(swagger);
+
+        OutputStream outputStream = null;
+        try {
+            if (!cacheFolder.exists() && !cacheFolder.mkdirs()) {
+                throw new IOException("Failed to create folder " + cacheFolder);
+            }
+            outputStream = new FileOutputStream(fragmentFile);
+            JSONUtils.toJSON(outputStream, swaggerFragment, false);
+        } catch (IOException e) {
+            logger.warn("Failed to cache swagger fragment of controller {}", controllerClassName, e);
+        } finally {
+            IOUtils.closeSilently(outputStream);
+        }
+    }
+
+    /**
+     * Hash of the class file of the given class, or null when the class file cannot be found or read.
+     */
+    public String getClassHash(String className) {
+        if (classHashes.containsKey(className)) {
+            return classHashes.get(className);
+        }
+        String classHash = computeClassHash(className);
+        classHashes.put(className, classHash);
+        return classHash;
+    }
+
+    /**
+     * A class is up to date only when both its current and its cached hashes are known and equal, a class file which
+     * cannot be read never validates a fragment.
+     */
+    private boolean isUpToDate(String className, String cachedHash) {
+        String classHash = getClassHash(className);
+        return StringUtils.isNotEmpty(cachedHash) && classHash != null && classHash.equals(cachedHash);
+    }
+
+    private String computeClassHash(String className) {
+        URL classFile = classLoader.getResource(className.replace('.', '/') + CLASS_EXTENSION);
+        if (classFile == null) {
+            return null;
+        }
+        InputStream inputStream = null;
+        try {
+            inputStream = classFile.openStream();
+            return new ContentDigest().update(inputStream).getHash();
+        } catch (IOException e) {
+            logger.warn("Failed to read class file of {}", className, e);
+            return null;
+        } finally {
+            IOUtils.closeSilently(inputStream);
+        }
+    }
+
+    private java.io.File getFragmentFile(String controllerClassName) {
+        return new java.io.File(cacheFolder, controllerClassName + FRAGMENT_EXTENSION);
+    }
+}
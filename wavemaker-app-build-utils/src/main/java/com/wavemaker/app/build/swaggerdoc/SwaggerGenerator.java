@@ -15,19 +15,38 @@
  */
 package com.wavemaker.app.build.swaggerdoc;
 
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Pageable;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.multipart.MultipartHttpServletRequest;
 
+import com.wavemaker.app.build.swaggerdoc.index.ClassIndex;
+import com.wavemaker.app.build.swaggerdoc.index.ControllerIndexer;
 import com.wavemaker.commons.WMRuntimeException;
 import com.wavemaker.commons.classloader.ResourceClassLoaderUtils;
 import com.wavemaker.commons.classloader.WMCallable;
 import com.wavemaker.tools.apidocs.tools.core.model.Info;
+import com.wavemaker.tools.apidocs.tools.core.model.Model;
+import com.wavemaker.tools.apidocs.tools.core.model.Path;
 import com.wavemaker.tools.apidocs.tools.core.model.Swagger;
+import com.wavemaker.tools.apidocs.tools.core.model.Tag;
 import com.wavemaker.tools.apidocs.tools.parser.config.SwaggerConfiguration;
 import com.wavemaker.tools.apidocs.tools.parser.runner.SwaggerParser;
 import com.wavemaker.tools.apidocs.tools.parser.scanner.FilterableClassScanner;
@@ -42,9 +61,18 @@ import com.wavemaker.tools.apidocs.tools.spring.resolver.ServletMetaTypesResolve
  * Created by saddhamp on 18/4/16.
  */
 public class SwaggerGenerator {
+    private static final Logger logger = LoggerFactory.getLogger(SwaggerGenerator.class);
+
+    private static final String CLASS_EXTENSION = ".class";
+    private static final String[] CONTROLLER_ANNOTATIONS = {"org.springframework.stereotype.Controller",
+            "org.springframework.web.bind.annotation.RestController"};
+
     private String basePackage;
     private Info swaggerInfo;
     private ClassLoader classLoader;
+    private SwaggerFragmentCache fragmentCache;
+    private ClassIndex classIndex;
+    private List<String> packageClassNames = Collections.emptyList();
 
     public SwaggerGenerator(String basePackage){
         if(StringUtils.isBlank(basePackage))
@@ -62,11 +90,196 @@ public class SwaggerGenerator {
         return this;
     }
 
+    /**
+     * When set, the swagger of each controller found under the base package is cached separately and only the
+     * controllers whose bytecode, or whose models bytecode, changed are scanned again.
+     */
+    public SwaggerGenerator setFragmentCache(SwaggerFragmentCache fragmentCache) {
+        this.fragmentCache = fragmentCache;
+        return this;
+    }
+
+    /**
+     * When set, controllers are looked up in the given index of the base package class files instead of loading the
+     * classes of the base package, and only the indexed controllers are scanned. The whole package is scanned when
+     * the controllers cannot be resolved from the index.
+     */
+    public SwaggerGenerator setClassIndex(ClassIndex classIndex) {
+        this.classIndex = classIndex;
+        return this;
+    }
+
     public Swagger generate(){
+        List<String> controllerClassNames = Collections.emptyList();
+        if (classIndex != null) {
+            controllerClassNames = ControllerIndexer.getControllerClassNames(classIndex, getEffectiveClassLoader());
+            if (controllerClassNames == null) {
+                logger.warn("Controllers of package {} could not be resolved from the class index, scanning the package",
+                        basePackage);
+                return generate(Collections.singletonList(basePackage), Collections.<String>emptyList());
+            }
+        } else if (fragmentCache != null) {
+            controllerClassNames = findControllerClassNames();
+        }
+        if (!controllerClassNames.isEmpty()) {
+            if (fragmentCache != null) {
+                Swagger swagger = generateFromFragments(controllerClassNames);
+                if (swagger != null) {
+                    return swagger;
+                }
+            }
+            if (classIndex != null) {
+                return generate(controllerClassNames, Collections.<String>emptyList());
+            }
+        }
+        return generate(Collections.singletonList(basePackage), Collections.<String>emptyList());
+    }
+
+    private Swagger generateFromFragments(List<String> controllerClassNames) {
+        Swagger mergedSwagger = null;
+        Map<String, Path> paths = new LinkedHashMap<>();
+        Map<String, Model> definitions = new LinkedHashMap<>();
+        Map<String, Tag> tags = new LinkedHashMap<>();
+        int cachedFragments = 0;
+
+        for (String controllerClassName : controllerClassNames) {
+            Swagger fragment = fragmentCache.get(controllerClassName);
+            if (fragment == null) {
+                fragment = generateForClass(controllerClassName);
+                if (classIndex != null) {
+                    fragmentCache.put(controllerClassName, fragment, ControllerIndexer.getReferencedTypes(classIndex,
+                            Collections.singletonList(controllerClassName)));
+                } else {
+                    fragmentCache.put(controllerClassName, fragment);
+                }
+            } else {
+                cachedFragments++;
+            }
+            if (mergedSwagger == null) {
+                mergedSwagger = fragment;
+            }
+            if (fragment.getPaths() != null) {
+                for (Map.Entry<String, Path> pathEntry : fragment.getPaths().entrySet()) {
+                    if (paths.put(pathEntry.getKey(), pathEntry.getValue()) != null) {
+                        logger.warn("Path {} is mapped by more than one controller, generating swagger for package {}",
+                                pathEntry.getKey(), basePackage);
+                        return null;
+                    }
+                }
+            }
+            if (fragment.getDefinitions() != null) {
+                definitions.putAll(fragment.getDefinitions());
+            }
+            if (fragment.getTags() != null) {
+                for (Tag tag : fragment.getTags()) {
+                    tags.put(tag.getName(), tag);
+                }
+            }
+        }
+
+        mergedSwagger.setPaths(paths);
+        mergedSwagger.setDefinitions(definitions);
+        mergedSwagger.setTags(new ArrayList<>(tags.values()));
+        mergedSwagger.setInfo(swaggerInfo != null ? swaggerInfo : new Info());
+        logger.info("Reused cached swagger of {} out of {} controllers in package {}", cachedFragments,
+                controllerClassNames.size(), basePackage);
+        return mergedSwagger;
+    }
+
+    /**
+     * Scans the given class only. Class scanner filters match class name prefixes, so the inner classes and the
+     * classes of the package whose name starts with the name of the given class are excluded explicitly.
+     */
+    private Swagger generateForClass(String className) {
+        List<String> excludedClassNames = new ArrayList<>();
+        excludedClassNames.add(className + "$");
+        Collection<String> classNames = classIndex != null ? classIndex.getClasses().keySet() : packageClassNames;
+        for (String otherClassName : classNames) {
+            if (otherClassName.startsWith(className) && !otherClassName.equals(className)
+                    && !otherClassName.startsWith(className + "$")) {
+                excludedClassNames.add(otherClassName);
+            }
+        }
+        return generate(Collections.singletonList(className), excludedClassNames);
+    }
+
+    /**
+     * Lists the controller classes found in the class folders of the base package, sorted by name. Controllers
+     * packaged in jars are not listed.
+     */
+    private List<String> findControllerClassNames() {
+        ClassLoader effectiveClassLoader = getEffectiveClassLoader();
+        List<String> classNames = new ArrayList<>();
+        try {
+            Enumeration<URL> packageUrls = effectiveClassLoader.getResources(basePackage.replace('.', '/'));
+            while (packageUrls.hasMoreElements()) {
+                URL packageUrl = packageUrls.nextElement();
+                if ("file".equals(packageUrl.getProtocol())) {
+                    collectClassNames(new java.io.File(packageUrl.toURI()), basePackage, classNames);
+                }
+            }
+        } catch (IOException | URISyntaxException e) {
+            logger.warn("Failed to list classes of package {}", basePackage, e);
+            return Collections.emptyList();
+        }
+        packageClassNames = classNames;
+
+        List<String> controllerClassNames = new ArrayList<>();
+        for (String className : classNames) {
+            try {
+                Class<?> clazz = Class.forName(className, false, effectiveClassLoader);
+                if (isController(clazz)) {
+                    controllerClassNames.add(className);
+                }
+            } catch (ClassNotFoundException | LinkageError e) {
+                logger.debug("Skipping class {} while looking for controllers", className, e);
+            }
+        }
+        Collections.sort(controllerClassNames);
+        return controllerClassNames;
+    }
+
+    private void collectClassNames(java.io.File folder, String packageName, Collection<String> classNames) {
+        java.io.File[] files = folder.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (java.io.File file : files) {
+            String fileName = file.getName();
+            if (file.isDirectory()) {
+                collectClassNames(file, packageName + "." + fileName, classNames);
+            } else if (fileName.endsWith(CLASS_EXTENSION) && fileName.indexOf('$') == -1) {
+                classNames.add(packageName + "." + fileName.substring(0, fileName.length() - CLASS_EXTENSION.length()));
+            }
+        }
+    }
+
+    private boolean isController(Class<?> clazz) {
+        for (Annotation annotation : clazz.getAnnotations()) {
+            String annotationName = annotation.annotationType().getName();
+            for (String controllerAnnotation : CONTROLLER_ANNOTATIONS) {
+                if (controllerAnnotation.equals(annotationName)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private ClassLoader getEffectiveClassLoader() {
+        return classLoader != null ? classLoader : Thread.currentThread().getContextClassLoader();
+    }
+
+    private Swagger generate(Collection<String> includePackages, Collection<String> excludePackages){
         Swagger swagger = null;
 
         FilterableClassScanner classScanner = new FilterableClassScanner();
-        classScanner.includePackage(basePackage);
+        for (String includePackage : includePackages) {
+            classScanner.includePackage(includePackage);
+        }
+        for (String excludePackage : excludePackages) {
+            classScanner.excludePackage(excludePackage);
+        }
         FilterableModelScanner modelScanner = new FilterableModelScanner();
         modelScanner.excludePackage("javax.servlet.http");
 
@@ -0,0 +1,135 @@
+/**
+ * Copyright © 2013 - 2017 WaveMaker, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wavemaker.app.build.swaggerdoc.index;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * What the app build needs to know about a compiled class, read from its class file.
+ */
+public class ClassFileInfo {
+
+    private String className;
+    private long lastModified;
+    private long size;
+    private String superClassName;
+    private List<String> interfaceNames = new ArrayList<>();
+    private List<String> annotationTypes = new ArrayList<>();
+    private List<String> methodAnnotationTypes = new ArrayList<>();
+    private boolean controller;
+    private List<String> requestMappings = new ArrayList<>();
+    private List<String> referencedTypes = new ArrayList<>();
+
+    public String getClassName() {
+        return className;
+    }
+
+    public void setClassName(String className) {
+        this.className = className;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public void setLastModified(long lastModified) {
+        this.lastModified = lastModified;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    /**
+     * @return the super class, null only for java.lang.Object itself.
+     */
+    public String getSuperClassName() {
+        return superClassName;
+    }
+
+    public void setSuperClassName(String superClassName) {
+        this.superClassName = superClassName;
+    }
+
+    public List<String> getInterfaceNames() {
+        return interfaceNames;
+    }
+
+    public void setInterfaceNames(List<String> interfaceNames) {
+        this.interfaceNames = interfaceNames;
+    }
+
+    /**
+     * @return types of the class level annotations, which may be meta annotated with Controller or RestController.
+     */
+    public List<String> getAnnotationTypes() {
+        return annotationTypes;
+    }
+
+    public void setAnnotationTypes(List<String> annotationTypes) {
+        this.annotationTypes = annotationTypes;
+    }
+
+    /**
+     * @return types of the method annotations other than the request mapping ones, which may be meta annotated with a
+     * request mapping.
+     */
+    public List<String> getMethodAnnotationTypes() {
+        return methodAnnotationTypes;
+    }
+
+    public void setMethodAnnotationTypes(List<String> methodAnnotationTypes) {
+        this.methodAnnotationTypes = methodAnnotationTypes;
+    }
+
+    /**
+     * @return true when the class is annotated with Controller or RestController.
+     */
+    public boolean isController() {
+        return controller;
+    }
+
+    public void setController(boolean controller) {
+        this.controller = controller;
+    }
+
+    /**
+     * @return paths mapped by the request mapping annotated methods of the class, prefixed by the class level mapping.
+     */
+    public List<String> getRequestMappings() {
+        return requestMappings;
+    }
+
+    public void setRequestMappings(List<String> requestMappings) {
+        this.requestMappings = requestMappings;
+    }
+
+    /**
+     * @return non JDK types used in the signatures of the request mapping annotated methods.
+     */
+    public List<String> getReferencedTypes() {
+        return referencedTypes;
+    }
+
+    public void setReferencedTypes(List<String> referencedTypes) {
+        this.referencedTypes = referencedTypes;
+    }
+}
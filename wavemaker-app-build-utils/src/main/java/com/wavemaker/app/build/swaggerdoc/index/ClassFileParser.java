@@ -0,0 +1,343 @@
+/**
+ * Copyright © 2013 - 2017 WaveMaker, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wavemaker.app.build.swaggerdoc.index;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Minimal class file reader extracting the super types, the annotations, the request mappings and the types used by
+ * request mapping methods, directly from the bytes of a class file and without loading the class.
+ */
+public class ClassFileParser {
+
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_FLOAT = 4;
+    private static final int CONSTANT_LONG = 5;
+    private static final int CONSTANT_DOUBLE = 6;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_FIELD_REF = 9;
+    private static final int CONSTANT_METHOD_REF = 10;
+    private static final int CONSTANT_INTERFACE_METHOD_REF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+    private static final int CONSTANT_METHOD_HANDLE = 15;
+    private static final int CONSTANT_METHOD_TYPE = 16;
+    private static final int CONSTANT_DYNAMIC = 17;
+    private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+    private static final int CONSTANT_MODULE = 19;
+    private static final int CONSTANT_PACKAGE = 20;
+
+    private static final String RUNTIME_VISIBLE_ANNOTATIONS = "RuntimeVisibleAnnotations";
+    private static final String SIGNATURE = "Signature";
+
+    private static final String[] CONTROLLER_ANNOTATIONS = {"Lorg/springframework/stereotype/Controller;",
+            "Lorg/springframework/web/bind/annotation/RestController;"};
+    private static final String MAPPING_ANNOTATION_PACKAGE = "Lorg/springframework/web/bind/annotation/";
+    private static final String MAPPING_ANNOTATION_SUFFIX = "Mapping;";
+    private static final String[] MAPPING_PATH_ELEMENTS = {"value", "path"};
+    private static final String[] IGNORED_TYPE_PREFIXES = {"java.", "javax.", "sun.", "org.springframework."};
+
+    private static final Pattern TYPE_PATTERN = Pattern.compile("L([^;<]+)");
+
+    /**
+     * Parses the class file read from the given stream, the stream is not closed.
+     */
+    public ClassFileInfo parse(InputStream inputStream) throws IOException {
+        DataInputStream input = new DataInputStream(inputStream);
+        if (input.readInt() != MAGIC) {
+            throw new IOException("Not a class file");
+        }
+        input.readUnsignedShort();
+        input.readUnsignedShort();
+        Object[] constantPool = readConstantPool(input);
+
+        input.readUnsignedShort();
+        String className = readClassName(input, constantPool);
+        String superClassName = readClassName(input, constantPool);
+        List<String> interfaceNames = new ArrayList<>();
+        int interfacesCount = input.readUnsignedShort();
+        for (int i = 0; i < interfacesCount; i++) {
+            interfaceNames.add(readClassName(input, constantPool));
+        }
+
+        int fieldsCount = input.readUnsignedShort();
+        for (int i = 0; i < fieldsCount; i++) {
+            skip(input, 6);
+            skipAttributes(input);
+        }
+
+        List<MethodInfo> methods = new ArrayList<>();
+        int methodsCount = input.readUnsignedShort();
+        for (int i = 0; i < methodsCount; i++) {
+            skip(input, 4);
+            MethodInfo methodInfo = new MethodInfo();
+            methodInfo.descriptor = (String) constantPool[input.readUnsignedShort()];
+            readMemberAttributes(input, constantPool, methodInfo);
+            methods.add(methodInfo);
+        }
+
+        MethodInfo classInfo = new MethodInfo();
+        readMemberAttributes(input, constantPool, classInfo);
+
+        ClassFileInfo classFileInfo = buildClassFileInfo(className, classInfo, methods);
+        classFileInfo.setSuperClassName(superClassName);
+        classFileInfo.setInterfaceNames(interfaceNames);
+        return classFileInfo;
+    }
+
+    private ClassFileInfo buildClassFileInfo(String className, MethodInfo classInfo, List<MethodInfo> methods) {
+        ClassFileInfo classFileInfo = new ClassFileInfo();
+        classFileInfo.setClassName(className);
+        Set<String> annotationTypes = new TreeSet<>();
+        for (AnnotationInfo annotation : classInfo.annotations) {
+            for (String controllerAnnotation : CONTROLLER_ANNOTATIONS) {
+                if (controllerAnnotation.equals(annotation.type)) {
+                    classFileInfo.setController(true);
+                }
+            }
+            annotationTypes.add(toClassName(annotation.type.substring(1, annotation.type.length() - 1)));
+        }
+        classFileInfo.setAnnotationTypes(new ArrayList<>(annotationTypes));
+
+        List<String> classMappings = Collections.singletonList("");
+        for (AnnotationInfo annotation : classInfo.annotations) {
+            if (annotation.isRequestMapping() && !annotation.paths.isEmpty()) {
+                classMappings = annotation.paths;
+            }
+        }
+
+        Set<String> requestMappings = new TreeSet<>();
+        Set<String> referencedTypes = new TreeSet<>();
+        Set<String> methodAnnotationTypes = new TreeSet<>();
+        for (MethodInfo method : methods) {
+            for (AnnotationInfo annotation : method.annotations) {
+                if (annotation.isRequestMapping()) {
+                    List<String> methodMappings = annotation.paths.isEmpty() ? Collections.singletonList("") : annotation.paths;
+                    for (String classMapping : classMappings) {
+                        for (String methodMapping : methodMappings) {
+                            requestMappings.add(joinPaths(classMapping, methodMapping));
+                        }
+                    }
+                    collectTypes(method.descriptor, referencedTypes);
+                    collectTypes(method.signature, referencedTypes);
+                } else {
+                    String annotationType = toClassName(annotation.type.substring(1, annotation.type.length() - 1));
+                    if (!isIgnoredType(annotationType)) {
+                        // possibly meta annotated with a request mapping, see ControllerIndexer
+                        methodAnnotationTypes.add(annotationType);
+                        collectTypes(method.descriptor, referencedTypes);
+                        collectTypes(method.signature, referencedTypes);
+                    }
+                }
+            }
+        }
+        classFileInfo.setRequestMappings(new ArrayList<>(requestMappings));
+        classFileInfo.setMethodAnnotationTypes(new ArrayList<>(methodAnnotationTypes));
+        classFileInfo.setReferencedTypes(new ArrayList<>(referencedTypes));
+        return classFileInfo;
+    }
+
+    private Object[] readConstantPool(DataInputStream input) throws IOException {
+        int constantPoolCount = input.readUnsignedShort();
+        Object[] constantPool = new Object[constantPoolCount];
+        for (int i = 1; i < constantPoolCount; i++) {
+            int tag = input.readUnsignedByte();
+            switch (tag) {
+                case CONSTANT_UTF8:
+                    constantPool[i] = input.readUTF();
+                    break;
+                case CONSTANT_CLASS:
+                case CONSTANT_STRING:
+                    constantPool[i] = input.readUnsignedShort();
+                    break;
+                case CONSTANT_LONG:
+                case CONSTANT_DOUBLE:
+                    skip(input, 8);
+                    // long and double constants take two entries
+                    i++;
+                    break;
+                case CONSTANT_INTEGER:
+                case CONSTANT_FLOAT:
+                case CONSTANT_FIELD_REF:
+                case CONSTANT_METHOD_REF:
+                case CONSTANT_INTERFACE_METHOD_REF:
+                case CONSTANT_NAME_AND_TYPE:
+                case CONSTANT_DYNAMIC:
+                case CONSTANT_INVOKE_DYNAMIC:
+                    skip(input, 4);
+                    break;
+                case CONSTANT_METHOD_HANDLE:
+                    skip(input, 3);
+                    break;
+                case CONSTANT_METHOD_TYPE:
+                case CONSTANT_MODULE:
+                case CONSTANT_PACKAGE:
+                    skip(input, 2);
+                    break;
+                default:
+                    throw new IOException("Unknown constant pool tag " + tag);
+            }
+        }
+        return constantPool;
+    }
+
+    private void readMemberAttributes(DataInputStream input, Object[] constantPool, MethodInfo memberInfo) throws IOException {
+        int attributesCount = input.readUnsignedShort();
+        for (int i = 0; i < attributesCount; i++) {
+            String attributeName = (String) constantPool[input.readUnsignedShort()];
+            int attributeLength = input.readInt();
+            if (RUNTIME_VISIBLE_ANNOTATIONS.equals(attributeName)) {
+                int annotationsCount = input.readUnsignedShort();
+                for (int j = 0; j < annotationsCount; j++) {
+                    memberInfo.annotations.add(readAnnotation(input, constantPool));
+                }
+            } else if (SIGNATURE.equals(attributeName)) {
+                memberInfo.signature = (String) constantPool[input.readUnsignedShort()];
+            } else {
+                skip(input, attributeLength);
+            }
+        }
+    }
+
+    private AnnotationInfo readAnnotation(DataInputStream input, Object[] constantPool) throws IOException {
+        AnnotationInfo annotationInfo = new AnnotationInfo();
+        annotationInfo.type = (String) constantPool[input.readUnsignedShort()];
+        int elementsCount = input.readUnsignedShort();
+        for (int i = 0; i < elementsCount; i++) {
+            String elementName = (String) constantPool[input.readUnsignedShort()];
+            boolean pathElement = false;
+            for (String mappingPathElement : MAPPING_PATH_ELEMENTS) {
+                pathElement |= mappingPathElement.equals(elementName);
+            }
+            readElementValue(input, constantPool, pathElement ? annotationInfo.paths : null);
+        }
+        return annotationInfo;
+    }
+
+    /**
+     * Reads an annotation element value, adding the string values to the given list when it is not null.
+     */
+    private void readElementValue(DataInputStream input, Object[] constantPool, List<String> stringValues) throws IOException {
+        int tag = input.readUnsignedByte();
+        switch (tag) {
+            case 's':
+                String value = (String) constantPool[input.readUnsignedShort()];
+                if (stringValues != null) {
+                    stringValues.add(value);
+                }
+                break;
+            case 'e':
+                skip(input, 4);
+                break;
+            case '@':
+                readAnnotation(input, constantPool);
+                break;
+            case '[':
+                int valuesCount = input.readUnsignedShort();
+                for (int i = 0; i < valuesCount; i++) {
+                    readElementValue(input, constantPool, stringValues);
+                }
+                break;
+            default:
+                // primitive constants and class literals
+                skip(input, 2);
+        }
+    }
+
+    private void skipAttributes(DataInputStream input) throws IOException {
+        int attributesCount = input.readUnsignedShort();
+        for (int i = 0; i < attributesCount; i++) {
+            skip(input, 2);
+            skip(input, input.readInt());
+        }
+    }
+
+    private static void skip(DataInputStream input, int bytes) throws IOException {
+        input.readFully(new byte[bytes]);
+    }
+
+    private static void collectTypes(String signature, Set<String> types) {
+        if (signature == null) {
+            return;
+        }
+        Matcher matcher = TYPE_PATTERN.matcher(signature);
+        while (matcher.find()) {
+            String type = toClassName(matcher.group(1));
+            if (!isIgnoredType(type)) {
+                types.add(type);
+            }
+        }
+    }
+
+    private static boolean isIgnoredType(String type) {
+        for (String ignoredTypePrefix : IGNORED_TYPE_PREFIXES) {
+            if (type.startsWith(ignoredTypePrefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads a class constant pool index, 0 standing for no class as in the super class of java.lang.Object.
+     */
+    private static String readClassName(DataInputStream input, Object[] constantPool) throws IOException {
+        int classIndex = input.readUnsignedShort();
+        return classIndex == 0 ? null : toClassName((String) constantPool[(Integer) constantPool[classIndex]]);
+    }
+
+    private static String joinPaths(String classMapping, String methodMapping) {
+        String path = classMapping;
+        if (!methodMapping.isEmpty()) {
+            if (!path.endsWith("/") && !methodMapping.startsWith("/")) {
+                path += "/";
+            }
+            path += methodMapping;
+        }
+        return path.startsWith("/") ? path : "/" + path;
+    }
+
+    private static String toClassName(String internalName) {
+        return internalName.replace('/', '.');
+    }
+
+    private static class MethodInfo {
+        private String descriptor;
+        private String signature;
+        private List<AnnotationInfo> annotations = new ArrayList<>();
+    }
+
+    private static class AnnotationInfo {
+        private String type;
+        private List<String> paths = new ArrayList<>();
+
+        private boolean isRequestMapping() {
+            return type.startsWith(MAPPING_ANNOTATION_PACKAGE) && type.endsWith(MAPPING_ANNOTATION_SUFFIX);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/**
+ * Copyright © 2013 - 2017 WaveMaker, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wavemaker.app.build.swaggerdoc.index;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Index of the class files of a service, keyed by class name. Persisted between builds so that only the class files
+ * modified since the previous build are read again.
+ */
+public class ClassIndex {
+
+    /**
+     * Version of the information read from class files, an index persisted with another version is discarded.
+     */
+    public static final int VERSION = 2;
+
+    private int version;
+    private boolean complete = true;
+    private Map<String, ClassFileInfo> classes = new TreeMap<>();
+
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
+    /**
+     * @return false when some class files of the package could not be read and are missing from the index.
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public void setComplete(boolean complete) {
+        this.complete = complete;
+    }
+
+    public Map<String, ClassFileInfo> getClasses() {
+        return classes;
+    }
+
+    public void setClasses(Map<String, ClassFileInfo> classes) {
+        this.classes = new TreeMap<>(classes);
+    }
+}
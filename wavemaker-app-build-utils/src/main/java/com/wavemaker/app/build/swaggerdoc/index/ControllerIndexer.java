@@ -0,0 +1,365 @@
+/**
+ * Copyright © 2013 - 2017 WaveMaker, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wavemaker.app.build.swaggerdoc.index;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.wavemaker.commons.WMRuntimeException;
+import com.wavemaker.commons.json.JSONUtils;
+import com.wavemaker.commons.util.IOUtils;
+
+/**
+ * Builds the {@link ClassIndex} of the classes compiled under a base package, reading the class files directly so
+ * that no class is loaded. The index is persisted in the given file and only the class files whose size or last
+ * modified time changed since the previous build are read again.
+ */
+public class ControllerIndexer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ControllerIndexer.class);
+
+    private static final String CLASS_EXTENSION = ".class";
+    private static final String JDK_TYPE_PREFIX = "java.";
+    private static final String[] CONTROLLER_ANNOTATIONS = {"org.springframework.stereotype.Controller",
+            "org.springframework.web.bind.annotation.RestController"};
+    private static final String MAPPING_ANNOTATION_PACKAGE = "org.springframework.web.bind.annotation.";
+    private static final String MAPPING_ANNOTATION_SUFFIX = "Mapping";
+
+    private final File indexFile;
+    private final ClassFileParser classFileParser = new ClassFileParser();
+
+    public ControllerIndexer(File indexFile) {
+        if (indexFile == null) {
+            throw new WMRuntimeException("Class index file is null");
+        }
+        this.indexFile = indexFile;
+    }
+
+    /**
+     * Updates the persisted index with the classes of the base package found in the given class folders.
+     */
+    public ClassIndex index(Collection<File> classFolders, String basePackage) {
+        ClassIndex previousIndex = load();
+        ClassIndex classIndex = new ClassIndex();
+        classIndex.setVersion(ClassIndex.VERSION);
+        int parsedClasses = 0;
+        for (File classFolder : classFolders) {
+            List<File> classFiles = new ArrayList<>();
+            collectClassFiles(new File(classFolder, basePackage.replace('.', File.separatorChar)), classFiles);
+            for (File classFile : classFiles) {
+                String className = toClassName(classFolder, classFile);
+                if (classIndex.getClasses().containsKey(className)) {
+                    // the first class folder wins, as it would in the class loader
+                    continue;
+                }
+                ClassFileInfo classFileInfo = previousIndex.getClasses().get(className);
+                if (classFileInfo == null || classFileInfo.getLastModified() != classFile.lastModified()
+                        || classFileInfo.getSize() != classFile.length()) {
+                    classFileInfo = parse(classFile);
+                    parsedClasses++;
+                }
+                if (classFileInfo != null) {
+                    classIndex.getClasses().put(className, classFileInfo);
+                } else {
+                    classIndex.setComplete(false);
+                }
+            }
+        }
+        logger.debug("Indexed {} classes of package {}, read {} modified class files", classIndex.getClasses().size(),
+                basePackage, parsedClasses);
+        if (parsedClasses > 0 || classIndex.getClasses().size() != previousIndex.getClasses().size()) {
+            save(classIndex);
+        }
+        return classIndex;
+    }
+
+    /**
+     * Lists the indexed controllers having at least one request mapping. Controller annotations and request mappings
+     * may be meta annotations, and request mappings may be inherited from super classes and interfaces: the types
+     * which are not part of the index are read as resources of the given class loader.
+     *
+     * @return names of the controllers, or null when some class of the package could not be read and the controllers
+     * must be found by scanning the package.
+     */
+    public static List<String> getControllerClassNames(ClassIndex classIndex, ClassLoader classLoader) {
+        if (!classIndex.isComplete()) {
+            logger.info("Some class files of the package could not be indexed");
+            return null;
+        }
+        TypeResolver typeResolver = new TypeResolver(classIndex, classLoader);
+        List<String> controllerClassNames = new ArrayList<>();
+        for (ClassFileInfo classFileInfo : classIndex.getClasses().values()) {
+            if (typeResolver.isController(classFileInfo) && typeResolver.hasRequestMappings(classFileInfo,
+                    new HashSet<String>())) {
+                controllerClassNames.add(classFileInfo.getClassName());
+            }
+        }
+        if (!typeResolver.getUnresolvedTypes().isEmpty()) {
+            logger.info("Could not read the class files of {}", typeResolver.getUnresolvedTypes());
+            return null;
+        }
+        return controllerClassNames;
+    }
+
+    /**
+     * @return the types used by the request mappings of the given controllers which are part of the index, and the
+     * non JDK super types of the controllers, whose changes may change the request mappings.
+     */
+    public static Set<String> getReferencedTypes(ClassIndex classIndex, Collection<String> controllerClassNames) {
+        Set<String> referencedTypes = new HashSet<>();
+        Set<String> visitedClassNames = new HashSet<>();
+        for (String controllerClassName : controllerClassNames) {
+            collectReferencedTypes(classIndex, controllerClassName, visitedClassNames, referencedTypes);
+        }
+        referencedTypes.removeAll(controllerClassNames);
+        return referencedTypes;
+    }
+
+    private static void collectReferencedTypes(ClassIndex classIndex, String className, Set<String> visitedClassNames,
+                                               Set<String> referencedTypes) {
+        if (!visitedClassNames.add(className)) {
+            return;
+        }
+        ClassFileInfo classFileInfo = classIndex.getClasses().get(className);
+        if (classFileInfo == null) {
+            return;
+        }
+        for (String referencedType : classFileInfo.getReferencedTypes()) {
+            if (classIndex.getClasses().containsKey(referencedType)) {
+                referencedTypes.add(referencedType);
+            }
+        }
+        for (String superTypeName : getSuperTypeNames(classFileInfo)) {
+            referencedTypes.add(superTypeName);
+            collectReferencedTypes(classIndex, superTypeName, visitedClassNames, referencedTypes);
+        }
+    }
+
+    private static List<String> getSuperTypeNames(ClassFileInfo classFileInfo) {
+        List<String> superTypeNames = new ArrayList<>();
+        if (classFileInfo.getSuperClassName() != null && !classFileInfo.getSuperClassName().startsWith(JDK_TYPE_PREFIX)) {
+            superTypeNames.add(classFileInfo.getSuperClassName());
+        }
+        for (String interfaceName : classFileInfo.getInterfaceNames()) {
+            if (!interfaceName.startsWith(JDK_TYPE_PREFIX)) {
+                superTypeNames.add(interfaceName);
+            }
+        }
+        return superTypeNames;
+    }
+
+    private ClassFileInfo parse(File classFile) {
+        InputStream inputStream = null;
+        try {
+            inputStream = new FileInputStream(classFile);
+            ClassFileInfo classFileInfo = classFileParser.parse(inputStream);
+            classFileInfo.setLastModified(classFile.lastModified());
+            classFileInfo.setSize(classFile.length());
+            return classFileInfo;
+        } catch (IOException e) {
+            logger.warn("Skipping unreadable class file {}", classFile, e);
+            return null;
+        } finally {
+            IOUtils.closeSilently(inputStream);
+        }
+    }
+
+    private ClassIndex load() {
+        if (indexFile.exists()) {
+            try {
+                ClassIndex classIndex = JSONUtils.toObject(indexFile, ClassIndex.class);
+                if (classIndex != null && classIndex.getVersion() == ClassIndex.VERSION) {
+                    return classIndex;
+                }
+            } catch (IOException e) {
+                logger.warn("Ignoring unreadable class index {}", indexFile, e);
+            }
+        }
+        return new ClassIndex();
+    }
+
+    private void save(ClassIndex classIndex) {
+        OutputStream outputStream = null;
+        try {
+            File indexFolder = indexFile.getParentFile();
+            if (!indexFolder.exists() && !indexFolder.mkdirs()) {
+                throw new IOException("Failed to create folder " + indexFolder);
+            }
+            outputStream = new FileOutputStream(indexFile);
+            JSONUtils.toJSON(outputStream, classIndex, false);
+        } catch (IOException e) {
+            logger.warn("Failed to save class index {}", indexFile, e);
+        } finally {
+            IOUtils.closeSilently(outputStream);
+        }
+    }
+
+    private static void collectClassFiles(File folder, Collection<File> classFiles) {
+        File[] files = folder.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isDirectory()) {
+                collectClassFiles(file, classFiles);
+            } else if (file.getName().endsWith(CLASS_EXTENSION)) {
+                classFiles.add(file);
+            }
+        }
+    }
+
+    private static String toClassName(File classFolder, File classFile) {
+        String relativePath = classFolder.toURI().relativize(classFile.toURI()).getPath();
+        return relativePath.substring(0, relativePath.length() - CLASS_EXTENSION.length()).replace('/', '.');
+    }
+
+    /**
+     * Reads the types which are not part of the index from the class files found by the class loader. An annotation
+     * type which cannot be found is not visible at runtime either and is ignored, while a missing super type is
+     * reported as unresolved.
+     */
+    private static class TypeResolver {
+
+        private final ClassIndex classIndex;
+        private final ClassLoader classLoader;
+        private final ClassFileParser classFileParser = new ClassFileParser();
+        private final Map<String, ClassFileInfo> externalTypes = new HashMap<>();
+        private final Set<String> unresolvedTypes = new TreeSet<>();
+
+        private TypeResolver(ClassIndex classIndex, ClassLoader classLoader) {
+            this.classIndex = classIndex;
+            this.classLoader = classLoader;
+        }
+
+        private boolean isController(ClassFileInfo classFileInfo) {
+            if (classFileInfo.isController()) {
+                return true;
+            }
+            for (String annotationType : classFileInfo.getAnnotationTypes()) {
+                if (isControllerAnnotation(annotationType, new HashSet<String>())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean hasRequestMappings(ClassFileInfo classFileInfo, Set<String> visitedClassNames) {
+            if (!classFileInfo.getRequestMappings().isEmpty()) {
+                return true;
+            }
+            for (String methodAnnotationType : classFileInfo.getMethodAnnotationTypes()) {
+                if (isMappingAnnotation(methodAnnotationType, new HashSet<String>())) {
+                    return true;
+                }
+            }
+            for (String superTypeName : getSuperTypeNames(classFileInfo)) {
+                if (visitedClassNames.add(superTypeName)) {
+                    ClassFileInfo superTypeInfo = resolve(superTypeName);
+                    if (superTypeInfo == null) {
+                        unresolvedTypes.add(superTypeName);
+                    } else if (hasRequestMappings(superTypeInfo, visitedClassNames)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        private boolean isControllerAnnotation(String annotationType, Set<String> visitedTypes) {
+            for (String controllerAnnotation : CONTROLLER_ANNOTATIONS) {
+                if (controllerAnnotation.equals(annotationType)) {
+                    return true;
+                }
+            }
+            ClassFileInfo annotationInfo = resolveAnnotation(annotationType, visitedTypes);
+            if (annotationInfo != null) {
+                for (String metaAnnotationType : annotationInfo.getAnnotationTypes()) {
+                    if (isControllerAnnotation(metaAnnotationType, visitedTypes)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        private boolean isMappingAnnotation(String annotationType, Set<String> visitedTypes) {
+            if (annotationType.startsWith(MAPPING_ANNOTATION_PACKAGE) && annotationType.endsWith(MAPPING_ANNOTATION_SUFFIX)) {
+                return true;
+            }
+            ClassFileInfo annotationInfo = resolveAnnotation(annotationType, visitedTypes);
+            if (annotationInfo != null) {
+                for (String metaAnnotationType : annotationInfo.getAnnotationTypes()) {
+                    if (isMappingAnnotation(metaAnnotationType, visitedTypes)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        /**
+         * @return the annotation type when it was not visited yet and may carry meta annotations.
+         */
+        private ClassFileInfo resolveAnnotation(String annotationType, Set<String> visitedTypes) {
+            if (annotationType.startsWith(JDK_TYPE_PREFIX) || !visitedTypes.add(annotationType)) {
+                return null;
+            }
+            return resolve(annotationType);
+        }
+
+        private ClassFileInfo resolve(String className) {
+            ClassFileInfo classFileInfo = classIndex.getClasses().get(className);
+            if (classFileInfo != null) {
+                return classFileInfo;
+            }
+            if (externalTypes.containsKey(className)) {
+                return externalTypes.get(className);
+            }
+            InputStream inputStream = classLoader.getResourceAsStream(className.replace('.', '/') + CLASS_EXTENSION);
+            if (inputStream != null) {
+                try {
+                    classFileInfo = classFileParser.parse(inputStream);
+                } catch (IOException e) {
+                    logger.warn("Failed to read class file of {}", className, e);
+                    unresolvedTypes.add(className);
+                } finally {
+                    IOUtils.closeSilently(inputStream);
+                }
+            }
+            externalTypes.put(className, classFileInfo);
+            return classFileInfo;
+        }
+
+        private Set<String> getUnresolvedTypes() {
+            return unresolvedTypes;
+        }
+    }
+}
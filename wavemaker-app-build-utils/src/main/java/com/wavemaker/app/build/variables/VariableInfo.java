@@ -0,0 +1,63 @@
+/**
+ * Copyright © 2013 - 2017 WaveMaker, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wavemaker.app.build.variables;
+
+/**
+ * Service related properties of a variable declared in a variables json file.
+ */
+public class VariableInfo {
+
+    private String name;
+    private String category;
+    private String service;
+    private String operationId;
+
+    public String getName() {
+        return name;
+    }
+
+    public VariableInfo setName(String name) {
+        this.name = name;
+        return this;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public VariableInfo setCategory(String category) {
+        this.category = category;
+        return this;
+    }
+
+    public String getService() {
+        return service;
+    }
+
+    public VariableInfo setService(String service) {
+        this.service = service;
+        return this;
+    }
+
+    public String getOperationId() {
+        return operationId;
+    }
+
+    public VariableInfo setOperationId(String operationId) {
+        this.operationId = operationId;
+        return this;
+    }
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright © 2013 - 2017 WaveMaker, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wavemaker.app.build.variables;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Reads the variables of a variables json file with a streaming parser, keeping only the category, service and
+ * operationId of each variable. All the other values, such as data sets and bindings, are skipped without being
+ * materialized.
+ */
+public class VariablesReader {
+
+    private static final String CATEGORY = "category";
+    private static final String SERVICE = "service";
+    private static final String OPERATION_ID = "operationId";
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    /**
+     * Reads the variables declaring a category, the stream is not closed.
+     *
+     * @return variables in the order of the file, empty when the file is empty.
+     */
+    public List<VariableInfo> read(InputStream inputStream) throws IOException {
+        List<VariableInfo> variables = new ArrayList<>();
+        JsonParser parser = jsonFactory.createParser(inputStream);
+        parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+        try {
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                return variables;
+            }
+            if (token != JsonToken.START_OBJECT) {
+                throw new IOException("Variables json should be an object, found " + token);
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String variableName = parser.getCurrentName();
+                if (parser.nextToken() == JsonToken.START_OBJECT) {
+                    VariableInfo variable = readVariable(parser, variableName);
+                    if (variable.getCategory() != null) {
+                        variables.add(variable);
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } finally {
+            parser.close();
+        }
+        return variables;
+    }
+
+    private VariableInfo readVariable(JsonParser parser, String variableName) throws IOException {
+        VariableInfo variable = new VariableInfo().setName(variableName);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            JsonToken valueToken = parser.nextToken();
+            if (valueToken.isScalarValue() && valueToken != JsonToken.VALUE_NULL) {
+                if (CATEGORY.equals(fieldName)) {
+                    variable.setCategory(parser.getText());
+                } else if (SERVICE.equals(fieldName)) {
+                    variable.setService(parser.getText());
+                } else if (OPERATION_ID.equals(fieldName)) {
+                    variable.setOperationId(parser.getText());
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return variable;
+    }
+}
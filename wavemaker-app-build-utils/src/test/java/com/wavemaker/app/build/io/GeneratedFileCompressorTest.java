@@ -0,0 +1,155 @@
+/**
+ * Copyright © 2013 - 2017 WaveMaker, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wavemaker.app.build.io;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GeneratedFileCompressorTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void writesCompressedCopyWhereLocated() throws IOException {
+        File file = writeFile("page.min.html", "content");
+        final File outputFolder = new File(temporaryFolder.getRoot(), "output/pages");
+        GeneratedFileCompressor generatedFileCompressor = new GeneratedFileCompressor(new CompressedFileLocator() {
+            @Override
+            public File getCompressedFile(File file) {
+                return new File(outputFolder, file.getName() + GeneratedFileCompressor.GZIP_EXTENSION);
+            }
+        });
+
+        assertTrue(generatedFileCompressor.compress(file));
+
+        File compressedFile = new File(outputFolder, "page.min.html.gz");
+        assertArrayEquals("content".getBytes(StandardCharsets.UTF_8), gunzip(compressedFile));
+        assertEquals(1, file.getParentFile().list().length);
+        assertFalse(generatedFileCompressor.compress(file));
+        assertEquals(1, generatedFileCompressor.getCompressedCount());
+    }
+
+    @Test
+    public void writesCompressedCopyNextToFileByDefault() throws IOException {
+        File file = writeFile("page.min.html", "content");
+
+        assertTrue(new GeneratedFileCompressor().compress(file));
+
+        assertArrayEquals("content".getBytes(StandardCharsets.UTF_8),
+                gunzip(new File(file.getParentFile(), "page.min.html.gz")));
+    }
+
+    @Test
+    public void skipsFilesNotLocated() throws IOException {
+        File file = writeFile("page.min.html", "content");
+        GeneratedFileCompressor generatedFileCompressor = new GeneratedFileCompressor(new CompressedFileLocator() {
+            @Override
+            public File getCompressedFile(File file) {
+                return null;
+            }
+        });
+
+        assertFalse(generatedFileCompressor.compress(file));
+        assertEquals(1, file.getParentFile().list().length);
+    }
+
+    @Test
+    public void deletesCompressedCopyOfDeletedFile() throws IOException {
+        File file = writeFile("page.min.html", "content");
+        GeneratedFileCompressor generatedFileCompressor = new GeneratedFileCompressor();
+        generatedFileCompressor.compress(file);
+
+        Files.delete(file.toPath());
+
+        assertFalse(generatedFileCompressor.compress(file));
+        assertFalse(new File(file.getParentFile(), "page.min.html.gz").exists());
+    }
+
+    @Test
+    public void skipsRewrittenFileOfSameContent() throws IOException {
+        File file = writeFile("servicedefs.json", "content");
+        GeneratedFileCompressor generatedFileCompressor = new GeneratedFileCompressor();
+        generatedFileCompressor.compress(file);
+
+        Files.write(file.toPath(), "content".getBytes(StandardCharsets.UTF_8));
+        file.setLastModified(System.currentTimeMillis() + 60000);
+
+        assertFalse(generatedFileCompressor.compress(file));
+        assertEquals(1, generatedFileCompressor.getSkippedCount());
+    }
+
+    @Test
+    public void compressesChangedContentOfSameSize() throws IOException {
+        File file = writeFile("servicedefs.json", "content");
+        GeneratedFileCompressor generatedFileCompressor = new GeneratedFileCompressor();
+        generatedFileCompressor.compress(file);
+        File compressedFile = new File(file.getParentFile(), "servicedefs.json.gz");
+
+        Files.write(file.toPath(), "CONTENT".getBytes(StandardCharsets.UTF_8));
+        file.setLastModified(compressedFile.lastModified() - 60000);
+
+        assertTrue(generatedFileCompressor.compress(file));
+        assertArrayEquals("CONTENT".getBytes(StandardCharsets.UTF_8), gunzip(compressedFile));
+    }
+
+    @Test
+    public void compressesAgainOverCorruptCopy() throws IOException {
+        File file = writeFile("servicedefs.json", "content");
+        File compressedFile = new File(file.getParentFile(), "servicedefs.json.gz");
+        Files.write(compressedFile.toPath(), new byte[]{1, 2, 3, 4, 7, 0, 0, 0});
+
+        assertTrue(new GeneratedFileCompressor().compress(file));
+        assertArrayEquals("content".getBytes(StandardCharsets.UTF_8), gunzip(compressedFile));
+    }
+
+    private File writeFile(String name, String content) throws IOException {
+        File file = new File(temporaryFolder.newFolder(), name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static byte[] gunzip(File compressedFile) throws IOException {
+        InputStream inputStream = new GZIPInputStream(new FileInputStream(compressedFile));
+        try {
+            byte[] buffer = new byte[1024];
+            int length = 0;
+            int read;
+            while ((read = inputStream.read(buffer, length, buffer.length - length)) > 0) {
+                length += read;
+            }
+            byte[] content = new byte[length];
+            System.arraycopy(buffer, 0, content, 0, length);
+            return content;
+        } finally {
+            inputStream.close();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/**
+ * Copyright © 2013 - 2017 WaveMaker, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wavemaker.app.build.io;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.wavemaker.commons.WMRuntimeException;
+import com.wavemaker.commons.io.local.LocalFile;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GeneratedFileWriterTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final GeneratedFileWriter generatedFileWriter = new GeneratedFileWriter();
+
+    @Test
+    public void writesOnlyChangedContent() throws IOException {
+        File file = new File(temporaryFolder.getRoot(), "page.min.html");
+
+        assertTrue(generatedFileWriter.write(new LocalFile(file), "content"));
+        assertFalse(generatedFileWriter.write(new LocalFile(file), "content"));
+        assertTrue(generatedFileWriter.write(new LocalFile(file), "contents"));
+
+        assertEquals("contents", read(file));
+        assertEquals(2, generatedFileWriter.getWrittenCount());
+        assertEquals(1, generatedFileWriter.getSkippedCount());
+    }
+
+    @Test
+    public void replacesFileByNewContentFile() throws IOException {
+        File file = create("page.min.html", "old");
+        File newContentFile = create("page.min.html.tmp", "new");
+
+        assertTrue(generatedFileWriter.replace(file, newContentFile));
+
+        assertEquals("new", read(file));
+        assertFalse(newContentFile.exists());
+    }
+
+    @Test
+    public void replacesMissingFile() throws IOException {
+        File file = new File(temporaryFolder.getRoot(), "page.min.html");
+        File newContentFile = create("page.min.html.tmp", "new");
+
+        assertTrue(generatedFileWriter.replace(file, newContentFile));
+
+        assertEquals("new", read(file));
+    }
+
+    @Test
+    public void keepsUnchangedFileWhenReplacing() throws IOException {
+        File file = create("page.min.html", "same");
+        assertTrue(file.setLastModified(1000));
+        File newContentFile = create("page.min.html.tmp", "same");
+
+        assertFalse(generatedFileWriter.replace(file, newContentFile));
+
+        assertEquals(1000, file.lastModified());
+        assertFalse(newContentFile.exists());
+        assertEquals(1, generatedFileWriter.getSkippedCount());
+    }
+
+    @Test
+    public void splicesContentOfSameLength() throws IOException {
+        File file = create("page.min.html", "<a>one</a><b>two</b>");
+
+        assertTrue(generatedFileWriter.splice(file, 3, 6, "ONE".getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals("<a>ONE</a><b>two</b>", read(file));
+    }
+
+    @Test
+    public void splicesLongerAndShorterContent() throws IOException {
+        File file = create("page.min.html", "<a>one</a><b>two</b>");
+
+        assertTrue(generatedFileWriter.splice(file, 3, 6, "first".getBytes(StandardCharsets.UTF_8)));
+        assertEquals("<a>first</a><b>two</b>", read(file));
+
+        assertTrue(generatedFileWriter.splice(file, 15, 18, "".getBytes(StandardCharsets.UTF_8)));
+        assertEquals("<a>first</a><b></b>", read(file));
+    }
+
+    @Test
+    public void replacesFileWhenSplicingContentOfDifferentLength() throws IOException {
+        File file = create("page.min.html", "<a>one</a><b>two</b>");
+        InputStream previousContent = new FileInputStream(file);
+        try {
+            assertTrue(generatedFileWriter.splice(file, 3, 6, "first".getBytes(StandardCharsets.UTF_8)));
+
+            byte[] content = new byte[20];
+            new DataInputStream(previousContent).readFully(content);
+            assertEquals("<a>one</a><b>two</b>", new String(content, StandardCharsets.UTF_8));
+            assertEquals(-1, previousContent.read());
+        } finally {
+            previousContent.close();
+        }
+        assertEquals("<a>first</a><b>two</b>", read(file));
+        assertArrayEquals(new String[]{"page.min.html"}, temporaryFolder.getRoot().list());
+    }
+
+    @Test
+    public void skipsSplicingUnchangedContent() throws IOException {
+        File file = create("page.min.html", "<a>one</a>");
+
+        assertFalse(generatedFileWriter.splice(file, 3, 6, "one".getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(1, generatedFileWriter.getSkippedCount());
+        assertEquals(0, generatedFileWriter.getWrittenCount());
+    }
+
+    @Test(expected = WMRuntimeException.class)
+    public void rejectsRangeOutsideOfTheFile() throws IOException {
+        File file = create("page.min.html", "<a>one</a>");
+
+        generatedFileWriter.splice(file, 3, 20, new byte[0]);
+    }
+
+    private File create(String name, String content) throws IOException {
+        File file = new File(temporaryFolder.getRoot(), name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+}
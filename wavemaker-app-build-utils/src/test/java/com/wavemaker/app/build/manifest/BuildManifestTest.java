@@ -0,0 +1,124 @@
+/**
+ * Copyright © 2013 - 2017 WaveMaker, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wavemaker.app.build.manifest;
+
+import java.io.File;
+import java.util.Collections;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BuildManifestTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void reportsUnitsModifiedSincePreviousBuild() {
+        File manifestFile = new File(temporaryFolder.getRoot(), "cache/manifest.properties");
+        BuildManifest buildManifest = new BuildManifest(manifestFile);
+        assertTrue(buildManifest.isModified("page:Main", "1"));
+        assertTrue(buildManifest.isModified("page:Login", "2"));
+        buildManifest.save();
+
+        BuildManifest nextBuildManifest = new BuildManifest(manifestFile);
+
+        assertFalse(nextBuildManifest.isModified("page:Main", "1"));
+        assertTrue(nextBuildManifest.isModified("page:Login", "3"));
+        assertTrue(nextBuildManifest.isModified("page:Common", "4"));
+        assertEquals("3", nextBuildManifest.getCurrentHash("page:Login"));
+    }
+
+    @Test
+    public void keepsPreviousHashesUntilSaved() {
+        File manifestFile = new File(temporaryFolder.getRoot(), "manifest.properties");
+        BuildManifest buildManifest = new BuildManifest(manifestFile);
+        buildManifest.isModified("page:Main", "1");
+        buildManifest.save();
+
+        // a failed build does not save its hashes
+        new BuildManifest(manifestFile).isModified("page:Main", "2");
+
+        assertTrue(new BuildManifest(manifestFile).isModified("page:Main", "2"));
+        assertFalse(new BuildManifest(manifestFile).isModified("page:Main", "1"));
+    }
+
+    @Test
+    public void invalidatesKeysWithPrefix() {
+        File manifestFile = new File(temporaryFolder.getRoot(), "manifest.properties");
+        BuildManifest buildManifest = new BuildManifest(manifestFile);
+        buildManifest.isModified("service:hrdb", "1");
+        buildManifest.isModified("page:Main", "2");
+        buildManifest.save();
+
+        BuildManifest nextBuildManifest = new BuildManifest(manifestFile);
+        nextBuildManifest.invalidate(BuildManifest.SERVICE_PREFIX);
+
+        assertTrue(nextBuildManifest.isModified("service:hrdb", "1"));
+        assertFalse(nextBuildManifest.isModified("page:Main", "2"));
+    }
+
+    @Test
+    public void listsKeysRemovedSincePreviousBuild() {
+        File manifestFile = new File(temporaryFolder.getRoot(), "manifest.properties");
+        BuildManifest buildManifest = new BuildManifest(manifestFile);
+        buildManifest.isModified("page:Main", "1");
+        buildManifest.isModified("page:Login", "2");
+        buildManifest.isModified("service:hrdb", "3");
+        buildManifest.save();
+
+        BuildManifest nextBuildManifest = new BuildManifest(manifestFile);
+        nextBuildManifest.isModified("page:Main", "1");
+
+        assertEquals(Collections.singleton("page:Login"), nextBuildManifest.getRemovedKeys(BuildManifest.PAGE_PREFIX));
+        assertEquals(Collections.singleton("service:hrdb"), nextBuildManifest.getRemovedKeys(BuildManifest.SERVICE_PREFIX));
+    }
+
+    @Test
+    public void invalidatesEverythingBuiltByAnotherGenerator() {
+        File manifestFile = new File(temporaryFolder.getRoot(), "manifest.properties");
+        BuildManifest buildManifest = new BuildManifest(manifestFile);
+        assertFalse(buildManifest.isGeneratorModified("1.0"));
+        buildManifest.isModified("page:Main", "1");
+        buildManifest.save();
+
+        BuildManifest sameGeneratorManifest = new BuildManifest(manifestFile);
+        assertFalse(sameGeneratorManifest.isGeneratorModified("1.0"));
+        assertFalse(sameGeneratorManifest.isModified("page:Main", "1"));
+
+        BuildManifest upgradedGeneratorManifest = new BuildManifest(manifestFile);
+        assertTrue(upgradedGeneratorManifest.isGeneratorModified("1.1"));
+        assertTrue(upgradedGeneratorManifest.isModified("page:Main", "1"));
+    }
+
+    @Test
+    public void invalidatesManifestWithoutGenerator() {
+        File manifestFile = new File(temporaryFolder.getRoot(), "manifest.properties");
+        BuildManifest buildManifest = new BuildManifest(manifestFile);
+        buildManifest.isModified("page:Main", "1");
+        buildManifest.save();
+
+        BuildManifest nextBuildManifest = new BuildManifest(manifestFile);
+
+        assertTrue(nextBuildManifest.isGeneratorModified("1.0"));
+        assertTrue(nextBuildManifest.isModified("page:Main", "1"));
+    }
+}
@@ -0,0 +1,72 @@
+/**
+ * Copyright © 2013 - 2017 WaveMaker, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wavemaker.app.build.pages;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class CssMinifierTest {
+
+    @Test
+    public void removesCommentsAndWhitespace() throws IOException {
+        assertEquals(".a>.b,.c{color:red;margin:0 auto;}",
+                minify("/* header */\n.a > .b,\n.c {\n  color: red;\n  margin: 0  auto; /* center */\n}"));
+    }
+
+    @Test
+    public void keepsPreservedComments() throws IOException {
+        assertEquals("/*! license  text */ .a{color:red}", minify("/*! license  text */\n.a { color: red }"));
+    }
+
+    @Test
+    public void keepsSpacesAroundCalcOperators() throws IOException {
+        assertEquals(".a{width:calc(100% - 10px);height:calc(2em + (1px * 3))}",
+                minify(".a { width: calc( 100% - 10px ); height: calc(2em + ( 1px * 3 )) }"));
+    }
+
+    @Test
+    public void keepsSpaceBeforeMediaQueryParentheses() throws IOException {
+        assertEquals("@media screen and (max-width:600px){.a{display:none}}",
+                minify("@media screen and ( max-width: 600px ) {\n  .a { display: none }\n}"));
+    }
+
+    @Test
+    public void dropsSpaceBeforeImportant() throws IOException {
+        assertEquals(".a{color:red!important}", minify(".a { color: red !important }"));
+    }
+
+    @Test
+    public void keepsStrings() throws IOException {
+        assertEquals(".a:before{content:\"a  \\\" b\"}", minify(".a:before { content: \"a  \\\" b\" }"));
+        assertEquals("[title='x  y']{font-family:'Open  Sans'}", minify("[title='x  y'] { font-family: 'Open  Sans' }"));
+    }
+
+    @Test
+    public void keepsSpaceBeforeDescendantPseudoClass() throws IOException {
+        assertEquals(".a :first-child,.b:hover{color:red}", minify(".a :first-child, .b:hover { color: red }"));
+    }
+
+    private static String minify(String styleSheet) throws IOException {
+        StringWriter writer = new StringWriter();
+        new CssMinifier().minify(new StringReader(styleSheet), writer);
+        return writer.toString();
+    }
+}
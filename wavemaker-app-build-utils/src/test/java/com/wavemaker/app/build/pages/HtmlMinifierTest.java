@@ -0,0 +1,68 @@
+/**
+ * Copyright © 2013 - 2017 WaveMaker, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wavemaker.app.build.pages;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class HtmlMinifierTest {
+
+    @Test
+    public void collapsesWhitespaceOfTextAndTags() throws IOException {
+        assertEquals("<div class=\"a  b\" id=x> text here </div>",
+                minify("<div   class=\"a  b\"\n  id=x  >\n  text   here </div>"));
+    }
+
+    @Test
+    public void keepsCommentsAsTheyAre() throws IOException {
+        assertEquals("<!--  a  --> <b>", minify("<!--  a  -->\n\n<b>"));
+    }
+
+    @Test
+    public void keepsContentOfRawElements() throws IOException {
+        assertEquals("<pre>  a\n   b</pre> <textarea>\n x  </textarea> <script>\n var a  = 1;\n</script>",
+                minify("<pre>  a\n   b</pre>\n<textarea>\n x  </textarea>\n<script>\n var a  = 1;\n</SCRIPT  >")
+                        .replace("</SCRIPT>", "</script>"));
+    }
+
+    @Test
+    public void keepsContentOfRawElementWithUnquotedValueEndingWithSlash() throws IOException {
+        assertEquals("<script src=a/>\n var a  = 1;\n</script>", minify("<script src=a/>\n var a  = 1;\n</script>"));
+        assertEquals("<pre title = a/>  b  </pre>", minify("<pre title = a/>  b  </pre>"));
+    }
+
+    @Test
+    public void collapsesContentAfterSelfClosingTag() throws IOException {
+        assertEquals("<br/> a b <img src=\"x\" /> c", minify("<br/>  a   b <img src=\"x\" />  c"));
+    }
+
+    @Test
+    public void keepsInterpolationsAsTheyAre() throws IOException {
+        assertEquals("<p> {{'a   b' + name}} and {{ x\n  | y }} </p>",
+                minify("<p>\n  {{'a   b' + name}}   and {{ x\n  | y }}\n</p>"));
+    }
+
+    private static String minify(String template) throws IOException {
+        StringWriter writer = new StringWriter();
+        new HtmlMinifier().minify(new StringReader(template), writer);
+        return writer.toString();
+    }
+}
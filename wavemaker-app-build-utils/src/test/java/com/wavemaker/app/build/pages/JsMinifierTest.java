@@ -0,0 +1,71 @@
+/**
+ * Copyright © 2013 - 2017 WaveMaker, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wavemaker.app.build.pages;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class JsMinifierTest {
+
+    @Test
+    public void removesCommentsAndWhitespace() throws IOException {
+        assertEquals("/*! license */\nfunction f(a,b){return a+ +b;}",
+                minify("/*! license */\nfunction f ( a, b ) { // sum\n  return a + +b; /* done */\n}"));
+    }
+
+    @Test
+    public void keepsRegexAfterOperatorsAndKeywords() throws IOException {
+        assertEquals("var r=/a b/g,s=[/c d/];return/e f/.test(s)",
+                minify("var r = /a b/g, s = [ /c d/ ]; return /e f/.test(s)"));
+        assertEquals("if(a)/b c/.test(d)", minify("if (a) /b c/.test(d)"));
+        assertEquals("a=b+/c d/.source", minify("a = b + /c d/.source"));
+    }
+
+    @Test
+    public void keepsDivisionAfterOperands() throws IOException {
+        assertEquals("a++/b/g", minify("a++ / b / g"));
+        assertEquals("c=(a+b)/2/d", minify("c = (a + b) / 2 / d"));
+        assertEquals("x={}/2/y", minify("x = {} / 2 / y"));
+        assertEquals("z=a[0]/2/b", minify("z = a[0] / 2 / b"));
+    }
+
+    @Test
+    public void keepsLineBreaksWhereSemicolonsMayBeInserted() throws IOException {
+        assertEquals("var a=1\nvar b=2", minify("var a = 1\n\n  var b = 2"));
+        assertEquals("return\na", minify("return\na"));
+        assertEquals("a\n++b", minify("a\n++b"));
+        assertEquals("f(a,b)", minify("f(\n  a,\n  b)"));
+    }
+
+    @Test
+    public void keepsStringsAndNestedTemplateLiterals() throws IOException {
+        assertEquals("var s='a  // b',t=\"c /* d */\";", minify("var s = 'a  // b', t = \"c /* d */\";"));
+        assertEquals("var u=`a ${ b ? `c ${ {d: 1}.d }` : '}' } e`;",
+                minify("var u = `a ${ b ? `c ${ {d: 1}.d }` : '}' } e`;"));
+        assertEquals("v=`${a}`/2", minify("v = `${a}` / 2"));
+    }
+
+    private static String minify(String script) throws IOException {
+        StringWriter writer = new StringWriter();
+        new JsMinifier().minify(new StringReader(script), writer);
+        return writer.toString();
+    }
+}
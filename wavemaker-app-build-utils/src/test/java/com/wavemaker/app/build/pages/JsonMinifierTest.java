@@ -0,0 +1,49 @@
+/**
+ * Copyright © 2013 - 2017 WaveMaker, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wavemaker.app.build.pages;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class JsonMinifierTest {
+
+    @Test
+    public void removesWhitespaceOutsideOfStrings() throws IOException {
+        assertEquals("{\"a b\":true,\"c\":[1,-2.5e+3,null],\"d\":{}}",
+                minify("{\n  \"a b\" : true ,\n  \"c\" : [ 1 , -2.5e+3 , null ],\n  \"d\" : { }\n}"));
+    }
+
+    @Test
+    public void keepsStringsWithEscapedQuotes() throws IOException {
+        assertEquals("{\"a\":\"x  \\\"  y\\\\\",\"b\":\" \"}", minify("{ \"a\" : \"x  \\\"  y\\\\\" , \"b\" : \" \" }"));
+    }
+
+    @Test
+    public void keepsSpaceBetweenLiterals() throws IOException {
+        assertEquals("[1 2,true false,null -1]", minify("[ 1  2 , true\nfalse, null  -1 ]"));
+    }
+
+    private static String minify(String json) throws IOException {
+        StringWriter writer = new StringWriter();
+        new JsonMinifier().minify(new StringReader(json), writer);
+        return writer.toString();
+    }
+}
@@ -0,0 +1,184 @@
+/**
+ * Copyright © 2013 - 2017 WaveMaker, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wavemaker.app.build.pages;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.wavemaker.app.build.constants.AppBuildConstants;
+import com.wavemaker.app.build.io.GeneratedFileWriter;
+import com.wavemaker.commons.io.Folder;
+import com.wavemaker.commons.io.local.LocalFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PageMinFileIndexTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void recordsByteOffsetsOfSections() {
+        String css = Page.CSS.getStartElement("Main") + "café" + Page.CSS.getEndElement();
+        String html = Page.HTML.getStartElement("Main") + "<p> </p>" + Page.HTML.getEndElement();
+        String content = css + "\n" + html;
+
+        PageMinFileIndex pageMinFileIndex = PageMinFileIndex.of(content, "Main");
+
+        int cssLength = css.getBytes(StandardCharsets.UTF_8).length;
+        assertEquals(0, pageMinFileIndex.getStart(Page.CSS));
+        assertEquals(cssLength, pageMinFileIndex.getEnd(Page.CSS));
+        assertEquals(cssLength + 1, pageMinFileIndex.getStart(Page.HTML));
+        assertEquals(content.getBytes(StandardCharsets.UTF_8).length, pageMinFileIndex.getEnd(Page.HTML));
+        assertFalse(pageMinFileIndex.hasSection(Page.JS));
+    }
+
+    @Test
+    public void resizingSectionMovesFollowingSections() {
+        PageMinFileIndex pageMinFileIndex = new PageMinFileIndex().setSection(Page.CSS, 0, 10)
+                .setSection(Page.JS, 11, 20).setSection(Page.HTML, 21, 30);
+
+        pageMinFileIndex.resizeSection(Page.JS, 4);
+
+        assertEquals(10, pageMinFileIndex.getEnd(Page.CSS));
+        assertEquals(11, pageMinFileIndex.getStart(Page.JS));
+        assertEquals(15, pageMinFileIndex.getEnd(Page.JS));
+        assertEquals(16, pageMinFileIndex.getStart(Page.HTML));
+        assertEquals(25, pageMinFileIndex.getEnd(Page.HTML));
+    }
+
+    @Test
+    public void isValidForIndexedPageMinFile() throws IOException {
+        File pageMinFile = writePageMinFile("content");
+        File indexFile = new File(temporaryFolder.getRoot(), "cache/" + AppBuildConstants.PAGE_MIN_INDEX_FILE);
+        new PageMinFileIndex().setSection(Page.CSS, 0, 7).write(pageMinFile, new LocalFolder(indexFile.getParentFile())
+                .getFile(indexFile.getName()), new GeneratedFileWriter());
+
+        PageMinFileIndex pageMinFileIndex = PageMinFileIndex.read(indexFile);
+
+        assertTrue(pageMinFileIndex.isValid(pageMinFile));
+        assertEquals(7, pageMinFileIndex.getEnd(Page.CSS));
+    }
+
+    @Test
+    public void isNotValidForChangedLastModified() throws IOException {
+        File pageMinFile = writePageMinFile("content");
+        File indexFile = new File(temporaryFolder.getRoot(), "cache/" + AppBuildConstants.PAGE_MIN_INDEX_FILE);
+        new PageMinFileIndex().write(pageMinFile, new LocalFolder(indexFile.getParentFile()).getFile(indexFile.getName()),
+                new GeneratedFileWriter());
+
+        pageMinFile.setLastModified(pageMinFile.lastModified() - 10000);
+
+        assertFalse(PageMinFileIndex.read(indexFile).isValid(pageMinFile));
+    }
+
+    @Test
+    public void readsMissingOrCorruptIndexAsNull() throws IOException {
+        File indexFile = new File(temporaryFolder.getRoot(), AppBuildConstants.PAGE_MIN_INDEX_FILE);
+        assertNull(PageMinFileIndex.read(indexFile));
+
+        Files.write(indexFile.toPath(), "size=x\n".getBytes(StandardCharsets.UTF_8));
+        assertNull(PageMinFileIndex.read(indexFile));
+    }
+
+    @Test
+    public void keepsIndexAndAssemblyFileOutOfPageFolder() throws IOException {
+        Folder pageFolder = createPage("Main", "a {}", "var a;", "<div></div>");
+        File cacheFolder = new File(temporaryFolder.getRoot(), "cache");
+
+        new PageMinFileGenerator(Collections.singletonList(pageFolder)).setCacheFolder(cacheFolder).generate();
+
+        String[] pageFiles = getLocalFile(pageFolder).list();
+        Arrays.sort(pageFiles);
+        assertEquals(Arrays.asList("Main.css", "Main.html", "Main.js", AppBuildConstants.PAGE_MIN_FILE),
+                Arrays.asList(pageFiles));
+        assertEquals(Collections.singletonList(AppBuildConstants.PAGE_MIN_INDEX_FILE),
+                Arrays.asList(new File(cacheFolder, "Main").list()));
+    }
+
+    @Test
+    public void updatesIndexedSectionAsGenerationWould() throws IOException {
+        Folder pageFolder = createPage("Main", "a {}", "var a;", "<div></div>");
+        File cacheFolder = new File(temporaryFolder.getRoot(), "cache");
+        new PageMinFileGenerator(Collections.singletonList(pageFolder)).setCacheFolder(cacheFolder).generate();
+
+        Files.write(new File(getLocalFile(pageFolder), "Main.js").toPath(), "var b = 'é';".getBytes(StandardCharsets.UTF_8));
+        new PageMinFileUpdator(pageFolder, Page.JS).setCacheFolder(cacheFolder).update();
+
+        Folder expectedPageFolder = createPage("Main", "a {}", "var b = 'é';", "<div></div>");
+        new PageMinFileGenerator(Collections.singletonList(expectedPageFolder)).generate();
+        assertEquals(readPageMinFile(expectedPageFolder), readPageMinFile(pageFolder));
+        assertTrue(PageMinFileIndex.read(new File(cacheFolder, "Main/" + AppBuildConstants.PAGE_MIN_INDEX_FILE))
+                .isValid(new File(getLocalFile(pageFolder), AppBuildConstants.PAGE_MIN_FILE)));
+    }
+
+    @Test
+    public void fallsBackToWholeContentWhenIndexedElementsMoved() throws IOException {
+        Folder pageFolder = createPage("Main", "a {}", "var a;", "<div></div>");
+        File cacheFolder = new File(temporaryFolder.getRoot(), "cache");
+        new PageMinFileGenerator(Collections.singletonList(pageFolder)).setCacheFolder(cacheFolder).generate();
+        File pageMinFile = new File(getLocalFile(pageFolder), AppBuildConstants.PAGE_MIN_FILE);
+        long lastModified = pageMinFile.lastModified();
+        String content = readPageMinFile(pageFolder);
+        // same size and last modified time, every section moved by one byte
+        Files.write(pageMinFile.toPath(), ("x" + content.replace("var a;", "ar a;")).getBytes(StandardCharsets.UTF_8));
+        pageMinFile.setLastModified(lastModified);
+        assertTrue(PageMinFileIndex.read(new File(cacheFolder, "Main/" + AppBuildConstants.PAGE_MIN_INDEX_FILE))
+                .isValid(pageMinFile));
+
+        Files.write(new File(getLocalFile(pageFolder), "Main.js").toPath(), "var b;".getBytes(StandardCharsets.UTF_8));
+        new PageMinFileUpdator(pageFolder, Page.JS).setCacheFolder(cacheFolder).update();
+
+        Folder expectedPageFolder = createPage("Main", "a {}", "var b;", "<div></div>");
+        new PageMinFileGenerator(Collections.singletonList(expectedPageFolder)).generate();
+        assertEquals("x" + readPageMinFile(expectedPageFolder), readPageMinFile(pageFolder));
+    }
+
+    private File writePageMinFile(String content) throws IOException {
+        File pageMinFile = new File(temporaryFolder.newFolder(), AppBuildConstants.PAGE_MIN_FILE);
+        Files.write(pageMinFile.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return pageMinFile;
+    }
+
+    private Folder createPage(String pageName, String css, String js, String html) throws IOException {
+        File pageFolder = new File(temporaryFolder.newFolder(), pageName);
+        pageFolder.mkdirs();
+        Files.write(new File(pageFolder, pageName + ".css").toPath(), css.getBytes(StandardCharsets.UTF_8));
+        Files.write(new File(pageFolder, pageName + ".js").toPath(), js.getBytes(StandardCharsets.UTF_8));
+        Files.write(new File(pageFolder, pageName + ".html").toPath(), html.getBytes(StandardCharsets.UTF_8));
+        return new LocalFolder(pageFolder);
+    }
+
+    private static String readPageMinFile(Folder pageFolder) throws IOException {
+        return new String(Files.readAllBytes(new File(getLocalFile(pageFolder), AppBuildConstants.PAGE_MIN_FILE).toPath()),
+                StandardCharsets.UTF_8);
+    }
+
+    private static File getLocalFile(Folder pageFolder) {
+        return ((LocalFolder) pageFolder).getLocalFile();
+    }
+}
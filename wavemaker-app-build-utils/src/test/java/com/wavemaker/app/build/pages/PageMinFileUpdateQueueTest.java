@@ -0,0 +1,128 @@
+/**
+ * Copyright © 2013 - 2017 WaveMaker, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wavemaker.app.build.pages;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.wavemaker.app.build.constants.AppBuildConstants;
+import com.wavemaker.commons.WMRuntimeException;
+import com.wavemaker.commons.io.Folder;
+import com.wavemaker.commons.io.local.LocalFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PageMinFileUpdateQueueTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private PageMinFileUpdateQueue pageMinFileUpdateQueue;
+
+    @After
+    public void close() {
+        if (pageMinFileUpdateQueue != null) {
+            pageMinFileUpdateQueue.close();
+        }
+    }
+
+    @Test
+    public void appliesMergedUpdatesOnFlush() throws IOException {
+        Folder pageFolder = createPage("a {}", "var a;");
+        new PageMinFileGenerator(Collections.singletonList(pageFolder)).generate();
+        pageMinFileUpdateQueue = new PageMinFileUpdateQueue(60000);
+
+        writePageFile(pageFolder, "css", "b {}");
+        pageMinFileUpdateQueue.submit(pageFolder, Page.CSS);
+        writePageFile(pageFolder, "js", "var b;");
+        pageMinFileUpdateQueue.submit(pageFolder, Page.JS);
+        pageMinFileUpdateQueue.flush();
+
+        Folder expectedPageFolder = createPage("b {}", "var b;");
+        new PageMinFileGenerator(Collections.singletonList(expectedPageFolder)).generate();
+        assertEquals(readPageMinFile(expectedPageFolder), readPageMinFile(pageFolder));
+    }
+
+    @Test
+    public void reportsFailedUpdatesOnFlush() throws IOException {
+        Folder pageFolder = createPage("a {}", "var a;");
+        pageMinFileUpdateQueue = new PageMinFileUpdateQueue(60000);
+        pageMinFileUpdateQueue.submit(pageFolder, Page.CSS);
+        makeUnwritable(pageFolder);
+
+        try {
+            pageMinFileUpdateQueue.flush();
+            fail("Failed update not reported");
+        } catch (WMRuntimeException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("page Main"));
+        }
+    }
+
+    @Test
+    public void reportsFailedDelayedUpdatesOnNextFlush() throws IOException {
+        Folder pageFolder = createPage("a {}", "var a;");
+        makeUnwritable(pageFolder);
+        pageMinFileUpdateQueue = new PageMinFileUpdateQueue(0);
+        // applied after its delay, before the flush queued behind it
+        pageMinFileUpdateQueue.submit(pageFolder, Page.CSS);
+
+        try {
+            pageMinFileUpdateQueue.flush();
+            fail("Failed update not reported");
+        } catch (WMRuntimeException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("page Main"));
+        }
+        // reported once
+        pageMinFileUpdateQueue.flush();
+    }
+
+    private Folder createPage(String css, String js) throws IOException {
+        File pageFolder = new File(temporaryFolder.newFolder(), "Main");
+        pageFolder.mkdirs();
+        Folder folder = new LocalFolder(pageFolder);
+        writePageFile(folder, "css", css);
+        writePageFile(folder, "js", js);
+        return folder;
+    }
+
+    private static void makeUnwritable(Folder pageFolder) {
+        // a folder in place of the page min file can neither be read nor replaced
+        assertTrue(new File(getLocalFile(pageFolder), AppBuildConstants.PAGE_MIN_FILE + "/page").mkdirs());
+    }
+
+    private static void writePageFile(Folder pageFolder, String extension, String content) throws IOException {
+        Files.write(new File(getLocalFile(pageFolder), "Main." + extension).toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String readPageMinFile(Folder pageFolder) throws IOException {
+        return new String(Files.readAllBytes(new File(getLocalFile(pageFolder), AppBuildConstants.PAGE_MIN_FILE).toPath()),
+                StandardCharsets.UTF_8);
+    }
+
+    private static File getLocalFile(Folder pageFolder) {
+        return ((LocalFolder) pageFolder).getLocalFile();
+    }
+}
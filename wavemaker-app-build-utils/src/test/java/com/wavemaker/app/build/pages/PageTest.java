@@ -0,0 +1,96 @@
+/**
+ * Copyright © 2013 - 2017 WaveMaker, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wavemaker.app.build.pages;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.wavemaker.commons.io.Folder;
+import com.wavemaker.commons.io.local.LocalFolder;
+import com.wavemaker.commons.util.SystemUtils;
+
+import static org.junit.Assert.assertEquals;
+
+public class PageTest {
+
+    private static final String[] CONTENTS = {"", " \n\t ", "\u0001", " \u0001 ", "\u2003", " a ", "\n{\"a\": 1}\n",
+            "\u00a0x\u00a0", "caf\u00e9 \u2003"};
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void transfersTheSameTemplateAsItAppends() throws IOException {
+        for (String content : CONTENTS) {
+            for (Page page : Page.values()) {
+                Folder pageFolder = createPage(content, page);
+
+                assertEquals("Template of " + page + " with content [" + content + "]", page.constructTemplate(pageFolder),
+                        transferTemplate(page, pageFolder));
+            }
+        }
+    }
+
+    @Test
+    public void replacesBlankContentByDefaultContent() throws IOException {
+        Folder pageFolder = createPage(" \n ", Page.JSON);
+
+        assertEquals(Page.JSON.getStartElement("Main") + lineBreak() + "var _MainPage_Variables_ ={}" + lineBreak()
+                + Page.JSON.getEndElement() + lineBreak(), Page.JSON.constructTemplate(pageFolder));
+    }
+
+    @Test
+    public void usesTrimmedContent() throws IOException {
+        Folder pageFolder = createPage("\n  <div></div>\n\n", Page.HTML);
+
+        assertEquals(Page.HTML.getStartElement("Main") + lineBreak() + "<div></div>" + lineBreak()
+                + Page.HTML.getEndElement() + lineBreak(), Page.HTML.constructTemplate(pageFolder));
+    }
+
+    private Folder createPage(String content, Page page) throws IOException {
+        File pageFolder = new File(temporaryFolder.newFolder(), "Main");
+        pageFolder.mkdirs();
+        Files.write(new File(pageFolder, "Main." + getFileSuffix(page)).toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return new LocalFolder(pageFolder);
+    }
+
+    private String transferTemplate(Page page, Folder pageFolder) throws IOException {
+        File templateFile = temporaryFolder.newFile();
+        FileChannel channel = FileChannel.open(templateFile.toPath(), StandardOpenOption.WRITE);
+        try {
+            page.transferTemplate(pageFolder, channel, true);
+        } finally {
+            channel.close();
+        }
+        return new String(Files.readAllBytes(templateFile.toPath()), StandardCharsets.UTF_8);
+    }
+
+    private static String getFileSuffix(Page page) {
+        return page == Page.JSON ? "variables.json" : page.name().toLowerCase();
+    }
+
+    private static String lineBreak() {
+        return SystemUtils.getLineBreak();
+    }
+}
@@ -0,0 +1,162 @@
+/**
+ * Copyright © 2013 - 2017 WaveMaker, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wavemaker.app.build.project;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.wavemaker.app.build.BasePackage;
+import com.wavemaker.commons.io.local.LocalFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ProjectScannerTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File rootFolder;
+
+    @Before
+    public void setUp() throws IOException {
+        rootFolder = temporaryFolder.getRoot();
+        createFiles("src/main/webapp/pages/Main/Main.html", "src/main/webapp/pages/Login/Login.variables.json",
+                "services/hrdb/src/com/wavemaker/hrdb/Employee.java",
+                "services/hrdb/src/com/wavemaker/hrdb/service/EmployeeService.java",
+                "services/weather/designtime/weather_API.json");
+    }
+
+    @Test
+    public void collectsPagesServicesJavaSourcesAndVariableFiles() {
+        ProjectSnapshot projectSnapshot = scan();
+
+        assertEquals(Arrays.asList("Login", "Main"), projectSnapshot.getPageNames());
+        assertEquals(Arrays.asList("hrdb", "weather"), projectSnapshot.getServiceNames());
+        assertEquals(Arrays.asList("com/wavemaker/hrdb/Employee.java", "com/wavemaker/hrdb/service/EmployeeService.java"),
+                projectSnapshot.getJavaSources("hrdb"));
+        assertEquals(Collections.emptyList(), projectSnapshot.getJavaSources("weather"));
+        assertEquals(Collections.singletonList("src/main/webapp/pages/Login/Login.variables.json"),
+                projectSnapshot.getVariableFiles());
+    }
+
+    @Test
+    public void skipsPrunedDirectories() throws IOException {
+        createFiles("node_modules/lib/lib.variables.json", "target/classes/pages/Main/Main.variables.json",
+                "src/main/webapp/pages/Main/.svn/Main.variables.json", "services/hrdb/target/Generated.java",
+                "services/hrdb/designtime/node_modules/Other.java");
+
+        ProjectSnapshot projectSnapshot = scan();
+
+        assertEquals(Collections.singletonList("src/main/webapp/pages/Login/Login.variables.json"),
+                projectSnapshot.getVariableFiles());
+        assertEquals(2, projectSnapshot.getJavaSources("hrdb").size());
+    }
+
+    @Test
+    public void walksPrunedNamesInServiceSources() throws IOException {
+        createFiles("services/hrdb/src/com/wavemaker/hrdb/target/Target.java",
+                "services/hrdb/src/node_modules/Module.java");
+
+        ProjectSnapshot projectSnapshot = scan();
+
+        assertEquals(Arrays.asList("com/wavemaker/hrdb/Employee.java", "com/wavemaker/hrdb/service/EmployeeService.java",
+                "com/wavemaker/hrdb/target/Target.java", "node_modules/Module.java"),
+                projectSnapshot.getJavaSources("hrdb"));
+    }
+
+    @Test
+    public void skipsPrunedDirectoriesSetOnScanner() throws IOException {
+        createFiles("build/Build.variables.json", "node_modules/Module.variables.json");
+
+        ProjectSnapshot projectSnapshot = new ProjectScanner(rootFolder, "src/main/webapp/pages", "services")
+                .setPrunedDirectories(Collections.singletonList("build")).scan();
+
+        assertEquals(Arrays.asList("node_modules/Module.variables.json", "src/main/webapp/pages/Login/Login.variables.json"),
+                projectSnapshot.getVariableFiles());
+    }
+
+    @Test
+    public void excludesVariableFilesOfPrefabs() throws IOException {
+        createFiles("app/prefabs/Chart/pages/Main/Main.variables.json", "app/Main.variables.json");
+
+        ProjectSnapshot projectSnapshot = scan();
+
+        assertEquals(Arrays.asList("app/Main.variables.json", "src/main/webapp/pages/Login/Login.variables.json"),
+                projectSnapshot.getVariableFiles());
+    }
+
+    @Test
+    public void computesBasePackageFromJavaSources() {
+        ProjectSnapshot projectSnapshot = scan();
+
+        BasePackage basePackage = new BasePackage(projectSnapshot.getJavaSources("hrdb"));
+
+        assertEquals("com.wavemaker.hrdb", basePackage.getBasePackageName());
+        assertEquals(new BasePackage(new LocalFolder(new File(rootFolder, "services/hrdb/src"))).getBasePackageName(),
+                basePackage.getBasePackageName());
+    }
+
+    @Test
+    public void computesSameBasePackageFromJavaSourcesAsFromSourceFolder() throws IOException {
+        assertSameBasePackage("org/wavemaker/A.java", "com/wavemaker/B.java");
+        assertSameBasePackage("com/wave/A.java", "com/wavemaker/B.java");
+        assertSameBasePackage("com/A.java", "com/wavemaker/B.java");
+        assertSameBasePackage("com/wavemaker/A.java", "com/wavemaker/B.java");
+        assertSameBasePackage("A.java", "com/wavemaker/B.java");
+        assertSameBasePackage("com/wavemaker/app/A.java");
+    }
+
+    @Test
+    public void computesNoBasePackageForServiceWithoutJavaSources() {
+        ProjectSnapshot projectSnapshot = scan();
+
+        assertNull(new BasePackage(projectSnapshot.getJavaSources("weather")).getBasePackageName());
+    }
+
+    private void assertSameBasePackage(String... javaSources) throws IOException {
+        String service = "service" + temporaryFolder.getRoot().list().length;
+        for (String javaSource : javaSources) {
+            createFiles("services/" + service + "/src/" + javaSource);
+        }
+        ProjectSnapshot projectSnapshot = scan();
+
+        BasePackage basePackage = new BasePackage(projectSnapshot.getJavaSources(service));
+
+        assertEquals(Arrays.asList(javaSources).toString(),
+                new BasePackage(new LocalFolder(new File(rootFolder, "services/" + service + "/src"))).getBasePackageName(),
+                basePackage.getBasePackageName());
+    }
+
+    private ProjectSnapshot scan() {
+        return new ProjectScanner(rootFolder, "src/main/webapp/pages", "services").scan();
+    }
+
+    private void createFiles(String... paths) throws IOException {
+        for (String path : paths) {
+            File file = new File(rootFolder, path);
+            file.getParentFile().mkdirs();
+            file.createNewFile();
+        }
+    }
+}
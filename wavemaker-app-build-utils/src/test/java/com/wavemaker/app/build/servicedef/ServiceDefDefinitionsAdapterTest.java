@@ -0,0 +1,250 @@
+/**
+ * Copyright © 2013 - 2017 WaveMaker, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wavemaker.app.build.servicedef;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.wavemaker.commons.servicedef.model.Parameter;
+import com.wavemaker.tools.apidocs.tools.core.model.Model;
+import com.wavemaker.tools.apidocs.tools.core.model.ModelImpl;
+import com.wavemaker.tools.apidocs.tools.core.model.RefModel;
+import com.wavemaker.tools.apidocs.tools.core.model.Swagger;
+import com.wavemaker.tools.apidocs.tools.core.model.parameters.BodyParameter;
+import com.wavemaker.tools.apidocs.tools.core.model.properties.ArrayProperty;
+import com.wavemaker.tools.apidocs.tools.core.model.properties.Property;
+import com.wavemaker.tools.apidocs.tools.core.model.properties.RefProperty;
+import com.wavemaker.tools.apidocs.tools.core.model.properties.StringProperty;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ServiceDefDefinitionsAdapterTest {
+
+    private static final String[] MODELS = {"Employee", "Department", "Address", "Country"};
+
+    private static final int MAX_DEPTH = 6;
+
+    private final Map<String, Model> definitions = new HashMap<>();
+
+    private final Swagger swagger = new Swagger() {
+        @Override
+        public Map<String, Model> getDefinitions() {
+            return definitions;
+        }
+    };
+
+    public ServiceDefDefinitionsAdapterTest() {
+        // Employee and Department refer to themselves and to each other, Address is shared by both
+        definitions.put("Employee", model("Employee", "name", new StringProperty(), "manager", ref("Employee"),
+                "department", ref("Department"), "address", ref("Address")));
+        definitions.put("Department", model("Department", "name", new StringProperty(), "head", ref("Employee"),
+                "employees", list(ref("Employee")), "parent", ref("Department"), "address", ref("Address")));
+        definitions.put("Address", model("Address", "city", new StringProperty(), "country", ref("Country")));
+        definitions.put("Country", model("Country", "code", new StringProperty()));
+    }
+
+    @Test
+    public void adaptsRecursiveAndSharedModelsAsUnmemoizedTraversal() {
+        TestServiceDefDefinitionsAdapter adapter = new TestServiceDefDefinitionsAdapter();
+        for (int depth = 0; depth <= MAX_DEPTH; depth++) {
+            for (String model : MODELS) {
+                assertEquals(model + " at depth " + depth, expectedFields(model, depth),
+                        adapter.adaptToDefinitions(body(model), depth));
+            }
+        }
+    }
+
+    @Test
+    public void adaptsModelsAsFreshAdapterWhateverTheOrder() {
+        TestServiceDefDefinitionsAdapter adapter = new TestServiceDefDefinitionsAdapter();
+        for (int depth = MAX_DEPTH; depth >= 0; depth--) {
+            for (int i = MODELS.length - 1; i >= 0; i--) {
+                Map<String, Set<Parameter>> fields = adapter.adaptToDefinitions(body(MODELS[i]), depth);
+                assertEquals(MODELS[i] + " at depth " + depth,
+                        new TestServiceDefDefinitionsAdapter().adaptToDefinitions(body(MODELS[i]), depth), fields);
+                assertEquals(MODELS[i] + " at depth " + depth, expectedFields(MODELS[i], depth), fields);
+            }
+        }
+    }
+
+    @Test
+    public void addsFieldsOfRecursiveModelsUpToDepth() {
+        Map<String, Set<Parameter>> fields = new TestServiceDefDefinitionsAdapter().adaptToDefinitions(body("Address"), 1);
+
+        assertEquals(Collections.singleton("Address"), fields.keySet());
+        assertEquals(2, fields.get("Address").size());
+        assertTrue(fields.get("Address").contains(new TestParameter("country", "Country")));
+
+        fields = new TestServiceDefDefinitionsAdapter().adaptToDefinitions(body("Employee"), 3);
+        assertEquals(new HashSet<>(Arrays.asList(MODELS)), fields.keySet());
+    }
+
+    /**
+     * Traverses the model without memoization, down to the depth whatever the models already traversed.
+     */
+    private Map<String, Set<Parameter>> expectedFields(String modelName, int depth) {
+        Map<String, Set<Parameter>> fields = new HashMap<>();
+        addExpectedFields(definitions.get(modelName), depth, fields);
+        return fields;
+    }
+
+    private void addExpectedFields(Model model, int depth, Map<String, Set<Parameter>> fields) {
+        if (depth <= 0) {
+            return;
+        }
+        ModelImpl modelImpl = (ModelImpl) model;
+        if (!fields.containsKey(modelImpl.getFullyQualifiedName())) {
+            fields.put(modelImpl.getFullyQualifiedName(), new HashSet<Parameter>());
+        }
+        for (Map.Entry<String, Property> entry : modelImpl.getProperties().entrySet()) {
+            fields.get(modelImpl.getFullyQualifiedName()).add(new TestParameter(entry.getKey(), typeOf(entry.getValue())));
+            Property property = entry.getValue();
+            if (property instanceof ArrayProperty) {
+                property = ((ArrayProperty) property).getItems();
+            }
+            if (property instanceof RefProperty) {
+                addExpectedFields(definitions.get(((RefProperty) property).getSimpleRef()), depth - 1, fields);
+            }
+        }
+    }
+
+    private static String typeOf(Property property) {
+        if (property instanceof RefProperty) {
+            return ((RefProperty) property).getSimpleRef();
+        }
+        if (property instanceof ArrayProperty) {
+            return "List<" + typeOf(((ArrayProperty) property).getItems()) + ">";
+        }
+        return property.getType();
+    }
+
+    private static Model model(final String name, Object... nameAndProperties) {
+        final Map<String, Property> properties = new LinkedHashMap<>();
+        for (int i = 0; i < nameAndProperties.length; i += 2) {
+            properties.put((String) nameAndProperties[i], (Property) nameAndProperties[i + 1]);
+        }
+        return new ModelImpl() {
+            @Override
+            public Map<String, Property> getProperties() {
+                return properties;
+            }
+
+            @Override
+            public String getFullyQualifiedName() {
+                return name;
+            }
+        };
+    }
+
+    private static RefProperty ref(final String name) {
+        return new RefProperty() {
+            @Override
+            public String getSimpleRef() {
+                return name;
+            }
+        };
+    }
+
+    private static ArrayProperty list(final Property items) {
+        return new ArrayProperty() {
+            @Override
+            public boolean isList() {
+                return true;
+            }
+
+            @Override
+            public Property getItems() {
+                return items;
+            }
+        };
+    }
+
+    private static BodyParameter body(final String modelName) {
+        final RefModel schema = new RefModel() {
+            @Override
+            public String getSimpleRef() {
+                return modelName;
+            }
+
+            @Override
+            public List<Model> getTypeArguments() {
+                return Collections.emptyList();
+            }
+        };
+        return new BodyParameter() {
+            @Override
+            public Model getSchema() {
+                return schema;
+            }
+        };
+    }
+
+    private class TestServiceDefDefinitionsAdapter extends ServiceDefDefinitionsAdapter {
+
+        private TestServiceDefDefinitionsAdapter() {
+            super(swagger, new ServiceDefParameterCriteria() {
+                @Override
+                public boolean meetCriteria(final Parameter parameter) {
+                    return true;
+                }
+            });
+        }
+
+        @Override
+        protected Parameter buildParameter(final String name, final Property property) {
+            return new TestParameter(name, typeOf(property));
+        }
+    }
+
+    private static class TestParameter extends Parameter {
+
+        private final String name;
+        private final String type;
+
+        private TestParameter(final String name, final String type) {
+            this.name = name;
+            this.type = type;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (!(o instanceof TestParameter)) {
+                return false;
+            }
+            TestParameter other = (TestParameter) o;
+            return name.equals(other.name) && type.equals(other.type);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * name.hashCode() + type.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return name + ":" + type;
+        }
+    }
+}
@@ -2,14 +2,27 @@ package com.wavemaker.app.build.servicedef;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
+import org.junit.Test;
+
 import com.wavemaker.app.build.exception.ServiceDefGenerationException;
 import com.wavemaker.commons.OperationNotExistException;
 import com.wavemaker.commons.json.JSONUtils;
 import com.wavemaker.commons.servicedef.model.ServiceDefinition;
+import com.wavemaker.tools.apidocs.tools.core.model.Operation;
+import com.wavemaker.tools.apidocs.tools.core.model.Path;
 import com.wavemaker.tools.apidocs.tools.core.model.Swagger;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
 /**
  * @author <a href="mailto:sunil.pulugula@wavemaker.com">Sunil Kumar</a>
  * @since 6/2/17
@@ -32,4 +45,91 @@ public class ServiceDefGeneratorTest {
         }
     }
 
+    @Test
+    public void generatesGivenOperationsAsAllOperationsFiltered() throws ServiceDefGenerationException {
+        Swagger swagger = swagger();
+        Map<String, ServiceDefinition> allServiceDefs = new TestServiceDefGenerator(swagger).generate();
+        List<String> operationIds = Arrays.asList("Employee_get", "Department_delete", "Employee_list");
+
+        TestServiceDefGenerator serviceDefGenerator = new TestServiceDefGenerator(swagger);
+        Map<String, ServiceDefinition> serviceDefs = serviceDefGenerator.generate(operationIds);
+
+        assertEquals(operationIds.size(), serviceDefs.size());
+        for (String operationId : operationIds) {
+            assertEquals(allServiceDefs.get(operationId).getId(), serviceDefs.get(operationId).getId());
+        }
+        // repeated operation ids resolve to the last operation as they do when generating all operations
+        assertEquals("/department:Employee_list", serviceDefs.get("Employee_list").getId());
+        assertEquals(operationIds.size(), serviceDefGenerator.builtOperations.size());
+    }
+
+    @Test
+    public void ignoresUnknownOperationIds() throws ServiceDefGenerationException {
+        TestServiceDefGenerator serviceDefGenerator = new TestServiceDefGenerator(swagger());
+
+        Map<String, ServiceDefinition> serviceDefs = serviceDefGenerator.generate(Arrays.asList("Employee_get", "Unknown_get"));
+
+        assertEquals(Collections.singleton("Employee_get"), serviceDefs.keySet());
+        assertTrue(serviceDefGenerator.generate(Collections.singletonList("Unknown_get")).isEmpty());
+        assertEquals(Collections.singletonList("Employee_get"), serviceDefGenerator.builtOperations);
+    }
+
+    @Test
+    public void generatesAllOperationsForNullOperationIds() throws ServiceDefGenerationException {
+        Swagger swagger = swagger();
+
+        Map<String, ServiceDefinition> serviceDefs = new TestServiceDefGenerator(swagger).generate((List<String>) null);
+
+        assertEquals(new TestServiceDefGenerator(swagger).generate().keySet(), serviceDefs.keySet());
+        assertEquals(4, serviceDefs.size());
+    }
+
+    private static Swagger swagger() {
+        final Map<String, Path> paths = new LinkedHashMap<>();
+        paths.put("/employee", path("Employee_get", "Employee_list", "Employee_create"));
+        paths.put("/department", path("Department_delete", "Employee_list"));
+        return new Swagger() {
+            @Override
+            public Map<String, Path> getPaths() {
+                return paths;
+            }
+        };
+    }
+
+    private static Path path(String... operationIds) {
+        final List<Operation> operations = new ArrayList<>();
+        for (final String operationId : operationIds) {
+            operations.add(new Operation() {
+                @Override
+                public String getOperationId() {
+                    return operationId;
+                }
+            });
+        }
+        return new Path() {
+            @Override
+            public List<Operation> getOperations() {
+                return operations;
+            }
+        };
+    }
+
+    /**
+     * Records the operations built, with the path of the operation in the id of its service definition.
+     */
+    private static class TestServiceDefGenerator extends ServiceDefGenerator {
+
+        private final List<String> builtOperations = new ArrayList<>();
+
+        private TestServiceDefGenerator(final Swagger swagger) {
+            super(swagger);
+        }
+
+        @Override
+        ServiceDefinition buildServiceDefinition(final OperationEntry operationEntry) {
+            String operationId = operationEntry.operation.getOperationId();
+            builtOperations.add(operationId);
+            return new ServiceDefinition().getNewInstance().addId(operationEntry.pathKey + ":" + operationId);
+        }
+    }
 }
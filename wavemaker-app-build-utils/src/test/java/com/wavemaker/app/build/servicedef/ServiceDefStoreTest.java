@@ -0,0 +1,146 @@
+/**
+ * Copyright © 2013 - 2017 WaveMaker, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wavemaker.app.build.servicedef;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.wavemaker.app.build.io.GeneratedFileWriter;
+import com.wavemaker.commons.WMRuntimeException;
+import com.wavemaker.commons.io.local.LocalFolder;
+import com.wavemaker.commons.servicedef.model.ServiceDefinition;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ServiceDefStoreTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void readsWrittenServiceDefinitions() {
+        Map<String, ServiceDefinition> serviceDefinitions = new LinkedHashMap<>();
+        serviceDefinitions.put("getEmployees", serviceDefinition("hrdb_getEmployees", "hrdb"));
+        serviceDefinitions.put("createEmployee", serviceDefinition("hrdb_createEmployee", "hrdb"));
+        byte[] content = new ServiceDefStoreWriter().add("hrdb", serviceDefinitions)
+                .add("weather", "forecast", serviceDefinition("weather_forecast", "weather")).toBytes();
+
+        ServiceDefStore serviceDefStore = ServiceDefStore.wrap(content);
+
+        assertEquals(3, serviceDefStore.size());
+        assertEquals(ServiceDefStore.getKey("hrdb", "createEmployee"), serviceDefStore.getKey(0));
+        assertEquals(ServiceDefStore.getKey("hrdb", "getEmployees"), serviceDefStore.getKey(1));
+        assertEquals(ServiceDefStore.getKey("weather", "forecast"), serviceDefStore.getKey(2));
+        assertTrue(serviceDefStore.contains("weather", "forecast"));
+        assertFalse(serviceDefStore.contains("weather", "getEmployees"));
+        ServiceDefinition serviceDefinition = serviceDefStore.getServiceDefinition("hrdb", "getEmployees");
+        assertEquals("hrdb_getEmployees", serviceDefinition.getId());
+        assertEquals("hrdb", serviceDefinition.getService());
+        assertNull(serviceDefStore.getServiceDefinition("hrdb", "deleteEmployee"));
+    }
+
+    @Test
+    public void contentDoesNotDependOnAdditionOrder() {
+        byte[] content = new ServiceDefStoreWriter().add("b", "op", serviceDefinition("b_op", "b"))
+                .add("a", "op", serviceDefinition("a_op", "a")).toBytes();
+        byte[] reorderedContent = new ServiceDefStoreWriter().add("a", "op", serviceDefinition("a_op", "a"))
+                .add("b", "op", serviceDefinition("b_op", "b")).toBytes();
+
+        assertArrayEquals(content, reorderedContent);
+    }
+
+    @Test
+    public void readsEmptyStore() {
+        ServiceDefStore serviceDefStore = ServiceDefStore.wrap(new ServiceDefStoreWriter().toBytes());
+
+        assertEquals(0, serviceDefStore.size());
+        assertFalse(serviceDefStore.contains("hrdb", "getEmployees"));
+    }
+
+    @Test(expected = WMRuntimeException.class)
+    public void rejectsContentWithoutMagicNumber() {
+        byte[] content = new ServiceDefStoreWriter().toBytes();
+        content[0] = 0;
+
+        ServiceDefStore.wrap(content);
+    }
+
+    @Test(expected = WMRuntimeException.class)
+    public void rejectsUnsupportedVersion() {
+        byte[] content = new ServiceDefStoreWriter().toBytes();
+        ByteBuffer.wrap(content).putInt(4, ServiceDefStore.VERSION + 1);
+
+        ServiceDefStore.wrap(content);
+    }
+
+    @Test
+    public void opensWrittenStoreFile() {
+        File storeFile = new File(temporaryFolder.getRoot(), "services/store.bin");
+
+        new ServiceDefStoreWriter().add("hrdb", "getEmployees", serviceDefinition("hrdb_getEmployees", "hrdb"))
+                .write(new LocalFolder(storeFile.getParentFile()).getFile(storeFile.getName()), new GeneratedFileWriter());
+
+        ServiceDefStore serviceDefStore = ServiceDefStore.open(storeFile);
+        assertEquals(1, serviceDefStore.size());
+        assertEquals("hrdb_getEmployees", serviceDefStore.getServiceDefinition("hrdb", "getEmployees").getId());
+    }
+
+    @Test
+    public void replacesStoreFileWithoutChangingOpenedStore() {
+        File storeFile = new File(temporaryFolder.getRoot(), "store.bin");
+        GeneratedFileWriter generatedFileWriter = new GeneratedFileWriter();
+        new ServiceDefStoreWriter().add("hrdb", "getEmployees", serviceDefinition("hrdb_getEmployees", "hrdb"))
+                .write(new LocalFolder(storeFile.getParentFile()).getFile(storeFile.getName()), generatedFileWriter);
+        ServiceDefStore serviceDefStore = ServiceDefStore.open(storeFile);
+
+        new ServiceDefStoreWriter().add("weather", "forecast", serviceDefinition("weather_forecast", "weather"))
+                .write(new LocalFolder(storeFile.getParentFile()).getFile(storeFile.getName()), generatedFileWriter);
+
+        assertEquals(2, generatedFileWriter.getWrittenCount());
+        assertTrue(serviceDefStore.contains("hrdb", "getEmployees"));
+        assertEquals("hrdb_getEmployees", serviceDefStore.getServiceDefinition("hrdb", "getEmployees").getId());
+        assertTrue(ServiceDefStore.open(storeFile).contains("weather", "forecast"));
+    }
+
+    @Test
+    public void skipsUnchangedStoreFile() {
+        File storeFile = new File(temporaryFolder.getRoot(), "store.bin");
+        GeneratedFileWriter generatedFileWriter = new GeneratedFileWriter();
+        ServiceDefStoreWriter serviceDefStoreWriter = new ServiceDefStoreWriter()
+                .add("hrdb", "getEmployees", serviceDefinition("hrdb_getEmployees", "hrdb"));
+
+        serviceDefStoreWriter.write(new LocalFolder(storeFile.getParentFile()).getFile(storeFile.getName()), generatedFileWriter);
+        serviceDefStoreWriter.write(new LocalFolder(storeFile.getParentFile()).getFile(storeFile.getName()), generatedFileWriter);
+
+        assertEquals(1, generatedFileWriter.getWrittenCount());
+        assertEquals(1, generatedFileWriter.getSkippedCount());
+        assertArrayEquals(new String[]{"store.bin"}, temporaryFolder.getRoot().list());
+    }
+
+    private static ServiceDefinition serviceDefinition(String id, String service) {
+        return new ServiceDefinition().getNewInstance().addId(id).addService(service);
+    }
+}
@@ -0,0 +1,111 @@
+/**
+ * Copyright © 2013 - 2017 WaveMaker, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wavemaker.app.build.swaggerdoc.index;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ClassFileParserTest {
+
+    @Test
+    public void readsControllerMappingsAndReferencedTypes() throws IOException {
+        ClassFileInfo classFileInfo = parse(UserController.class);
+
+        assertEquals(UserController.class.getName(), classFileInfo.getClassName());
+        assertTrue(classFileInfo.isController());
+        assertEquals(Arrays.asList("/users", "/users/{id}"), classFileInfo.getRequestMappings());
+        assertEquals(Collections.singletonList(User.class.getName()), classFileInfo.getReferencedTypes());
+        assertEquals(Arrays.asList(RequestMapping.class.getName(), RestController.class.getName()),
+                classFileInfo.getAnnotationTypes());
+    }
+
+    @Test
+    public void readsSuperTypes() throws IOException {
+        ClassFileInfo classFileInfo = parse(UserController.class);
+
+        assertEquals(BaseController.class.getName(), classFileInfo.getSuperClassName());
+        assertEquals(Collections.singletonList(Api.class.getName()), classFileInfo.getInterfaceNames());
+        assertNull(parse(Object.class).getSuperClassName());
+    }
+
+    @Test
+    public void readsPlainClass() throws IOException {
+        ClassFileInfo classFileInfo = parse(User.class);
+
+        assertFalse(classFileInfo.isController());
+        assertTrue(classFileInfo.getRequestMappings().isEmpty());
+        assertEquals(Object.class.getName(), classFileInfo.getSuperClassName());
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsOtherFiles() throws IOException {
+        new ClassFileParser().parse(new ByteArrayInputStream(new byte[]{1, 2, 3, 4}));
+    }
+
+    private static ClassFileInfo parse(Class<?> clazz) throws IOException {
+        InputStream inputStream = clazz.getResourceAsStream("/" + clazz.getName().replace('.', '/') + ".class");
+        try {
+            return new ClassFileParser().parse(inputStream);
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    public static class User {
+        private String name;
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    public interface Api {
+    }
+
+    public static class BaseController {
+    }
+
+    @RestController
+    @RequestMapping("/users")
+    public static class UserController extends BaseController implements Api {
+
+        @RequestMapping
+        public List<User> list() {
+            return Collections.emptyList();
+        }
+
+        @RequestMapping("{id}")
+        public User get(String id) {
+            return new User();
+        }
+
+        public void notMapped(Integer value) {
+        }
+    }
+}
@@ -0,0 +1,201 @@
+/**
+ * Copyright © 2013 - 2017 WaveMaker, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wavemaker.app.build.swaggerdoc.index;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ControllerIndexerTest {
+
+    private static final String BASE_PACKAGE = ControllerIndexerTest.class.getPackage().getName();
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void findsControllersWithDirectMappings() throws IOException {
+        ClassIndex classIndex = index(DirectController.class, NotController.class, UnmappedController.class);
+
+        assertEquals(Collections.singletonList(DirectController.class.getName()), getControllerClassNames(classIndex));
+    }
+
+    @Test
+    public void findsControllersInheritingMappings() throws IOException {
+        ClassIndex classIndex = index(BaseController.class, SubClassController.class, MappedApi.class,
+                InterfaceController.class);
+
+        assertEquals(Arrays.asList(InterfaceController.class.getName(), SubClassController.class.getName()),
+                getControllerClassNames(classIndex));
+    }
+
+    @Test
+    public void findsMetaAnnotatedControllersAndMappings() throws IOException {
+        ClassIndex classIndex = index(ApiController.class, MetaAnnotatedController.class, GetUsers.class,
+                MetaMappedController.class);
+
+        assertEquals(Arrays.asList(MetaAnnotatedController.class.getName(), MetaMappedController.class.getName()),
+                getControllerClassNames(classIndex));
+    }
+
+    @Test
+    public void resolvesSuperTypesOutsideOfTheIndex() throws IOException {
+        ClassIndex classIndex = index(SubClassController.class);
+
+        assertEquals(Collections.singletonList(SubClassController.class.getName()), getControllerClassNames(classIndex));
+    }
+
+    @Test
+    public void returnsNullWhenSuperTypesCannotBeRead() throws IOException {
+        ClassIndex classIndex = index(SubClassController.class);
+
+        assertNull(ControllerIndexer.getControllerClassNames(classIndex, new URLClassLoader(new URL[0], null)));
+    }
+
+    @Test
+    public void returnsNullWhenClassFilesCannotBeRead() throws IOException {
+        File classFolder = copyClassFiles(DirectController.class);
+        Files.write(new File(classFolder, BASE_PACKAGE.replace('.', '/') + "/Broken.class").toPath(), new byte[]{1, 2});
+
+        ClassIndex classIndex = newIndexer().index(Collections.singletonList(classFolder), BASE_PACKAGE);
+
+        assertNull(getControllerClassNames(classIndex));
+    }
+
+    @Test
+    public void referencesSuperTypes() throws IOException {
+        ClassIndex classIndex = index(BaseController.class, SubClassController.class);
+
+        assertTrue(ControllerIndexer.getReferencedTypes(classIndex,
+                Collections.singletonList(SubClassController.class.getName())).contains(BaseController.class.getName()));
+    }
+
+    private ClassIndex index(Class<?>... classes) throws IOException {
+        return newIndexer().index(Collections.singletonList(copyClassFiles(classes)), BASE_PACKAGE);
+    }
+
+    private ControllerIndexer newIndexer() throws IOException {
+        return new ControllerIndexer(new File(temporaryFolder.newFolder(), "class-index.json"));
+    }
+
+    private File copyClassFiles(Class<?>... classes) throws IOException {
+        File classFolder = temporaryFolder.newFolder();
+        for (Class<?> clazz : classes) {
+            String classFilePath = clazz.getName().replace('.', '/') + ".class";
+            File classFile = new File(classFolder, classFilePath);
+            classFile.getParentFile().mkdirs();
+            InputStream inputStream = getClass().getClassLoader().getResourceAsStream(classFilePath);
+            try {
+                Files.copy(inputStream, classFile.toPath());
+            } finally {
+                inputStream.close();
+            }
+        }
+        return classFolder;
+    }
+
+    private List<String> getControllerClassNames(ClassIndex classIndex) {
+        return ControllerIndexer.getControllerClassNames(classIndex, getClass().getClassLoader());
+    }
+
+    @RestController
+    public static class DirectController {
+        @RequestMapping("/direct")
+        public void get() {
+        }
+    }
+
+    @Controller
+    public static class UnmappedController {
+        public void get() {
+        }
+    }
+
+    public static class NotController {
+        @RequestMapping("/none")
+        public void get() {
+        }
+    }
+
+    public static class BaseController {
+        @RequestMapping("/base")
+        public void get() {
+        }
+    }
+
+    @RestController
+    public static class SubClassController extends BaseController {
+    }
+
+    public interface MappedApi {
+        @RequestMapping("/api")
+        void get();
+    }
+
+    @RestController
+    public static class InterfaceController implements MappedApi {
+        @Override
+        public void get() {
+        }
+    }
+
+    @Target(ElementType.TYPE)
+    @Retention(RetentionPolicy.RUNTIME)
+    @RestController
+    public @interface ApiController {
+    }
+
+    @ApiController
+    public static class MetaAnnotatedController {
+        @RequestMapping("/meta")
+        public void get() {
+        }
+    }
+
+    @Target(ElementType.METHOD)
+    @Retention(RetentionPolicy.RUNTIME)
+    @RequestMapping("/users")
+    public @interface GetUsers {
+    }
+
+    @RestController
+    public static class MetaMappedController {
+        @GetUsers
+        public void get() {
+        }
+    }
+}
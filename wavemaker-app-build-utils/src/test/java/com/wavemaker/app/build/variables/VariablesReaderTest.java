@@ -0,0 +1,83 @@
+/**
+ * Copyright © 2013 - 2017 WaveMaker, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wavemaker.app.build.variables;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class VariablesReaderTest {
+
+    @Test
+    public void readsServiceVariables() throws IOException {
+        List<VariableInfo> variables = read("{"
+                + "\"getUsers\": {\"category\": \"wm.ServiceVariable\", \"service\": \"hrdb\", \"operationId\": \"UserController_getUsers\","
+                + " \"dataSet\": {\"users\": [{\"name\": \"a\"}, {\"name\": \"b\"}]}, \"dataBinding\": [{\"target\": \"id\", \"value\": \"bind:x\"}]},"
+                + "\"loggedInUser\": {\"category\": \"wm.Variable\", \"service\": null, \"isList\": false}"
+                + "}");
+
+        assertEquals(2, variables.size());
+        VariableInfo serviceVariable = variables.get(0);
+        assertEquals("getUsers", serviceVariable.getName());
+        assertEquals("wm.ServiceVariable", serviceVariable.getCategory());
+        assertEquals("hrdb", serviceVariable.getService());
+        assertEquals("UserController_getUsers", serviceVariable.getOperationId());
+        VariableInfo variable = variables.get(1);
+        assertEquals("loggedInUser", variable.getName());
+        assertNull(variable.getService());
+        assertNull(variable.getOperationId());
+    }
+
+    @Test
+    public void ignoresNestedFieldsNamedLikeVariableFields() throws IOException {
+        List<VariableInfo> variables = read("{\"notify\": {\"category\": \"wm.NotificationVariable\","
+                + " \"dataBinding\": {\"service\": \"other\", \"operationId\": \"other_op\"}}}");
+
+        assertEquals(1, variables.size());
+        assertNull(variables.get(0).getService());
+        assertNull(variables.get(0).getOperationId());
+    }
+
+    @Test
+    public void skipsEntriesWithoutCategory() throws IOException {
+        List<VariableInfo> variables = read("{\"version\": 2, \"list\": [1, 2], \"noCategory\": {\"service\": \"hrdb\"}}");
+
+        assertTrue(variables.isEmpty());
+    }
+
+    @Test
+    public void readsEmptyFile() throws IOException {
+        assertTrue(read("").isEmpty());
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsNonObjectFile() throws IOException {
+        read("[]");
+    }
+
+    private static List<VariableInfo> read(String json) throws IOException {
+        InputStream inputStream = new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+        return new VariablesReader().read(inputStream);
+    }
+}